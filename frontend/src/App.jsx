@@ -1,4 +1,4 @@
-import React, { useState, useEffect } from 'react';
+import React, { useState, useEffect, useRef } from 'react';
 import {
     BarChart3,
     Plus,
@@ -21,6 +21,10 @@ import ProductCard from './components/ProductCard';
 import AddProductModal from './components/AddProductModal';
 import PriceChart from './components/PriceChart';
 
+// The chart is a few hundred pixels wide; more points than this cannot be drawn
+const CHART_POINTS = 300;
+const RANGE_DAYS = { '30': 30, ALL: 3650 };
+
 const App = () => {
     const [products, setProducts] = useState([]);
     const [loading, setLoading] = useState(true);
@@ -28,15 +32,72 @@ const App = () => {
     const [isAddModalOpen, setIsAddModalOpen] = useState(false);
     const [searchQuery, setSearchQuery] = useState('');
     const [filterMode, setFilterMode] = useState('ALL'); // ALL, ACTIVE, PRICE_DROP
+    const syncCursor = useRef(null); // Delta-sync cursor from the last fetch
+    const [historyRange, setHistoryRange] = useState('ALL'); // 30 or ALL
+    const [history, setHistory] = useState([]);
+    const [searchResults, setSearchResults] = useState(null); // Server-side search results, null when not searching
 
     useEffect(() => {
         fetchProducts();
     }, []);
 
+    // Live price updates - patch the price in place instead of refetching
+    useEffect(() => {
+        const events = new EventSource('/api/events');
+        events.addEventListener('price', (e) => {
+            const { productId, price } = JSON.parse(e.data);
+            setProducts(current => current.map(p => p.id === productId ? { ...p, currentPrice: price } : p));
+        });
+        return () => events.close();
+    }, []);
+
+    // Detail view for the selected product in one request - fresh product stats plus a
+    // series downsampled on the server to what the chart can draw
+    useEffect(() => {
+        if (!selectedProduct) return;
+        productService.getProductDetail(selectedProduct.id, RANGE_DAYS[historyRange], CHART_POINTS)
+            .then(({ data }) => {
+                setHistory(data.series);
+                setSelectedProduct(current => current && current.id === data.product.id ? { ...current, ...data.product } : current);
+            })
+            .catch(() => setHistory([]));
+    }, [selectedProduct?.id, historyRange]);
+
+    // Search and filters run on the server against its product index, debounced while typing
+    useEffect(() => {
+        if (!searchQuery.trim() && filterMode === 'ALL') {
+            setSearchResults(null);
+            return;
+        }
+        const timer = setTimeout(() => {
+            productService.searchProducts({
+                q: searchQuery.trim() || undefined,
+                active: filterMode === 'ACTIVE' ? true : undefined,
+                priceDrop: filterMode === 'PRICE_DROP',
+                sort: filterMode === 'PRICE_DROP' ? 'drop' : 'updatedAt',
+                size: 100,
+            })
+                .then(({ data }) => setSearchResults(data.items))
+                .catch(() => setSearchResults([]));
+        }, 250);
+        return () => clearTimeout(timer);
+    }, [searchQuery, filterMode]);
+
+    // Fetch only products changed since the last fetch and merge them into the local list
     const fetchProducts = async () => {
         try {
-            const response = await productService.getAllProducts();
-            setProducts(response.data);
+            const { data } = await productService.getProductChanges(syncCursor.current);
+            syncCursor.current = data.cursor;
+            setProducts(current => {
+                if (data.reset) return data.products;
+                const deleted = new Set(data.deleted);
+                const changed = new Map(data.products.map(p => [p.id, p]));
+                const merged = current
+                    .filter(p => !deleted.has(p.id))
+                    .map(p => changed.get(p.id) || p);
+                const known = new Set(merged.map(p => p.id));
+                return merged.concat(data.products.filter(p => !known.has(p.id) && !deleted.has(p.id)));
+            });
             setLoading(false);
         } catch (error) {
             console.error('Error fetching products:', error);
@@ -72,12 +133,7 @@ const App = () => {
         }
     };
 
-    const filteredProducts = products.filter(p => {
-        const matchesSearch = p.name.toLowerCase().includes(searchQuery.toLowerCase());
-        if (filterMode === 'ACTIVE') return matchesSearch && p.active;
-        if (filterMode === 'PRICE_DROP') return matchesSearch && p.currentPrice < p.avgPrice;
-        return matchesSearch;
-    });
+    const filteredProducts = searchResults ?? products;
 
     const stats = {
         total: products.length,
@@ -286,22 +342,19 @@ const App = () => {
                                         Historical Pulse Analysis
                                     </h3>
                                     <div className="flex gap-2 text-[10px] font-bold">
-                                        <span className="bg-slate-800 px-3 py-1 rounded-full text-slate-400">30 DAYS</span>
-                                        <span className="bg-indigo-500 px-3 py-1 rounded-full text-white">ALL TIME</span>
+                                        {[['30', '30 DAYS'], ['ALL', 'ALL TIME']].map(([range, label]) => (
+                                            <button
+                                                key={range}
+                                                onClick={() => setHistoryRange(range)}
+                                                className={`px-3 py-1 rounded-full ${historyRange === range ? 'bg-indigo-500 text-white' : 'bg-slate-800 text-slate-400'}`}
+                                            >
+                                                {label}
+                                            </button>
+                                        ))}
                                     </div>
                                 </div>
                                 <div className="bg-slate-900/30 border border-white/5 rounded-3xl p-6 h-[400px]">
-                                    {/* In a real app we'd fetch actual history for the selected product here */}
-                                    <PriceChart
-                                        data={[
-                                            { price: selectedProduct.currentPrice * 1.15, scrapedAt: new Date(Date.now() - 86400000 * 10) },
-                                            { price: selectedProduct.currentPrice * 1.10, scrapedAt: new Date(Date.now() - 86400000 * 8) },
-                                            { price: selectedProduct.currentPrice * 1.25, scrapedAt: new Date(Date.now() - 86400000 * 6) },
-                                            { price: selectedProduct.currentPrice * 1.05, scrapedAt: new Date(Date.now() - 86400000 * 4) },
-                                            { price: selectedProduct.currentPrice * 1.10, scrapedAt: new Date(Date.now() - 86400000 * 2) },
-                                            { price: selectedProduct.currentPrice, scrapedAt: new Date() },
-                                        ]}
-                                    />
+                                    <PriceChart data={history} />
                                 </div>
                             </div>
 
@@ -10,8 +10,11 @@ import {
     AreaChart,
     Area
 } from 'recharts';
+import { decodePriceSeries } from '../services/priceSeries';
 
-const PriceChart = ({ data, currency = '₹' }) => {
+const PriceChart = ({ data: series, currency = '₹' }) => {
+    // A series fetched in binary form arrives as an ArrayBuffer
+    const data = series instanceof ArrayBuffer ? decodePriceSeries(series) : series;
     if (!data || data.length === 0) {
         return (
             <div className="h-full flex items-center justify-center text-slate-500 bg-slate-900/20 rounded-xl border border-dashed border-slate-800">
@@ -1,4 +1,5 @@
 import axios from 'axios';
+import { PRICE_SERIES_TYPE } from './priceSeries';
 
 const api = axios.create({
     baseURL: '/api',
@@ -9,9 +10,16 @@ const api = axios.create({
 
 export const productService = {
     getAllProducts: () => api.get('/products'),
+    searchProducts: (params) => api.get('/products/search', { params }),
+    getProductChanges: (since) => api.get('/products/changes', { params: since ? { since } : {} }),
     getActiveProducts: () => api.get('/products/active'),
     getProduct: (id) => api.get(`/products/${id}`),
+    getProductDetail: (id, days = 30, maxPoints = 300) => api.get(`/products/${id}/detail`, { params: { days, maxPoints } }),
     addProduct: (data) => api.post('/products', data),
+    importProducts: (file) => api.post('/products/import', file, {
+        headers: { 'Content-Type': file.name?.endsWith('.csv') ? 'text/csv' : 'application/x-ndjson' },
+    }),
+    getImport: (importId) => api.get(`/products/import/${importId}`),
     deleteProduct: (id) => api.delete(`/products/${id}`),
     updateTargetPrice: (id, targetPrice) => api.patch(`/products/${id}/target-price`, { targetPrice }),
     updateActiveStatus: (id, active) => api.patch(`/products/${id}/active`, { active }),
@@ -21,8 +29,17 @@ export const productService = {
 };
 
 export const priceHistoryService = {
-    getHistory: (id, days = 30) => api.get(`/products/${id}/prices?days=${days}`),
-    getAllHistory: (id) => api.get(`/products/${id}/prices/all`),
+    getHistory: (id, days = 30, maxPoints) => api.get(`/products/${id}/prices`, { params: { days, maxPoints } }),
+    getAllHistory: (id, maxPoints) => api.get(`/products/${id}/prices/all`, { params: { maxPoints } }),
+    // Binary form of /prices - pass the ArrayBuffer in data straight to PriceChart
+    getHistoryBinary: (id, days = 30, maxPoints) => api.get(`/products/${id}/prices`, {
+        params: { days, maxPoints },
+        headers: { Accept: PRICE_SERIES_TYPE },
+        responseType: 'arraybuffer',
+    }),
+    getSeries: (productIds, days = 30, maxPoints = 300) => api.post('/products/series', { productIds, days, maxPoints }),
+    getHistoryPage: (id, before, limit = 100) => api.get(`/products/${id}/prices/page`, { params: { before, limit } }),
+    exportUrl: (id, format = 'csv') => `/api/products/${id}/prices/export?format=${format}`,
     getAnalytics: (id, days = 30) => api.get(`/products/${id}/analytics?days=${days}`),
 };
 
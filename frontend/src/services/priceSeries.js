@@ -0,0 +1,44 @@
+// Decoder for the binary price series form (Accept: application/vnd.pricetracker.series).
+// The layout is documented on PriceSeriesMessageConverter on the server.
+
+export const PRICE_SERIES_TYPE = 'application/vnd.pricetracker.series';
+
+const AVAILABILITY = [null, true, false];
+
+// Decode an ArrayBuffer into [{ scrapedAt, price, available }], scrapedAt in epoch millis
+export function decodePriceSeries(buffer) {
+    const bytes = new Uint8Array(buffer);
+    let pos = 0;
+
+    // Varints are read with float arithmetic so values beyond 32 bits stay exact
+    const readVarint = () => {
+        let value = 0;
+        let factor = 1;
+        let byte;
+        do {
+            byte = bytes[pos++];
+            value += (byte & 0x7f) * factor;
+            factor *= 128;
+        } while (byte & 0x80);
+        return value;
+    };
+    const unzigzag = (value) => (value % 2 === 0 ? value / 2 : -(value + 1) / 2);
+
+    const version = bytes[pos++];
+    if (version !== 1) {
+        throw new Error(`Unsupported price series version ${version}`);
+    }
+    const divisor = 10 ** bytes[pos++];
+    const count = readVarint();
+
+    const points = new Array(count);
+    let seconds = 0;
+    let units = 0;
+    for (let i = 0; i < count; i++) {
+        seconds += unzigzag(readVarint());
+        const packed = readVarint();
+        units += unzigzag(Math.floor(packed / 4));
+        points[i] = { scrapedAt: seconds * 1000, price: units / divisor, available: AVAILABILITY[packed % 4] };
+    }
+    return points;
+}
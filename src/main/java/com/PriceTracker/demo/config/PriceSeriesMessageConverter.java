@@ -0,0 +1,133 @@
+package com.PriceTracker.demo.config;
+
+import com.PriceTracker.demo.dto.TimedPrice;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Type;
+import java.math.RoundingMode;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Writes price series in a compact binary form, for clients that ask for
+ * it by Accept header. Only time, price and availability are sent:
+ *
+ * <pre>
+ * byte    format version (1)
+ * byte    price scale: price = minor units / 10^scale
+ * varint  number of points
+ * per point, in response order:
+ *   zigzag varint  epoch seconds minus the previous point's (the first is absolute)
+ *   varint         zigzag(minor units minus the previous point's) &lt;&lt; 2 | availability
+ *                  (0 unknown, 1 in stock, 2 out of stock)
+ * </pre>
+ *
+ * Neighbouring points are close in time and price, so most points take 2-4
+ * bytes instead of a JSON object with field names, an ISO timestamp and a
+ * decimal string. frontend/src/services/priceSeries.js decodes it.
+ * Only bodies declared as lists of TimedPrice are written, so other list
+ * endpoints answer this Accept with 406.
+ */
+public class PriceSeriesMessageConverter extends AbstractGenericHttpMessageConverter<List<? extends TimedPrice>> {
+
+    public static final MediaType PRICE_SERIES = new MediaType("application", "vnd.pricetracker.series");
+
+    private static final int VERSION = 1;
+    private static final int SCALE = 2; // Prices are stored with two decimal places
+
+    public PriceSeriesMessageConverter() {
+        super(PRICE_SERIES);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) {
+        return false;
+    }
+
+    /**
+     * Writable only when the declared element type is a TimedPrice.
+     */
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        if (type == null || !canWrite(mediaType) || !List.class.isAssignableFrom(clazz)) {
+            return false;
+        }
+        Class<?> element = ResolvableType.forType(type).asCollection().resolveGeneric(0);
+        return element != null && TimedPrice.class.isAssignableFrom(element);
+    }
+
+    @Override
+    public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+        return false; // The element type is needed, see canWrite(Type, ...)
+    }
+
+    @Override
+    public List<MediaType> getSupportedMediaTypes(Class<?> clazz) {
+        // Asked after canWrite(Type, ...) has passed, so the class alone is enough here
+        return supports(clazz) ? getSupportedMediaTypes() : List.of();
+    }
+
+    @Override
+    public List<? extends TimedPrice> read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Price series cannot be uploaded in binary form", inputMessage);
+    }
+
+    @Override
+    protected List<? extends TimedPrice> readInternal(Class<? extends List<? extends TimedPrice>> clazz,
+            HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Price series cannot be uploaded in binary form", inputMessage);
+    }
+
+    @Override
+    protected void writeInternal(List<? extends TimedPrice> series, Type type, HttpOutputMessage outputMessage)
+            throws IOException {
+        OutputStream out = new BufferedOutputStream(outputMessage.getBody());
+        out.write(VERSION);
+        out.write(SCALE);
+        writeVarint(out, series.size());
+
+        long lastSeconds = 0;
+        long lastUnits = 0;
+        for (TimedPrice point : series) {
+            long seconds = point.getScrapedAt().atZone(ZoneId.systemDefault()).toEpochSecond();
+            long units = point.getPrice().setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+            int availability = point.getAvailable() == null ? 0 : point.getAvailable() ? 1 : 2;
+
+            writeVarint(out, zigzag(seconds - lastSeconds));
+            writeVarint(out, zigzag(units - lastUnits) << 2 | availability);
+            lastSeconds = seconds;
+            lastUnits = units;
+        }
+        out.flush();
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
@@ -3,17 +3,19 @@ package com.PriceTracker.demo.config;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 /**
  * Configuration for scheduled tasks and thread pool.
- * Enables Spring's scheduling infrastructure.
+ * Enables Spring's scheduling infrastructure unless app.scheduling.enabled
+ * is false, as in tests, which run jobs by calling them.
  */
 @Configuration
-@EnableScheduling
 public class SchedulerConfig {
 
     private static final Logger log = LoggerFactory.getLogger(SchedulerConfig.class);
@@ -21,6 +23,21 @@ public class SchedulerConfig {
     @Value("${app.scheduler.pool-size:10}")
     private int poolSize;
 
+    @Value("${app.scrape.executor.pool-size:8}")
+    private int scrapePoolSize;
+
+    @Value("${app.scrape.executor.queue-capacity:500}")
+    private int scrapeQueueCapacity;
+
+    @Value("${app.alerts.dispatcher-threads:2}")
+    private int alertDispatcherThreads;
+
+    @Configuration
+    @EnableScheduling
+    @ConditionalOnProperty(name = "app.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+    static class Scheduling {
+    }
+
     /**
      * Configure the task scheduler with a thread pool.
      * This allows multiple scraping tasks to run concurrently.
@@ -47,4 +64,44 @@ public class SchedulerConfig {
 
         return scheduler;
     }
+
+    /**
+     * Configure the executor for scrapes requested over the REST API.
+     * Keeps remote fetches off the servlet request threads.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor scrapeExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(scrapePoolSize);
+        executor.setMaxPoolSize(scrapePoolSize);
+
+        // Bounded queue - submissions beyond it are rejected with 503
+        executor.setQueueCapacity(scrapeQueueCapacity);
+        executor.setThreadNamePrefix("scrape-exec-");
+
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+
+        log.info("Initialized scrape executor with pool size: {}, queue capacity: {}",
+                scrapePoolSize, scrapeQueueCapacity);
+
+        return executor;
+    }
+
+    /**
+     * Configure the pool that sends alert emails from the outbox.
+     * Separate from scraping so slow SMTP servers cannot hold up scrapes.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor alertDispatchExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(alertDispatcherThreads);
+        executor.setMaxPoolSize(alertDispatcherThreads);
+        executor.setThreadNamePrefix("alert-dispatch-");
+
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+
+        return executor;
+    }
 }
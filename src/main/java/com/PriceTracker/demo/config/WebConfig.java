@@ -0,0 +1,21 @@
+package com.PriceTracker.demo.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Configuration for Spring MVC.
+ * The binary price series converter is added after the default converters,
+ * so JSON stays the answer to requests without an explicit Accept.
+ */
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new PriceSeriesMessageConverter());
+    }
+}
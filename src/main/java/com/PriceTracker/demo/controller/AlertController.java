@@ -1,6 +1,6 @@
 package com.PriceTracker.demo.controller;
 
-import com.PriceTracker.demo.models.Alert;
+import com.PriceTracker.demo.dto.AlertResponse;
 import com.PriceTracker.demo.service.AlertService;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -26,16 +26,18 @@ public class AlertController {
      * GET /api/alerts/product/{productId}
      */
     @GetMapping("/product/{productId}")
-    public ResponseEntity<List<Alert>> getAlertsForProduct(@PathVariable Long productId) {
+    public ResponseEntity<List<AlertResponse>> getAlertsForProduct(@PathVariable Long productId) {
         return ResponseEntity.ok(alertService.getAlertsForProduct(productId));
     }
 
     /**
-     * Get all unnotified alerts.
-     * GET /api/alerts/pending
+     * Get a page of unnotified alerts.
+     * GET /api/alerts/pending?page=0&size=100
      */
     @GetMapping("/pending")
-    public ResponseEntity<List<Alert>> getPendingAlerts() {
-        return ResponseEntity.ok(alertService.getUnnotifiedAlerts());
+    public ResponseEntity<List<AlertResponse>> getPendingAlerts(
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "100") int size) {
+        return ResponseEntity.ok(alertService.getUnnotifiedAlerts(page, Math.min(size, 500)));
     }
 }
@@ -0,0 +1,57 @@
+package com.PriceTracker.demo.controller;
+
+import com.PriceTracker.demo.dto.AlertRuleRequest;
+import com.PriceTracker.demo.models.AlertRule;
+import com.PriceTracker.demo.service.AlertRuleService;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * REST Controller for subscriber alert rules.
+ */
+@RestController
+@RequestMapping("/api/alert-rules")
+@CrossOrigin(origins = "*")
+public class AlertRuleController {
+
+    private final AlertRuleService alertRuleService;
+
+    public AlertRuleController(AlertRuleService alertRuleService) {
+        this.alertRuleService = alertRuleService;
+    }
+
+    /**
+     * Subscribe to alerts on a product.
+     * POST /api/alert-rules
+     */
+    @PostMapping
+    public ResponseEntity<AlertRule> addRule(@Valid @RequestBody AlertRuleRequest request) {
+        AlertRule rule = alertRuleService.addRule(request);
+        return ResponseEntity
+                .created(URI.create("/api/alert-rules/" + rule.getId()))
+                .body(rule);
+    }
+
+    /**
+     * Get all rules for a product.
+     * GET /api/alert-rules?productId=1
+     */
+    @GetMapping
+    public ResponseEntity<List<AlertRule>> getRules(@RequestParam Long productId) {
+        return ResponseEntity.ok(alertRuleService.getRules(productId));
+    }
+
+    /**
+     * Delete a rule.
+     * DELETE /api/alert-rules/{id}
+     */
+    @DeleteMapping("/{id}")
+    public ResponseEntity<Void> deleteRule(@PathVariable Long id) {
+        alertRuleService.deleteRule(id);
+        return ResponseEntity.noContent().build();
+    }
+}
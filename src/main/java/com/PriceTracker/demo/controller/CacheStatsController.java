@@ -0,0 +1,32 @@
+package com.PriceTracker.demo.controller;
+
+import com.PriceTracker.demo.dto.CacheStats;
+import com.PriceTracker.demo.service.ProductReadCache;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller for read cache monitoring.
+ */
+@RestController
+@RequestMapping("/api/cache-stats")
+@CrossOrigin(origins = "*")
+public class CacheStatsController {
+
+    private final ProductReadCache readCache;
+
+    public CacheStatsController(ProductReadCache readCache) {
+        this.readCache = readCache;
+    }
+
+    /**
+     * Get hit, miss and eviction counters of the product read caches on this node.
+     * GET /api/cache-stats
+     */
+    @GetMapping
+    public ResponseEntity<List<CacheStats>> getStats() {
+        return ResponseEntity.ok(readCache.getStats());
+    }
+}
@@ -0,0 +1,33 @@
+package com.PriceTracker.demo.controller;
+
+import com.PriceTracker.demo.service.PriceEventBroadcaster;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * REST Controller for live price and alert events.
+ */
+@RestController
+@RequestMapping("/api/events")
+@CrossOrigin(origins = "*")
+public class EventStreamController {
+
+    private final PriceEventBroadcaster broadcaster;
+
+    public EventStreamController(PriceEventBroadcaster broadcaster) {
+        this.broadcaster = broadcaster;
+    }
+
+    /**
+     * Open a Server-Sent Events stream of "price" and "alert" events.
+     * Without productIds, events for all products are sent.
+     * GET /api/events?productIds=1,2,3
+     */
+    @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) List<Long> productIds) {
+        return broadcaster.subscribe(productIds != null ? productIds : List.of());
+    }
+}
@@ -0,0 +1,35 @@
+package com.PriceTracker.demo.controller;
+
+import com.PriceTracker.demo.dto.PriceIngestResult;
+import com.PriceTracker.demo.service.PriceIngestService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * REST Controller for ingesting prices supplied by partner feeds.
+ */
+@RestController
+@RequestMapping("/api/prices")
+@CrossOrigin(origins = "*")
+public class PriceIngestController {
+
+    private final PriceIngestService priceIngestService;
+
+    public PriceIngestController(PriceIngestService priceIngestService) {
+        this.priceIngestService = priceIngestService;
+    }
+
+    /**
+     * Ingest an NDJSON stream of price observations, one per line:
+     * {"productKey":"amazon.in:B0BDHWDR12","price":999,"available":true,"currency":"INR",
+     *  "observedAt":"2026-01-01T10:00:00Z","idempotencyKey":"feed-1:42"}
+     * POST /api/prices/ingest
+     */
+    @PostMapping(value = "/ingest", consumes = "application/x-ndjson")
+    public ResponseEntity<PriceIngestResult> ingest(InputStream body) throws IOException {
+        return ResponseEntity.ok(priceIngestService.ingest(body));
+    }
+}
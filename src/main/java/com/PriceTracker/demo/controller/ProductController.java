@@ -1,27 +1,52 @@
 package com.PriceTracker.demo.controller;
 
+import com.PriceTracker.demo.config.PriceSeriesMessageConverter;
 import com.PriceTracker.demo.dto.PriceAnalytics;
+import com.PriceTracker.demo.dto.PriceHistoryPage;
+import com.PriceTracker.demo.dto.PriceSeriesSet;
+import com.PriceTracker.demo.dto.ProductChanges;
+import com.PriceTracker.demo.dto.ProductDetail;
+import com.PriceTracker.demo.dto.ProductImport;
 import com.PriceTracker.demo.dto.ProductRequest;
 import com.PriceTracker.demo.dto.ProductResponse;
-import com.PriceTracker.demo.models.PriceHistory;
+import com.PriceTracker.demo.dto.ProductSearchResult;
+import com.PriceTracker.demo.dto.ProductSummary;
+import com.PriceTracker.demo.dto.ScrapeJob;
+import com.PriceTracker.demo.dto.SeriesRequest;
+import com.PriceTracker.demo.dto.TimedPrice;
 import com.PriceTracker.demo.models.ProductInfo;
 import com.PriceTracker.demo.scraper.ScraperFactory;
 import com.PriceTracker.demo.service.PriceHistoryService;
+import com.PriceTracker.demo.service.ProductImportService;
 import com.PriceTracker.demo.service.ProductService;
+import com.PriceTracker.demo.service.ResourceVersion;
+import com.PriceTracker.demo.service.ScrapeJobService;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.math.BigDecimal;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * REST Controller for product management.
  * Provides endpoints for CRUD operations, price history, and analytics.
+ * Read endpoints carry ETag/Last-Modified validators and answer conditional
+ * requests with 304 before any aggregate query runs.
  */
 @RestController
 @RequestMapping("/api/products")
@@ -30,30 +55,70 @@ public class ProductController {
 
     private static final Logger log = LoggerFactory.getLogger(ProductController.class);
 
+    private static final MediaType TEXT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+
     private final ProductService productService;
     private final PriceHistoryService priceHistoryService;
+    private final ScrapeJobService scrapeJobService;
     private final ScraperFactory scraperFactory;
+    private final ProductImportService productImportService;
 
     public ProductController(ProductService productService,
             PriceHistoryService priceHistoryService,
-            ScraperFactory scraperFactory) {
+            ScrapeJobService scrapeJobService,
+            ScraperFactory scraperFactory,
+            ProductImportService productImportService) {
         this.productService = productService;
         this.priceHistoryService = priceHistoryService;
+        this.scrapeJobService = scrapeJobService;
         this.scraperFactory = scraperFactory;
+        this.productImportService = productImportService;
     }
 
     /**
      * Add a new product to track.
-     * POST /api/products
+     * The initial scrape runs on the scrape executor, not the request thread.
+     * With async=true, returns 202 with a pollable job instead of waiting.
+     * POST /api/products?async=false
      */
     @PostMapping
-    public ResponseEntity<ProductInfo> addProduct(@Valid @RequestBody ProductRequest request) {
+    public CompletableFuture<ResponseEntity<?>> addProduct(
+            @Valid @RequestBody ProductRequest request,
+            @RequestParam(defaultValue = "false") boolean async) {
         log.info("Adding new product: {}", request.getUrl());
-        ProductInfo product = productService.addProduct(request);
+        ScrapeJob job = scrapeJobService.submitAddProduct(request);
 
-        return ResponseEntity
+        if (async) {
+            return CompletableFuture.completedFuture(accepted(job));
+        }
+        return job.getFuture().thenApply(product -> ResponseEntity
                 .created(URI.create("/api/products/" + product.getId()))
-                .body(product);
+                .body(product));
+    }
+
+    /**
+     * Import products in bulk from an NDJSON or CSV upload, one product request per row.
+     * The upload is streamed and new products are stored as pending; their
+     * initial scrapes run in the background. Returns 202 with the row counts.
+     * POST /api/products/import
+     */
+    @PostMapping(value = "/import", consumes = { "application/x-ndjson", "text/csv" })
+    public ResponseEntity<ProductImport> importProducts(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType, InputStream body) {
+        String format = MediaType.parseMediaType(contentType).isCompatibleWith(TEXT_CSV) ? "csv" : "ndjson";
+        ProductImport result = productImportService.importProducts(body, format);
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/products/import/" + result.getId()))
+                .body(result);
+    }
+
+    /**
+     * Get the progress of a bulk import, including its initial scrapes.
+     * GET /api/products/import/{importId}
+     */
+    @GetMapping("/import/{importId}")
+    public ResponseEntity<ProductImport> getImport(@PathVariable String importId) {
+        return ResponseEntity.ok(productImportService.getImport(importId));
     }
 
     /**
@@ -61,8 +126,36 @@ public class ProductController {
      * GET /api/products
      */
     @GetMapping
-    public ResponseEntity<List<ProductResponse>> getAllProducts() {
-        return ResponseEntity.ok(productService.getAllProductResponses());
+    public ResponseEntity<List<ProductResponse>> getAllProducts(WebRequest request) {
+        return conditional(request, productService.getListVersion(), productService::getAllProductResponses);
+    }
+
+    /**
+     * Get products changed since a cursor, with tombstones for deleted ones.
+     * Omit since for a full list; pass the returned cursor on the next call.
+     * GET /api/products/changes?since=...
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<ProductChanges> getChanges(@RequestParam(required = false) String since) {
+        return ResponseEntity.ok(productService.getChangesSince(since));
+    }
+
+    /**
+     * Search products by name, with filters, sorting and paging.
+     * sort is updatedAt, price or drop (percent below average price).
+     * GET /api/products/search?q=phone&site=Amazon&active=true&priceDrop=false&sort=updatedAt&order=desc&page=0&size=20
+     */
+    @GetMapping("/search")
+    public ResponseEntity<ProductSearchResult> searchProducts(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) String site,
+            @RequestParam(required = false) Boolean active,
+            @RequestParam(defaultValue = "false") boolean priceDrop,
+            @RequestParam(defaultValue = "updatedAt") String sort,
+            @RequestParam(defaultValue = "desc") String order,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(productService.searchProducts(q, site, active, priceDrop, sort, order, page, size));
     }
 
     /**
@@ -70,8 +163,8 @@ public class ProductController {
      * GET /api/products/active
      */
     @GetMapping("/active")
-    public ResponseEntity<List<ProductInfo>> getActiveProducts() {
-        return ResponseEntity.ok(productService.getActiveProducts());
+    public ResponseEntity<List<ProductSummary>> getActiveProducts(WebRequest request) {
+        return conditional(request, productService.getListVersion(), productService::getActiveProducts);
     }
 
     /**
@@ -79,28 +172,104 @@ public class ProductController {
      * GET /api/products/{id}
      */
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProduct(@PathVariable Long id) {
-        return ResponseEntity.ok(productService.getProductResponse(id));
+    public ResponseEntity<ProductResponse> getProduct(@PathVariable Long id, WebRequest request) {
+        return conditional(request, productService.getProductVersion(id),
+                () -> productService.getProductResponse(id));
+    }
+
+    /**
+     * Get the product, its price series, analytics and recent alerts in one call.
+     * GET /api/products/{id}/detail?days=30&maxPoints=300&alerts=10
+     */
+    @GetMapping("/{id}/detail")
+    public ResponseEntity<ProductDetail> getProductDetail(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(defaultValue = "300") int maxPoints,
+            @RequestParam(defaultValue = "10") int alerts) {
+        return ResponseEntity.ok(productService.getProductDetail(id, days, maxPoints, alerts));
+    }
+
+    /**
+     * Get the price series of several products on one time grid, for comparison charts.
+     * Each series holds the product's last price at every grid point.
+     * POST /api/products/series
+     */
+    @PostMapping("/series")
+    public ResponseEntity<PriceSeriesSet> getSeries(@Valid @RequestBody SeriesRequest request) {
+        return ResponseEntity.ok(priceHistoryService.getSeries(request));
     }
 
     /**
      * Get price history for a product.
-     * GET /api/products/{id}/prices?days=30
+     * With maxPoints, returns at most that many points (oldest first) that
+     * keep the series' shape and every price extreme.
+     * Accept: application/vnd.pricetracker.series returns the compact binary form.
+     * GET /api/products/{id}/prices?days=30&maxPoints=300
      */
     @GetMapping("/{id}/prices")
-    public ResponseEntity<List<PriceHistory>> getPriceHistory(
+    public ResponseEntity<List<? extends TimedPrice>> getPriceHistory(
             @PathVariable Long id,
-            @RequestParam(defaultValue = "30") int days) {
-        return ResponseEntity.ok(priceHistoryService.getHistory(id, days));
+            @RequestParam(defaultValue = "30") int days,
+            @RequestParam(required = false) Integer maxPoints,
+            WebRequest request) {
+        ResourceVersion version = representation(request, productService.getProductVersion(id).forWindow(days));
+        if (maxPoints != null) {
+            return conditional(request, version.withVariant("p" + maxPoints),
+                    () -> priceHistoryService.getDownsampledHistory(id, days, maxPoints));
+        }
+        return conditional(request, version, () -> priceHistoryService.getHistory(id, days));
     }
 
     /**
      * Get all price history for a product.
-     * GET /api/products/{id}/prices/all
+     * With maxPoints, returns a downsampled series. Both can be sent in binary, as for /prices.
+     * GET /api/products/{id}/prices/all?maxPoints=300
      */
     @GetMapping("/{id}/prices/all")
-    public ResponseEntity<List<PriceHistory>> getAllPriceHistory(@PathVariable Long id) {
-        return ResponseEntity.ok(priceHistoryService.getAllHistory(id));
+    public ResponseEntity<List<? extends TimedPrice>> getAllPriceHistory(
+            @PathVariable Long id,
+            @RequestParam(required = false) Integer maxPoints,
+            WebRequest request) {
+        ResourceVersion version = representation(request, productService.getProductVersion(id));
+        if (maxPoints != null) {
+            return conditional(request, version.withVariant("p" + maxPoints),
+                    () -> priceHistoryService.getDownsampledHistory(id, null, maxPoints));
+        }
+        return conditional(request, version, () -> priceHistoryService.getAllHistory(id));
+    }
+
+    /**
+     * Get a page of price history for a product, newest first.
+     * Pass the returned nextCursor as before= to get the next (older) page.
+     * GET /api/products/{id}/prices/page?before=...&limit=100
+     */
+    @GetMapping("/{id}/prices/page")
+    public ResponseEntity<PriceHistoryPage> getPriceHistoryPage(
+            @PathVariable Long id,
+            @RequestParam(required = false) String before,
+            @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(priceHistoryService.getHistoryPage(id, before, limit));
+    }
+
+    /**
+     * Export all price history for a product, oldest first, as NDJSON or CSV.
+     * The body is streamed from the database row by row.
+     * GET /api/products/{id}/prices/export?format=ndjson
+     */
+    @GetMapping("/{id}/prices/export")
+    public ResponseEntity<StreamingResponseBody> exportPriceHistory(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        priceHistoryService.checkExport(id, format);
+        boolean csv = "csv".equals(format);
+
+        return ResponseEntity.ok()
+                .contentType(csv ? TEXT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename("product-" + id + "-prices." + (csv ? "csv" : "ndjson"))
+                        .build().toString())
+                .body(out -> priceHistoryService.exportHistory(id, format, out));
     }
 
     /**
@@ -110,8 +279,10 @@ public class ProductController {
     @GetMapping("/{id}/analytics")
     public ResponseEntity<PriceAnalytics> getAnalytics(
             @PathVariable Long id,
-            @RequestParam(defaultValue = "30") int days) {
-        return ResponseEntity.ok(priceHistoryService.getAnalytics(id, days));
+            @RequestParam(defaultValue = "30") int days,
+            WebRequest request) {
+        return conditional(request, productService.getProductVersion(id).forWindow(days),
+                () -> priceHistoryService.getAnalytics(id, days));
     }
 
     /**
@@ -150,13 +321,22 @@ public class ProductController {
 
     /**
      * Manually trigger price scrape for a product.
-     * POST /api/products/{id}/scrape
+     * Returns the last result if it is still fresh, unless force is set.
+     * With async=true, returns 202 with a pollable job instead of waiting.
+     * POST /api/products/{id}/scrape?force=false&async=false
      */
     @PostMapping("/{id}/scrape")
-    public ResponseEntity<ProductInfo> scrapeProduct(@PathVariable Long id) {
-        log.info("Manual scrape triggered for product ID: {}", id);
-        ProductInfo product = productService.updateProductPrice(id);
-        return ResponseEntity.ok(product);
+    public CompletableFuture<ResponseEntity<?>> scrapeProduct(
+            @PathVariable Long id,
+            @RequestParam(defaultValue = "false") boolean force,
+            @RequestParam(defaultValue = "false") boolean async) {
+        log.info("Manual scrape triggered for product ID: {} (force: {})", id, force);
+        ScrapeJob job = scrapeJobService.submitScrape(id, force);
+
+        if (async) {
+            return CompletableFuture.completedFuture(accepted(job));
+        }
+        return job.getFuture().thenApply(ResponseEntity::ok);
     }
 
     /**
@@ -182,4 +362,37 @@ public class ProductController {
                 "supported", supported,
                 "site", siteName));
     }
+
+    /**
+     * Answer a conditional GET with 304 if the client's copy is current,
+     * checked before the body is computed. Responses must be revalidated
+     * on every use, so clients never show a stale copy.
+     */
+    private <T> ResponseEntity<T> conditional(WebRequest request, ResourceVersion version, Supplier<T> body) {
+        if (request.checkNotModified(version.etag(), version.lastModified())) {
+            return null; // 304 Not Modified, validators already set
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT)
+                .body(body.get());
+    }
+
+    /**
+     * Version of a price series in the representation the client accepts,
+     * so a cached JSON copy never validates a binary one or the other way round.
+     */
+    private static ResourceVersion representation(WebRequest request, ResourceVersion version) {
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        return accept != null && accept.contains(PriceSeriesMessageConverter.PRICE_SERIES.toString())
+                ? version.withVariant("bin")
+                : version;
+    }
+
+    private ResponseEntity<?> accepted(ScrapeJob job) {
+        return ResponseEntity
+                .accepted()
+                .location(URI.create("/api/scrape-jobs/" + job.getId()))
+                .body(job);
+    }
 }
@@ -0,0 +1,30 @@
+package com.PriceTracker.demo.controller;
+
+import com.PriceTracker.demo.dto.ScrapeJob;
+import com.PriceTracker.demo.service.ScrapeJobService;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+/**
+ * REST Controller for polling asynchronously submitted scrapes.
+ */
+@RestController
+@RequestMapping("/api/scrape-jobs")
+@CrossOrigin(origins = "*")
+public class ScrapeJobController {
+
+    private final ScrapeJobService scrapeJobService;
+
+    public ScrapeJobController(ScrapeJobService scrapeJobService) {
+        this.scrapeJobService = scrapeJobService;
+    }
+
+    /**
+     * Get the status of a scrape job.
+     * GET /api/scrape-jobs/{jobId}
+     */
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ScrapeJob> getJob(@PathVariable String jobId) {
+        return ResponseEntity.ok(scrapeJobService.getJob(jobId));
+    }
+}
@@ -0,0 +1,32 @@
+package com.PriceTracker.demo.controller;
+
+import com.PriceTracker.demo.dto.ScrapeRunStats;
+import com.PriceTracker.demo.scheduler.PriceScrapingJob;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * REST Controller for scheduled scrape run monitoring.
+ */
+@RestController
+@RequestMapping("/api/scrape-runs")
+@CrossOrigin(origins = "*")
+public class ScrapeRunController {
+
+    private final PriceScrapingJob priceScrapingJob;
+
+    public ScrapeRunController(PriceScrapingJob priceScrapingJob) {
+        this.priceScrapingJob = priceScrapingJob;
+    }
+
+    /**
+     * Get stats of the most recent scrape runs on this node.
+     * GET /api/scrape-runs
+     */
+    @GetMapping
+    public ResponseEntity<List<ScrapeRunStats>> getRecentRuns() {
+        return ResponseEntity.ok(priceScrapingJob.getRecentRuns());
+    }
+}
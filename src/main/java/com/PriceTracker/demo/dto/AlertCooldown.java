@@ -0,0 +1,21 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for when a product last alerted a recipient with one alert type.
+ * Read by alert evaluation to apply the cooldown across nodes and restarts.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AlertCooldown {
+    private Long productId;
+    private String alertType;
+    private String email;
+    private LocalDateTime lastTriggeredAt;
+}
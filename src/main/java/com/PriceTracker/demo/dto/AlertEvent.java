@@ -0,0 +1,21 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for a triggered alert pushed to event stream subscribers.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AlertEvent {
+    private Long productId;
+    private String alertType;
+    private BigDecimal price;
+    private Double percentageChange;
+    private long at; // Epoch millis when the alert was triggered
+}
@@ -0,0 +1,31 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for alert API responses.
+ * Carries the product's id and name instead of the product itself.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AlertResponse {
+    private Long id;
+    private Long productId;
+    private String productName;
+    private String alertType;
+    private Long ruleId;
+    private BigDecimal targetPrice;
+    private BigDecimal triggerPrice;
+    private BigDecimal previousPrice;
+    private Double percentageChange;
+    private String email;
+    private boolean notified;
+    private LocalDateTime triggeredAt;
+    private LocalDateTime notifiedAt;
+}
@@ -0,0 +1,34 @@
+package com.PriceTracker.demo.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for subscribing to alerts on a tracked product.
+ * Contains validation constraints for input data.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AlertRuleRequest {
+
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+
+    @NotBlank(message = "Email is required")
+    @Email(message = "Invalid email format")
+    private String email;
+
+    @NotBlank(message = "Rule type is required")
+    @Pattern(regexp = "^(TARGET_PRICE|PERCENT_DROP|ALL_TIME_LOW|BACK_IN_STOCK)$",
+            message = "Rule type must be TARGET_PRICE, PERCENT_DROP, ALL_TIME_LOW or BACK_IN_STOCK")
+    private String ruleType;
+
+    // Target price or drop percentage, depending on the rule type
+    @Positive(message = "Threshold must be positive")
+    private BigDecimal threshold;
+}
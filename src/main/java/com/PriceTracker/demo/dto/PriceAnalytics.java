@@ -6,6 +6,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 
 /**
  * DTO for price analytics data.
@@ -30,4 +31,13 @@ public class PriceAnalytics {
     // Best time to buy indicator
     private boolean isAtLowestPrice;
     private BigDecimal savingsFromMax; // How much below max price
+
+    // Trend, from running statistics kept with every saved price - null before the first
+    private BigDecimal emaDay; // Exponential moving averages over 1, 7 and 30 days
+    private BigDecimal emaWeek;
+    private BigDecimal emaMonth;
+    private Double volatility; // Standard deviation of the change between consecutive prices, in percent
+    private String trend; // UP, DOWN or FLAT: the day average against the month average
+    private LocalDateTime lastChangedAt;
+    private Integer dropStreak; // Consecutive price drops; unchanged prices keep the streak
 }
@@ -0,0 +1,25 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO describing one recorded price change of a product.
+ * Carries what alert evaluation needs besides the old and new price.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PriceChange {
+    private Long productId;
+    private BigDecimal oldPrice;
+    private BigDecimal newPrice;
+    private Boolean wasAvailable; // Availability of the previous record, if needed by a rule
+    private Boolean available;
+    private BigDecimal previousMinPrice; // Lowest price before this one, if needed by a rule
+}
@@ -0,0 +1,20 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for a live price update pushed to event stream subscribers.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceEvent {
+    private Long productId;
+    private BigDecimal price;
+    private Boolean available;
+    private long at; // Epoch millis of the scrape
+}
@@ -0,0 +1,20 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for one page of a product's price history, newest first.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PriceHistoryPage {
+    private List<PriceRecord> items;
+    private String nextCursor; // Pass as before= for the next (older) page; null on the last page
+}
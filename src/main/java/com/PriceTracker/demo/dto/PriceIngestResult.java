@@ -0,0 +1,30 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO for the outcome of a bulk price ingest.
+ * stored and duplicates count price records, one per product an observation
+ * applies to; the other counts are per observation.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PriceIngestResult {
+    private int received;
+    private int stored;
+    private int duplicates;
+    private int unmatched; // No active product with the given id or key
+    private int invalid;
+    private int priceChanges; // Products whose current price moved, queued for alert evaluation
+    @Builder.Default
+    private List<String> errors = new ArrayList<>(); // First few line errors
+    private long elapsedMillis;
+}
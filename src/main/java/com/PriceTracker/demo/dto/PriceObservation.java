@@ -0,0 +1,28 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * DTO for an externally observed price, one NDJSON line of a bulk ingest.
+ * The product is named by its id or by its canonical key (e.g. amazon.in:B0BDHWDR12);
+ * a product URL given as the key is canonicalised.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PriceObservation {
+    private String productKey;
+    private Long productId;
+    private BigDecimal price;
+    private Boolean available;
+    private String currency;
+    private Instant observedAt; // Defaults to the time of ingest
+    private String idempotencyKey; // Defaults to the product and observedAt
+}
@@ -0,0 +1,20 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for one point of a price series, read without loading the entity.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PricePoint implements TimedPrice {
+    private LocalDateTime scrapedAt;
+    private BigDecimal price;
+    private Boolean available;
+}
@@ -0,0 +1,22 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for one stored price record, read without loading the entity or its product.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceRecord implements TimedPrice {
+    private Long id;
+    private BigDecimal price;
+    private Boolean available;
+    private String currency;
+    private LocalDateTime scrapedAt;
+}
@@ -0,0 +1,24 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * DTO for the price series of several products aligned on one time grid.
+ * Columnar: prices.get(i).get(t) is the price of productIds.get(i) at timestamps.get(t),
+ * so each timestamp is sent once however many products are compared.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PriceSeriesSet {
+    private List<Long> productIds;
+    private List<Long> timestamps; // End of each grid interval, epoch millis, oldest first
+    private List<List<BigDecimal>> prices; // Last price at or before each timestamp; null before the first
+}
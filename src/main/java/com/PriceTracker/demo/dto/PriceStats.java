@@ -0,0 +1,21 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for a product's all-time price aggregates, read in one query.
+ * Prices are null when the product has no history.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceStats {
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private Double avgPrice;
+    private Long recordCount;
+}
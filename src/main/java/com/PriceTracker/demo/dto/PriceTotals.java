@@ -0,0 +1,22 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for one product's price totals, read for many products in one grouped query.
+ * Totals can be extended as new prices arrive without rereading the history.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceTotals {
+    private Long productId;
+    private BigDecimal minPrice;
+    private BigDecimal maxPrice;
+    private BigDecimal priceSum;
+    private Long recordCount;
+}
@@ -0,0 +1,23 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for a delta-sync response.
+ * Contains products changed since the client's cursor and ids of deleted ones.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductChanges {
+    private List<ProductResponse> products; // Created or updated since the cursor
+    private List<Long> deleted; // Tombstones - ids of products deleted since the cursor
+    private String cursor; // Pass as since= on the next call
+    private boolean reset; // Full list - the client should replace its copy
+}
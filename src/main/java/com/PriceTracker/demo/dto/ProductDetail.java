@@ -0,0 +1,23 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for the product detail view.
+ * Bundles everything the dashboard shows for one product into one response.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductDetail {
+    private ProductResponse product;
+    private List<PricePoint> series; // Downsampled price series over the window, oldest first
+    private PriceAnalytics analytics; // Analytics over the same window
+    private List<AlertResponse> recentAlerts; // Newest first
+}
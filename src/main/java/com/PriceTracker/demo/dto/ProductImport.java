@@ -0,0 +1,37 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for a bulk product import.
+ * Row counts are final once the upload has been read; scraped, pending and
+ * abandoned follow the initial scrapes, which run in the background
+ * afterwards. The import is DONE once nothing is pending.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductImport {
+    private String id;
+    private String format; // ndjson or csv
+    private String status; // READING, SCRAPING, DONE, FAILED
+    private int rows;
+    private int accepted;
+    private int duplicates;
+    private int unsupported;
+    private int invalid;
+    private long scraped;
+    private long pending;
+    private long abandoned; // Deactivated after failing every initial scrape attempt
+    private int failedScrapes; // Failed attempts, including ones retried since
+    private List<String> errors; // First few row errors, by line number
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt; // When the upload was read
+}
@@ -0,0 +1,26 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for product list responses without computed price statistics.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSummary {
+    private Long id;
+    private String name;
+    private String sourceSite;
+    private String productUrl;
+    private String scrapeFrequency;
+    private BigDecimal targetPrice;
+    private BigDecimal currentPrice;
+    private boolean active;
+    private LocalDateTime lastScrapedAt;
+}
@@ -0,0 +1,36 @@
+package com.PriceTracker.demo.dto;
+
+import com.PriceTracker.demo.models.ProductInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * DTO for a scrape submitted to the scrape executor.
+ * Returned with 202 Accepted and pollable until it finishes. Updated by the
+ * executor thread while request threads read it, so its mutable fields are
+ * volatile; status is written last.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ScrapeJob {
+    private String id;
+    private String nodeId; // The node running the job, which alone can answer polls
+    private String type; // SCRAPE or ADD_PRODUCT
+    private volatile String status; // PENDING, RUNNING, DONE, FAILED
+    private volatile Long productId;
+    private String url;
+    private volatile String error;
+    private LocalDateTime submittedAt;
+    private volatile LocalDateTime finishedAt;
+
+    @JsonIgnore
+    private CompletableFuture<ProductInfo> future;
+}
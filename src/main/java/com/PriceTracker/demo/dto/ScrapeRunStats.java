@@ -0,0 +1,28 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for the outcome of one scheduled scraping run.
+ * Kept in memory by PriceScrapingJob for the most recent runs.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ScrapeRunStats {
+    private String frequency;
+    private String nodeId;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private int scraped;
+    private int failed;
+    private int carriedOver; // Products scraped from the carry-over queue
+    private int backlog; // Products still queued when the run finished
+    private double throughputPerMinute;
+}
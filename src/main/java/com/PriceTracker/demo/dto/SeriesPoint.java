@@ -0,0 +1,21 @@
+package com.PriceTracker.demo.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for one point of a product's price series, read together with other
+ * products' series without loading entities.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeriesPoint {
+    private Long productId;
+    private LocalDateTime scrapedAt;
+    private BigDecimal price;
+}
@@ -0,0 +1,29 @@
+package com.PriceTracker.demo.dto;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for requesting the price series of several products on one time grid.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SeriesRequest {
+
+    @NotEmpty(message = "productIds is required")
+    @Size(max = 100, message = "At most 100 products per request")
+    private List<@NotNull Long> productIds;
+
+    @Min(value = 1, message = "days must be at least 1")
+    @Max(value = 3650, message = "days must be at most 3650")
+    private int days = 30;
+
+    @Min(value = 2, message = "maxPoints must be at least 2")
+    @Max(value = 2000, message = "maxPoints must be at most 2000")
+    private int maxPoints = 300;
+}
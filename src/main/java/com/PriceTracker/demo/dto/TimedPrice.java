@@ -0,0 +1,16 @@
+package com.PriceTracker.demo.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A price at a point in time: one point of a price series, whatever else
+ * the DTO carries. Series of these can be sent in the compact binary form.
+ */
+public interface TimedPrice {
+    LocalDateTime getScrapedAt();
+
+    BigDecimal getPrice();
+
+    Boolean getAvailable();
+}
@@ -0,0 +1,11 @@
+package com.PriceTracker.demo.exception;
+
+/**
+ * Exception thrown when an alert rule is not found in the database.
+ */
+public class AlertRuleNotFoundException extends RuntimeException {
+
+    public AlertRuleNotFoundException(Long id) {
+        super("Alert rule not found with ID: " + id);
+    }
+}
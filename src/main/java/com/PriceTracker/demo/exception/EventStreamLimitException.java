@@ -0,0 +1,11 @@
+package com.PriceTracker.demo.exception;
+
+/**
+ * Exception thrown when a node already serves the maximum number of event streams.
+ */
+public class EventStreamLimitException extends RuntimeException {
+
+    public EventStreamLimitException(int limit) {
+        super("Too many open event streams (limit " + limit + "), retry later");
+    }
+}
@@ -3,11 +3,14 @@ package com.PriceTracker.demo.exception;
 import com.PriceTracker.demo.dto.ErrorResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
 
 import java.util.stream.Collectors;
 
@@ -81,6 +84,115 @@ public class GlobalExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
     }
 
+    /**
+     * Handle alert rule not found exception.
+     */
+    @ExceptionHandler(AlertRuleNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleAlertRuleNotFound(AlertRuleNotFoundException ex) {
+        log.warn("Alert rule not found: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.NOT_FOUND.value(),
+                "Alert Rule Not Found",
+                ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    /**
+     * Handle unknown scrape job.
+     */
+    @ExceptionHandler(ScrapeJobNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleScrapeJobNotFound(ScrapeJobNotFoundException ex) {
+        log.warn("Scrape job not found: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.NOT_FOUND.value(),
+                "Scrape Job Not Found",
+                ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    /**
+     * Handle a poll for a scrape job that runs on another node.
+     */
+    @ExceptionHandler(ScrapeJobOnOtherNodeException.class)
+    public ResponseEntity<ErrorResponse> handleScrapeJobOnOtherNode(ScrapeJobOnOtherNodeException ex) {
+        log.warn("Misdirected scrape job poll: {}", ex.getMessage());
+
+        // 421 Misdirected Request, which HttpStatus does not define
+        ErrorResponse error = new ErrorResponse(
+                421,
+                "Scrape Job On Other Node",
+                ex.getMessage());
+
+        return ResponseEntity.status(421).body(error);
+    }
+
+    /**
+     * Handle unknown product import.
+     */
+    @ExceptionHandler(ImportNotFoundException.class)
+    public ResponseEntity<ErrorResponse> handleImportNotFound(ImportNotFoundException ex) {
+        log.warn("Product import not found: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.NOT_FOUND.value(),
+                "Import Not Found",
+                ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+    }
+
+    /**
+     * Handle a full scrape executor queue.
+     */
+    @ExceptionHandler(TaskRejectedException.class)
+    public ResponseEntity<ErrorResponse> handleTaskRejected(TaskRejectedException ex) {
+        log.warn("Scrape rejected: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Scrape Queue Full",
+                "Too many scrapes are queued. Please try again later.");
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    /**
+     * Handle an event stream request beyond the connection limit.
+     */
+    @ExceptionHandler(EventStreamLimitException.class)
+    public ResponseEntity<ErrorResponse> handleEventStreamLimit(EventStreamLimitException ex) {
+        log.warn("Event stream rejected: {}", ex.getMessage());
+
+        ErrorResponse error = new ErrorResponse(
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                "Too Many Event Streams",
+                ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+    }
+
+    /**
+     * Handle a client that disconnected from an open stream - nothing can be written back.
+     */
+    @ExceptionHandler(AsyncRequestNotUsableException.class)
+    public void handleClientGone(AsyncRequestNotUsableException ex) {
+        log.debug("Client disconnected: {}", ex.getMessage());
+    }
+
+    /**
+     * Handle an Accept header no representation matches. There is no body,
+     * since the client accepts none of the forms one could be written in.
+     */
+    @ExceptionHandler(HttpMediaTypeNotAcceptableException.class)
+    public ResponseEntity<Void> handleNotAcceptable(HttpMediaTypeNotAcceptableException ex) {
+        log.debug("Not acceptable: {}", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.NOT_ACCEPTABLE).build();
+    }
+
     /**
      * Handle validation errors from @Valid.
      */
@@ -0,0 +1,11 @@
+package com.PriceTracker.demo.exception;
+
+/**
+ * Exception thrown when a product import is unknown or has already been evicted.
+ */
+public class ImportNotFoundException extends RuntimeException {
+
+    public ImportNotFoundException(String importId) {
+        super("Product import not found with ID: " + importId);
+    }
+}
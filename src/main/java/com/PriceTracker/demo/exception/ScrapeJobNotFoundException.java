@@ -0,0 +1,11 @@
+package com.PriceTracker.demo.exception;
+
+/**
+ * Exception thrown when a scrape job is unknown or has already been evicted.
+ */
+public class ScrapeJobNotFoundException extends RuntimeException {
+
+    public ScrapeJobNotFoundException(String jobId) {
+        super("Scrape job not found with ID: " + jobId);
+    }
+}
@@ -0,0 +1,18 @@
+package com.PriceTracker.demo.exception;
+
+/**
+ * Exception thrown when a scrape job is polled on a node other than the one running it.
+ */
+public class ScrapeJobOnOtherNodeException extends RuntimeException {
+
+    private final String nodeId;
+
+    public ScrapeJobOnOtherNodeException(String jobId, String nodeId) {
+        super("Scrape job " + jobId + " runs on node " + nodeId + "; poll it there");
+        this.nodeId = nodeId;
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+}
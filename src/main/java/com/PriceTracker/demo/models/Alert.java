@@ -1,5 +1,6 @@
 package com.PriceTracker.demo.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -12,9 +13,14 @@ import java.time.LocalDateTime;
 /**
  * Entity representing a price alert that was triggered.
  * Stores alert history and notification status.
+ * Unsent alerts double as the email outbox drained by AlertDispatchJob.
  */
 @Entity
-@Table(name = "alerts")
+@Table(name = "alerts", indexes = {
+        @Index(name = "idx_alert_outbox", columnList = "notified, nextAttemptAt"),
+        @Index(name = "idx_alert_email", columnList = "email, notified"),
+        @Index(name = "idx_alert_cooldown", columnList = "product_id, triggeredAt")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -28,10 +34,17 @@ public class Alert {
     @JoinColumn(name = "product_id", nullable = false)
     private ProductInfo product;
 
-    // Type of alert: PRICE_DROP, TARGET_REACHED, BACK_IN_STOCK
+    // Type of alert: PRICE_DROP, TARGET_REACHED, ALL_TIME_LOW, BACK_IN_STOCK
     @Column(nullable = false)
     private String alertType;
 
+    // Subscriber rule that fired, null for the product's own alert settings
+    private Long ruleId;
+
+    // Target price of the rule or product that was reached
+    @Column(precision = 10, scale = 2)
+    private BigDecimal targetPrice;
+
     // The price that triggered this alert
     @Column(precision = 10, scale = 2)
     private BigDecimal triggerPrice;
@@ -54,4 +67,16 @@ public class Alert {
 
     // When notification was sent
     private LocalDateTime notifiedAt;
+
+    // Outbox delivery state - next send attempt (null once given up) and failures so far
+    private LocalDateTime nextAttemptAt;
+
+    private int deliveryAttempts = 0;
+
+    private String lastError;
+
+    // Set by the dispatcher that last claimed the alert, so it loads only its own claims
+    @JsonIgnore
+    @Column(length = 36)
+    private String claimToken;
 }
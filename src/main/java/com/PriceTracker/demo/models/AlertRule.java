@@ -0,0 +1,48 @@
+package com.PriceTracker.demo.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing one subscriber's alert rule on a product.
+ * Many rules can watch the same product, each with its own condition.
+ */
+@Entity
+@Table(name = "alert_rules", indexes = {
+        @Index(name = "idx_rule_product", columnList = "product_id, active")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AlertRule {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    // Email address to notify
+    @Column(nullable = false)
+    private String email;
+
+    // TARGET_PRICE, PERCENT_DROP, ALL_TIME_LOW or BACK_IN_STOCK
+    @Column(nullable = false)
+    private String ruleType;
+
+    // Target price for TARGET_PRICE, minimum drop percentage for PERCENT_DROP
+    @Column(precision = 10, scale = 2)
+    private BigDecimal threshold;
+
+    private boolean active = true;
+
+    @CreationTimestamp
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,52 @@
+package com.PriceTracker.demo.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Entity for a recorded price change waiting for alert evaluation.
+ * Written in the same transaction as the price, and deleted in the same
+ * transaction as the alerts it triggers, so no change is lost or evaluated twice.
+ */
+@Entity
+@Table(name = "pending_price_changes", indexes = {
+        @Index(name = "idx_pending_change_claim", columnList = "claimUntil")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PendingPriceChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal oldPrice;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal newPrice;
+
+    private Boolean wasAvailable;
+
+    private Boolean available;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal previousMinPrice;
+
+    // Set while a node is evaluating the change; claims that time out are evaluated again
+    private LocalDateTime claimUntil;
+
+    @Column(length = 36)
+    private String claimToken;
+
+    private LocalDateTime createdAt;
+}
@@ -15,7 +15,8 @@ import java.time.LocalDateTime;
  */
 @Entity
 @Table(name = "price_history", indexes = {
-        @Index(name = "idx_product_scraped", columnList = "product_id, scrapedAt DESC")
+        @Index(name = "idx_product_scraped", columnList = "product_id, scrapedAt DESC"),
+        @Index(name = "idx_history_ingest_key", columnList = "ingestKeyHash", unique = true)
 })
 @Data
 @AllArgsConstructor
@@ -43,6 +44,10 @@ public class PriceHistory {
     @CreationTimestamp
     private LocalDateTime scrapedAt;
 
+    // Hash of the idempotency key of an ingested observation, null for scraped prices.
+    // The unique index drops an observation sent twice.
+    private Long ingestKeyHash;
+
     // Constructor for convenience
     public PriceHistory(ProductInfo product, BigDecimal price, Boolean available, String currency) {
         this.product = product;
@@ -0,0 +1,111 @@
+package com.PriceTracker.demo.models;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Running statistics of a product's prices, updated with each new price in
+ * constant time and stored in a few columns of the product row, so trend
+ * analytics never scan the price history.
+ * Moving averages decay by elapsed time rather than by number of prices,
+ * since products are scraped hourly or daily. Volatility is the standard
+ * deviation of the relative change between consecutive prices, kept with
+ * Welford's algorithm.
+ */
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceTrend {
+
+    static final Duration DAY = Duration.ofDays(1);
+    static final Duration WEEK = Duration.ofDays(7);
+    static final Duration MONTH = Duration.ofDays(30);
+
+    // Prices fed so far
+    private Long trendCount;
+
+    // Exponential moving averages over the three horizons
+    private Double emaDay;
+    private Double emaWeek;
+    private Double emaMonth;
+
+    // Welford state over relative price changes: running mean and sum of squared deviations
+    private Double changeMean;
+    private Double changeM2;
+
+    @Column(precision = 10, scale = 2)
+    private BigDecimal trendLastPrice;
+
+    private LocalDateTime trendLastAt;
+
+    // When the price last differed from the one before
+    private LocalDateTime lastChangedAt;
+
+    // Consecutive drops; unchanged prices keep the streak, a rise ends it
+    private Integer dropStreak;
+
+    /**
+     * Feed the next price. Prices older than the last one fed, such as late
+     * ingested observations, only fill in history and are skipped.
+     *
+     * @return Whether the price was applied
+     */
+    public boolean update(LocalDateTime at, BigDecimal price) {
+        double value = price.doubleValue();
+        if (trendCount == null || trendCount == 0) {
+            trendCount = 1L;
+            emaDay = emaWeek = emaMonth = value;
+            changeMean = changeM2 = 0.0;
+            dropStreak = 0;
+            trendLastPrice = price;
+            trendLastAt = at;
+            return true;
+        }
+        if (at.isBefore(trendLastAt)) {
+            return false;
+        }
+
+        long elapsed = Duration.between(trendLastAt, at).toSeconds();
+        emaDay = decay(emaDay, value, elapsed, DAY);
+        emaWeek = decay(emaWeek, value, elapsed, WEEK);
+        emaMonth = decay(emaMonth, value, elapsed, MONTH);
+
+        double last = trendLastPrice.doubleValue();
+        double change = last > 0 ? (value - last) / last : 0;
+        long changes = trendCount; // Changes seen including this one
+        double delta = change - changeMean;
+        changeMean += delta / changes;
+        changeM2 += delta * (change - changeMean);
+
+        int direction = price.compareTo(trendLastPrice);
+        if (direction != 0) {
+            lastChangedAt = at;
+            dropStreak = direction < 0 ? dropStreak + 1 : 0;
+        }
+        trendCount++;
+        trendLastPrice = price;
+        trendLastAt = at;
+        return true;
+    }
+
+    /**
+     * Sample standard deviation of relative price changes, or null with fewer than two changes.
+     */
+    public Double volatility() {
+        long changes = trendCount == null ? 0 : trendCount - 1;
+        return changes < 2 ? null : Math.sqrt(changeM2 / (changes - 1));
+    }
+
+    private static double decay(double average, double value, long elapsedSeconds, Duration horizon) {
+        double alpha = 1 - Math.exp(-(double) elapsedSeconds / horizon.toSeconds());
+        return average + alpha * (value - average);
+    }
+}
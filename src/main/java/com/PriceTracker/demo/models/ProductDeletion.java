@@ -0,0 +1,37 @@
+package com.PriceTracker.demo.models;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity recording that a product was deleted.
+ * Lets delta-sync clients learn about deletions (tombstones) since their cursor.
+ */
+@Entity
+@Table(name = "product_deletions", indexes = {
+        @Index(name = "idx_deletion_time", columnList = "deletedAt")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductDeletion {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private Long productId;
+
+    @CreationTimestamp
+    private LocalDateTime deletedAt;
+
+    public ProductDeletion(Long productId) {
+        this.productId = productId;
+    }
+}
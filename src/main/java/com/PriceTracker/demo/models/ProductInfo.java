@@ -1,5 +1,6 @@
 package com.PriceTracker.demo.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -15,7 +16,13 @@ import java.time.LocalDateTime;
  * Each product has a URL, target price, and scraping frequency.
  */
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = {
+        @Index(name = "idx_product_due", columnList = "active, scrapeFrequency, leaseUntil"),
+        @Index(name = "idx_product_updated", columnList = "updatedAt"),
+        @Index(name = "idx_product_import", columnList = "importId, lastScrapedAt")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_product_canonical", columnNames = { "canonicalKeyHash", "canonicalSlot" })
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -30,9 +37,24 @@ public class ProductInfo {
 
     private String sourceSite;
 
-    @Column(unique = true, nullable = false)
+    @Column(nullable = false, length = 2048)
     private String productUrl;
 
+    // Site product key shared by every URL of the product, e.g. amazon.in:B0BDHWDR12.
+    // Duplicates are found through the indexed hash, never through the long columns.
+    @JsonIgnore
+    @Column(length = 2048)
+    private String canonicalKey;
+
+    @JsonIgnore
+    private Long canonicalKeyHash;
+
+    // 0 for the product's tracker of record, so the database rejects a second one.
+    // Duplicates tracked before keys existed, and re-keyed short links that
+    // turned out to be tracked already, take a random non-zero slot instead.
+    @JsonIgnore
+    private long canonicalSlot;
+
     // HOURLY or DAILY
     private String scrapeFrequency;
 
@@ -50,6 +72,35 @@ public class ProductInfo {
     // Whether this product is actively being tracked
     private boolean active = true;
 
+    // When a price was last recorded for this product
+    private LocalDateTime lastScrapedAt;
+
+    // Running price statistics for trend analytics; null until the first price
+    @JsonIgnore
+    @Embedded
+    private PriceTrend trend;
+
+    // Bulk import that added this product; imported products without a
+    // price yet are pending their initial scrape
+    @JsonIgnore
+    @Column(length = 36)
+    private String importId;
+
+    // Failed initial scrapes of an imported product; it is deactivated once
+    // these reach app.import.max-scrape-attempts
+    @JsonIgnore
+    private int importScrapeFailures;
+
+    // Scrape lease - node currently scraping this product and until when.
+    // Only written by the lease queries in ProductRepo, never by entity saves.
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private String leaseOwner;
+
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private LocalDateTime leaseUntil;
+
     @CreationTimestamp
     private LocalDateTime createdAt;
 
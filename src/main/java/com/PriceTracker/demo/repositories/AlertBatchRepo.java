@@ -0,0 +1,49 @@
+package com.PriceTracker.demo.repositories;
+
+import com.PriceTracker.demo.models.Alert;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for writing alerts in bulk.
+ * Uses a JDBC batch, since Hibernate cannot batch inserts of IDENTITY ids.
+ */
+@Repository
+public class AlertBatchRepo {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO alerts (product_id, alert_type, rule_id, target_price, trigger_price, previous_price,
+                percentage_change, email, notified, triggered_at, next_attempt_at, delivery_attempts)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AlertBatchRepo(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert new alerts. Ids are not read back.
+     */
+    public void insertAll(List<Alert> alerts) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, alerts, BATCH_SIZE, (ps, alert) -> {
+            ps.setLong(1, alert.getProduct().getId());
+            ps.setString(2, alert.getAlertType());
+            ps.setObject(3, alert.getRuleId());
+            ps.setBigDecimal(4, alert.getTargetPrice());
+            ps.setBigDecimal(5, alert.getTriggerPrice());
+            ps.setBigDecimal(6, alert.getPreviousPrice());
+            ps.setObject(7, alert.getPercentageChange());
+            ps.setString(8, alert.getEmail());
+            ps.setBoolean(9, alert.isNotified());
+            ps.setObject(10, alert.getTriggeredAt());
+            ps.setObject(11, alert.getNextAttemptAt());
+            ps.setInt(12, alert.getDeliveryAttempts());
+        });
+    }
+}
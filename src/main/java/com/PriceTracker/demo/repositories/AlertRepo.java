@@ -1,10 +1,19 @@
 package com.PriceTracker.demo.repositories;
 
+import com.PriceTracker.demo.dto.AlertCooldown;
+import com.PriceTracker.demo.dto.AlertResponse;
 import com.PriceTracker.demo.models.Alert;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repository for Alert entity.
@@ -13,11 +22,68 @@ import java.util.List;
 @Repository
 public interface AlertRepo extends JpaRepository<Alert, Long> {
 
-    // Find all alerts for a product
-    List<Alert> findByProductIdOrderByTriggeredAtDesc(Long productId);
+    // Find alerts for a product, newest first, with the product's name selected in the same query
+    @Query("SELECT new com.PriceTracker.demo.dto.AlertResponse(a.id, p.id, p.name, a.alertType, a.ruleId, " +
+            "a.targetPrice, a.triggerPrice, a.previousPrice, a.percentageChange, a.email, a.notified, " +
+            "a.triggeredAt, a.notifiedAt) " +
+            "FROM Alert a JOIN a.product p WHERE p.id = :productId ORDER BY a.triggeredAt DESC")
+    List<AlertResponse> findResponsesByProductId(@Param("productId") Long productId, Pageable pageable);
 
-    // Find unnotified alerts
-    List<Alert> findByNotifiedFalse();
+    // Find unnotified alerts, a page at a time
+    @Query("SELECT new com.PriceTracker.demo.dto.AlertResponse(a.id, p.id, p.name, a.alertType, a.ruleId, " +
+            "a.targetPrice, a.triggerPrice, a.previousPrice, a.percentageChange, a.email, a.notified, " +
+            "a.triggeredAt, a.notifiedAt) " +
+            "FROM Alert a JOIN a.product p WHERE a.notified = false ORDER BY a.id ASC")
+    List<AlertResponse> findUnnotifiedResponses(Pageable pageable);
+
+    // Find ids of unsent alerts whose next delivery attempt is due
+    @Query("SELECT a.id FROM Alert a WHERE a.notified = false AND a.nextAttemptAt <= :now " +
+            "ORDER BY a.nextAttemptAt ASC")
+    List<Long> findDueForDelivery(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Find when a recipient's open digest is sent - alerts never claimed or tried are still waiting for it;
+    // claimed alerts and failed ones backing off have a next attempt time of their own
+    @Query("SELECT MIN(a.nextAttemptAt) FROM Alert a WHERE a.email = :email AND a.notified = false " +
+            "AND a.claimToken IS NULL AND a.deliveryAttempts = 0 AND a.nextAttemptAt > :after")
+    Optional<LocalDateTime> findOpenDigestSendTime(@Param("email") String email, @Param("after") LocalDateTime after);
+
+    // Claim due alerts by pushing their next attempt out - rows claimed by another node are skipped
+    @Modifying
+    @Query("UPDATE Alert a SET a.nextAttemptAt = :claimUntil, a.claimToken = :claimToken " +
+            "WHERE a.id IN :ids AND a.notified = false AND a.nextAttemptAt <= :now")
+    int claimForDelivery(
+            @Param("ids") Collection<Long> ids,
+            @Param("claimToken") String claimToken,
+            @Param("claimUntil") LocalDateTime claimUntil,
+            @Param("now") LocalDateTime now);
+
+    // Load claimed alerts together with their products for rendering
+    @Query("SELECT a FROM Alert a JOIN FETCH a.product WHERE a.id IN :ids AND a.claimToken = :claimToken")
+    List<Alert> findClaimed(@Param("ids") Collection<Long> ids, @Param("claimToken") String claimToken);
+
+    // Find when each (product, type, recipient) of the given products last alerted since a point in time
+    @Query("SELECT new com.PriceTracker.demo.dto.AlertCooldown(a.product.id, a.alertType, a.email, " +
+            "MAX(a.triggeredAt)) FROM Alert a WHERE a.product.id IN :productIds AND a.triggeredAt >= :since " +
+            "GROUP BY a.product.id, a.alertType, a.email")
+    List<AlertCooldown> findCooldownsSince(@Param("productIds") Collection<Long> productIds,
+            @Param("since") LocalDateTime since);
+
+    // Mark a claimed alert delivered - does nothing if another dispatcher has claimed it since
+    @Modifying
+    @Query("UPDATE Alert a SET a.notified = true, a.notifiedAt = :now, a.nextAttemptAt = NULL " +
+            "WHERE a.id = :id AND a.claimToken = :claimToken")
+    int markSent(@Param("id") Long id, @Param("claimToken") String claimToken, @Param("now") LocalDateTime now);
+
+    // Record a failed delivery of a claimed alert - does nothing if another dispatcher has claimed it since
+    @Modifying
+    @Query("UPDATE Alert a SET a.deliveryAttempts = :attempts, a.lastError = :error, " +
+            "a.nextAttemptAt = :nextAttemptAt WHERE a.id = :id AND a.claimToken = :claimToken")
+    int markFailed(
+            @Param("id") Long id,
+            @Param("claimToken") String claimToken,
+            @Param("attempts") int attempts,
+            @Param("error") String error,
+            @Param("nextAttemptAt") LocalDateTime nextAttemptAt);
 
     // Find alerts by type
     List<Alert> findByAlertType(String alertType);
@@ -0,0 +1,31 @@
+package com.PriceTracker.demo.repositories;
+
+import com.PriceTracker.demo.models.AlertRule;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for AlertRule entity.
+ * Provides methods for querying subscriber alert rules.
+ */
+@Repository
+public interface AlertRuleRepo extends JpaRepository<AlertRule, Long> {
+
+    // Find active rules for a product
+    List<AlertRule> findByProductIdAndActiveTrue(Long productId);
+
+    // Find active rules for several products at once
+    List<AlertRule> findByProductIdInAndActiveTrue(Collection<Long> productIds);
+
+    // Find all rules for a product
+    List<AlertRule> findByProductId(Long productId);
+
+    // Find rules by email
+    List<AlertRule> findByEmail(String email);
+
+    // Delete all rules of a product
+    void deleteByProductId(Long productId);
+}
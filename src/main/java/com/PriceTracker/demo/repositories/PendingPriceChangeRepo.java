@@ -0,0 +1,46 @@
+package com.PriceTracker.demo.repositories;
+
+import com.PriceTracker.demo.models.PendingPriceChange;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for PendingPriceChange entity.
+ * Provides the claim and drain operations of the alert evaluation queue.
+ */
+@Repository
+public interface PendingPriceChangeRepo extends JpaRepository<PendingPriceChange, Long> {
+
+    // Find the oldest changes no node is currently evaluating
+    @Query("SELECT c.id FROM PendingPriceChange c WHERE c.claimUntil IS NULL OR c.claimUntil < :now " +
+            "ORDER BY c.id ASC")
+    List<Long> findClaimableIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Claim changes for evaluation - rows claimed by another node in the meantime are skipped
+    @Modifying
+    @Transactional
+    @Query("UPDATE PendingPriceChange c SET c.claimUntil = :claimUntil, c.claimToken = :claimToken " +
+            "WHERE c.id IN :ids AND (c.claimUntil IS NULL OR c.claimUntil < :now)")
+    int claimForEvaluation(
+            @Param("ids") Collection<Long> ids,
+            @Param("claimToken") String claimToken,
+            @Param("claimUntil") LocalDateTime claimUntil,
+            @Param("now") LocalDateTime now);
+
+    // Load the changes a claim won, oldest first
+    List<PendingPriceChange> findByIdInAndClaimTokenOrderByIdAsc(Collection<Long> ids, String claimToken);
+
+    // Drop evaluated changes - run in the transaction storing their alerts
+    @Modifying
+    @Query("DELETE FROM PendingPriceChange c WHERE c.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+}
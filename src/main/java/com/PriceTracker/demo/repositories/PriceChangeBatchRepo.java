@@ -0,0 +1,47 @@
+package com.PriceTracker.demo.repositories;
+
+import com.PriceTracker.demo.dto.PriceChange;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for queueing price changes for alert evaluation in bulk.
+ * Uses a JDBC batch, since Hibernate cannot batch inserts of IDENTITY ids.
+ * Joins the caller's transaction, so a change is queued only if its price commits.
+ */
+@Repository
+public class PriceChangeBatchRepo {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO pending_price_changes (product_id, old_price, new_price, was_available, available,
+                previous_min_price, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PriceChangeBatchRepo(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert price changes, stamped with the current time. Ids are not read back.
+     */
+    public void insertAll(List<PriceChange> changes) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, changes, BATCH_SIZE, (ps, change) -> {
+            ps.setLong(1, change.getProductId());
+            ps.setBigDecimal(2, change.getOldPrice());
+            ps.setBigDecimal(3, change.getNewPrice());
+            ps.setObject(4, change.getWasAvailable());
+            ps.setObject(5, change.getAvailable());
+            ps.setBigDecimal(6, change.getPreviousMinPrice());
+            ps.setObject(7, now);
+        });
+    }
+}
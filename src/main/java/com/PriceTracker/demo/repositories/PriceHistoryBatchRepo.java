@@ -0,0 +1,42 @@
+package com.PriceTracker.demo.repositories;
+
+import com.PriceTracker.demo.models.PriceHistory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Repository for writing price records in bulk.
+ * Uses a JDBC batch, since Hibernate cannot batch inserts of IDENTITY ids.
+ */
+@Repository
+public class PriceHistoryBatchRepo {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO price_history (product_id, price, available, currency, scraped_at, ingest_key_hash)
+            VALUES (?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PriceHistoryBatchRepo(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert price records with their own timestamps. Ids are not read back.
+     */
+    public void insertAll(List<PriceHistory> records) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, records, BATCH_SIZE, (ps, record) -> {
+            ps.setLong(1, record.getProduct().getId());
+            ps.setBigDecimal(2, record.getPrice());
+            ps.setObject(3, record.getAvailable());
+            ps.setString(4, record.getCurrency());
+            ps.setObject(5, record.getScrapedAt());
+            ps.setObject(6, record.getIngestKeyHash());
+        });
+    }
+}
@@ -1,14 +1,25 @@
 package com.PriceTracker.demo.repositories;
 
+import com.PriceTracker.demo.dto.PricePoint;
+import com.PriceTracker.demo.dto.PriceRecord;
+import com.PriceTracker.demo.dto.PriceStats;
+import com.PriceTracker.demo.dto.PriceTotals;
+import com.PriceTracker.demo.dto.SeriesPoint;
 import com.PriceTracker.demo.models.PriceHistory;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for PriceHistory entity.
@@ -18,23 +29,112 @@ import java.util.Optional;
 public interface PriceHistoryRepo extends JpaRepository<PriceHistory, Long> {
 
     // Find all price history for a product, ordered by most recent first
-    List<PriceHistory> findByProductIdOrderByScrapedAtDesc(Long productId);
+    @Query("SELECT new com.PriceTracker.demo.dto.PriceRecord(ph.id, ph.price, ph.available, ph.currency, ph.scrapedAt) " +
+            "FROM PriceHistory ph WHERE ph.product.id = :productId ORDER BY ph.scrapedAt DESC")
+    List<PriceRecord> findRecordsByProductId(@Param("productId") Long productId);
 
     // Find price history within a date range
-    @Query("SELECT ph FROM PriceHistory ph WHERE ph.product.id = :productId " +
+    @Query("SELECT new com.PriceTracker.demo.dto.PriceRecord(ph.id, ph.price, ph.available, ph.currency, ph.scrapedAt) " +
+            "FROM PriceHistory ph WHERE ph.product.id = :productId " +
             "AND ph.scrapedAt BETWEEN :startDate AND :endDate ORDER BY ph.scrapedAt ASC")
-    List<PriceHistory> findByProductIdAndDateRange(
+    List<PriceRecord> findRecordsByProductIdAndDateRange(
             @Param("productId") Long productId,
             @Param("startDate") LocalDateTime startDate,
             @Param("endDate") LocalDateTime endDate);
 
+    // Count price records for a product since a point in time
+    @Query("SELECT COUNT(ph) FROM PriceHistory ph WHERE ph.product.id = :productId AND ph.scrapedAt >= :since")
+    long countByProductIdSince(@Param("productId") Long productId, @Param("since") LocalDateTime since);
+
+    // Stream a product's price series since a point in time, oldest first, without loading entities.
+    // Must be consumed inside a transaction and closed.
+    @Query("SELECT new com.PriceTracker.demo.dto.PricePoint(ph.scrapedAt, ph.price, ph.available) " +
+            "FROM PriceHistory ph WHERE ph.product.id = :productId AND ph.scrapedAt >= :since " +
+            "ORDER BY ph.scrapedAt ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<PricePoint> streamPointsSince(@Param("productId") Long productId, @Param("since") LocalDateTime since);
+
+    // Stream the price series of several products since a point in time, by product then oldest first.
+    // One range scan of idx_product_scraped per product. Must be consumed inside a transaction and closed.
+    @Query("SELECT new com.PriceTracker.demo.dto.SeriesPoint(ph.product.id, ph.scrapedAt, ph.price) " +
+            "FROM PriceHistory ph WHERE ph.product.id IN :productIds AND ph.scrapedAt >= :since " +
+            "ORDER BY ph.product.id ASC, ph.scrapedAt ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<SeriesPoint> streamSeriesPointsSince(@Param("productIds") Collection<Long> productIds,
+            @Param("since") LocalDateTime since);
+
+    // Each product's last price before a point in time - the price a series starts from
+    @Query("SELECT new com.PriceTracker.demo.dto.SeriesPoint(ph.product.id, ph.scrapedAt, ph.price) " +
+            "FROM PriceHistory ph WHERE ph.product.id IN :productIds AND ph.scrapedAt = " +
+            "(SELECT MAX(prev.scrapedAt) FROM PriceHistory prev " +
+            "WHERE prev.product.id = ph.product.id AND prev.scrapedAt < :before)")
+    List<SeriesPoint> findLastPointsBefore(@Param("productIds") Collection<Long> productIds,
+            @Param("before") LocalDateTime before);
+
+    // First page of a product's price history, newest first (keyset pagination)
+    @Query("SELECT new com.PriceTracker.demo.dto.PriceRecord(ph.id, ph.price, ph.available, ph.currency, ph.scrapedAt) " +
+            "FROM PriceHistory ph WHERE ph.product.id = :productId " +
+            "ORDER BY ph.scrapedAt DESC, ph.id DESC")
+    List<PriceRecord> findFirstPage(@Param("productId") Long productId, Pageable page);
+
+    // Page of a product's price history older than the (scrapedAt, id) key, newest first.
+    // Seeks on idx_product_scraped, whose entries also carry the id, so deep pages cost the same as the first.
+    @Query("SELECT new com.PriceTracker.demo.dto.PriceRecord(ph.id, ph.price, ph.available, ph.currency, ph.scrapedAt) " +
+            "FROM PriceHistory ph WHERE ph.product.id = :productId " +
+            "AND (ph.scrapedAt < :scrapedAt OR (ph.scrapedAt = :scrapedAt AND ph.id < :id)) " +
+            "ORDER BY ph.scrapedAt DESC, ph.id DESC")
+    List<PriceRecord> findPageBefore(@Param("productId") Long productId, @Param("scrapedAt") LocalDateTime scrapedAt,
+            @Param("id") Long id, Pageable page);
+
+    // Stream a product's whole price history, oldest first, without loading entities.
+    // Must be consumed inside a transaction and closed.
+    @Query("SELECT new com.PriceTracker.demo.dto.PriceRecord(ph.id, ph.price, ph.available, ph.currency, ph.scrapedAt) " +
+            "FROM PriceHistory ph WHERE ph.product.id = :productId ORDER BY ph.scrapedAt ASC, ph.id ASC")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    Stream<PriceRecord> streamRecords(@Param("productId") Long productId);
+
     // Get the most recent price for a product
     Optional<PriceHistory> findTopByProductIdOrderByScrapedAtDesc(Long productId);
 
+    // Get the most recent price of each of some products, one seek of idx_product_scraped each
+    @Query("SELECT ph FROM PriceHistory ph WHERE ph.product.id IN :productIds AND ph.scrapedAt = " +
+            "(SELECT MAX(newest.scrapedAt) FROM PriceHistory newest WHERE newest.product.id = ph.product.id)")
+    List<PriceHistory> findLatestByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // Get when the latest price of a product was scraped
+    @Query("SELECT MAX(ph.scrapedAt) FROM PriceHistory ph WHERE ph.product.id = :productId")
+    LocalDateTime findLatestScrapedAtByProductId(@Param("productId") Long productId);
+
+    // Get min, max and average price and record count for a product in one pass
+    @Query("SELECT new com.PriceTracker.demo.dto.PriceStats(MIN(ph.price), MAX(ph.price), AVG(ph.price), COUNT(ph)) " +
+            "FROM PriceHistory ph WHERE ph.product.id = :productId")
+    PriceStats findStatsByProductId(@Param("productId") Long productId);
+
+    // Get price totals of every product with history
+    @Query("SELECT new com.PriceTracker.demo.dto.PriceTotals(ph.product.id, MIN(ph.price), MAX(ph.price), " +
+            "SUM(ph.price), COUNT(ph)) FROM PriceHistory ph GROUP BY ph.product.id")
+    List<PriceTotals> findAllTotals();
+
+    // Get price totals of some products
+    @Query("SELECT new com.PriceTracker.demo.dto.PriceTotals(ph.product.id, MIN(ph.price), MAX(ph.price), " +
+            "SUM(ph.price), COUNT(ph)) FROM PriceHistory ph WHERE ph.product.id IN :productIds GROUP BY ph.product.id")
+    List<PriceTotals> findTotalsByProductIds(@Param("productIds") Collection<Long> productIds);
+
+    // Oldest price record of a product since a point in time; pass a page of one
+    @Query("SELECT new com.PriceTracker.demo.dto.PriceRecord(ph.id, ph.price, ph.available, ph.currency, ph.scrapedAt) " +
+            "FROM PriceHistory ph WHERE ph.product.id = :productId AND ph.scrapedAt >= :since " +
+            "ORDER BY ph.scrapedAt ASC, ph.id ASC")
+    List<PriceRecord> findOldestSince(@Param("productId") Long productId, @Param("since") LocalDateTime since,
+            Pageable page);
+
     // Get minimum price for a product
     @Query("SELECT MIN(ph.price) FROM PriceHistory ph WHERE ph.product.id = :productId")
     java.math.BigDecimal findMinPriceByProductId(@Param("productId") Long productId);
 
+    // Find which of the given ingest key hashes are already stored
+    @Query("SELECT ph.ingestKeyHash FROM PriceHistory ph WHERE ph.ingestKeyHash IN :hashes")
+    List<Long> findIngestKeyHashesIn(@Param("hashes") Collection<Long> hashes);
+
     // Get maximum price for a product
     @Query("SELECT MAX(ph.price) FROM PriceHistory ph WHERE ph.product.id = :productId")
     java.math.BigDecimal findMaxPriceByProductId(@Param("productId") Long productId);
@@ -0,0 +1,57 @@
+package com.PriceTracker.demo.repositories;
+
+import com.PriceTracker.demo.models.ProductInfo;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for writing products in bulk.
+ * Uses a JDBC batch, since Hibernate cannot batch inserts of IDENTITY ids.
+ */
+@Repository
+public class ProductBatchRepo {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO products (name, source_site, product_url, canonical_key, canonical_key_hash,
+                canonical_slot, scrape_frequency, target_price, alert_email, active, import_id,
+                import_scrape_failures, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    private static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ProductBatchRepo(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Insert new products, stamped with the current time. Ids are not read back.
+     * All or nothing, so a batch rejected by the canonical key constraint can be retried.
+     */
+    @Transactional
+    public void insertAll(List<ProductInfo> products) {
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, products, BATCH_SIZE, (ps, product) -> {
+            ps.setString(1, product.getName());
+            ps.setString(2, product.getSourceSite());
+            ps.setString(3, product.getProductUrl());
+            ps.setString(4, product.getCanonicalKey());
+            ps.setObject(5, product.getCanonicalKeyHash());
+            ps.setLong(6, product.getCanonicalSlot());
+            ps.setString(7, product.getScrapeFrequency());
+            ps.setBigDecimal(8, product.getTargetPrice());
+            ps.setString(9, product.getAlertEmail());
+            ps.setBoolean(10, product.isActive());
+            ps.setString(11, product.getImportId());
+            ps.setInt(12, product.getImportScrapeFailures());
+            ps.setObject(13, now);
+            ps.setObject(14, now);
+        });
+    }
+}
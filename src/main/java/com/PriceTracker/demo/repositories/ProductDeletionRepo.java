@@ -0,0 +1,28 @@
+package com.PriceTracker.demo.repositories;
+
+import com.PriceTracker.demo.models.ProductDeletion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for ProductDeletion entity.
+ * Provides methods for reading and pruning the deletion log.
+ */
+@Repository
+public interface ProductDeletionRepo extends JpaRepository<ProductDeletion, Long> {
+
+    // Find ids of products deleted after a point in time
+    @Query("SELECT d.productId FROM ProductDeletion d WHERE d.deletedAt > :since")
+    List<Long> findProductIdsDeletedAfter(@Param("since") LocalDateTime since);
+
+    // Drop log entries older than the retention period
+    @Modifying
+    @Query("DELETE FROM ProductDeletion d WHERE d.deletedAt < :before")
+    int deleteOlderThan(@Param("before") LocalDateTime before);
+}
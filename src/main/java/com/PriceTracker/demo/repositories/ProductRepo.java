@@ -1,9 +1,16 @@
 package com.PriceTracker.demo.repositories;
 
+import com.PriceTracker.demo.dto.ProductSummary;
 import com.PriceTracker.demo.models.ProductInfo;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,8 +24,22 @@ public interface ProductRepo extends JpaRepository<ProductInfo, Long> {
     // Find product by its URL
     Optional<ProductInfo> findByProductUrl(String productUrl);
 
-    // Find all active products
-    List<ProductInfo> findByActiveTrue();
+    // Get when a product was last updated, without loading it
+    @Query("SELECT p.updatedAt FROM ProductInfo p WHERE p.id = :id")
+    Optional<LocalDateTime> findUpdatedAtById(@Param("id") Long id);
+
+    // Find products created or updated after a point in time
+    List<ProductInfo> findByUpdatedAtAfter(LocalDateTime since);
+
+    // Get when any product was last updated
+    @Query("SELECT MAX(p.updatedAt) FROM ProductInfo p")
+    LocalDateTime findLatestUpdatedAt();
+
+    // Find all active products as summaries
+    @Query("SELECT new com.PriceTracker.demo.dto.ProductSummary(p.id, p.name, p.sourceSite, p.productUrl, " +
+            "p.scrapeFrequency, p.targetPrice, p.currentPrice, p.active, p.lastScrapedAt) " +
+            "FROM ProductInfo p WHERE p.active = true")
+    List<ProductSummary> findActiveSummaries();
 
     // Find products by source site
     List<ProductInfo> findBySourceSite(String sourceSite);
@@ -26,6 +47,95 @@ public interface ProductRepo extends JpaRepository<ProductInfo, Long> {
     // Find active products with specific scrape frequency
     List<ProductInfo> findByActiveTrueAndScrapeFrequency(String scrapeFrequency);
 
-    // Check if product URL already exists
-    boolean existsByProductUrl(String productUrl);
+    // Find which of the given ids exist
+    @Query("SELECT p.id FROM ProductInfo p WHERE p.id IN :ids")
+    List<Long> findIdsIn(@Param("ids") Collection<Long> ids);
+
+    // Find products whose canonical key has the given hash - callers compare the key itself
+    List<ProductInfo> findByCanonicalKeyHash(Long canonicalKeyHash);
+
+    // Find products with any of the given canonical key hashes - callers compare the keys themselves
+    List<ProductInfo> findByCanonicalKeyHashIn(Collection<Long> canonicalKeyHashes);
+
+    // Find which canonical keys among the given hashes are already tracked
+    @Query("SELECT p.canonicalKey FROM ProductInfo p WHERE p.canonicalKeyHash IN :hashes")
+    List<String> findCanonicalKeysByHashIn(@Param("hashes") Collection<Long> hashes);
+
+    // Find which of the given canonical key hashes have a tracker of record
+    @Query("SELECT p.canonicalKeyHash FROM ProductInfo p WHERE p.canonicalSlot = 0 AND p.canonicalKeyHash IN :hashes")
+    List<Long> findFirstSlotHashesIn(@Param("hashes") Collection<Long> hashes);
+
+    // Check whether a product other than the given one is the tracker of record of a canonical key hash
+    @Query("SELECT COUNT(p) > 0 FROM ProductInfo p WHERE p.canonicalKeyHash = :hash AND p.canonicalSlot = 0 " +
+            "AND p.id <> :id")
+    boolean existsFirstSlotHolder(@Param("hash") Long hash, @Param("id") Long id);
+
+    // Find a batch of products stored before canonical keys were recorded
+    List<ProductInfo> findByCanonicalKeyHashIsNull(Pageable pageable);
+
+    // Find due products of a frequency that no node currently holds a lease on
+    @Query("SELECT p.id FROM ProductInfo p WHERE p.active = true AND p.scrapeFrequency = :frequency " +
+            "AND (p.lastScrapedAt IS NULL OR p.lastScrapedAt < :dueBefore) " +
+            "AND (p.leaseUntil IS NULL OR p.leaseUntil < :now) ORDER BY p.lastScrapedAt ASC")
+    List<Long> findClaimableIds(
+            @Param("frequency") String frequency,
+            @Param("dueBefore") LocalDateTime dueBefore,
+            @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    // Find specific products that are still due and not leased
+    @Query("SELECT p.id FROM ProductInfo p WHERE p.id IN :ids AND p.active = true " +
+            "AND (p.lastScrapedAt IS NULL OR p.lastScrapedAt < :dueBefore) " +
+            "AND (p.leaseUntil IS NULL OR p.leaseUntil < :now)")
+    List<Long> findClaimableIdsIn(
+            @Param("ids") Collection<Long> ids,
+            @Param("dueBefore") LocalDateTime dueBefore,
+            @Param("now") LocalDateTime now);
+
+    // Find imported products still waiting for their initial scrape that no node holds a lease on
+    @Query("SELECT p.id FROM ProductInfo p WHERE p.importId IS NOT NULL AND p.lastScrapedAt IS NULL " +
+            "AND p.active = true AND (p.leaseUntil IS NULL OR p.leaseUntil < :now) ORDER BY p.id ASC")
+    List<Long> findPendingImportIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Count an import's products that have, are still waiting for, or were given up before their initial scrape
+    long countByImportIdAndLastScrapedAtIsNotNull(String importId);
+
+    long countByImportIdAndLastScrapedAtIsNullAndActive(String importId, boolean active);
+
+    // Count a failed initial scrape of an imported product
+    @Modifying
+    @Query("UPDATE ProductInfo p SET p.importScrapeFailures = p.importScrapeFailures + 1 WHERE p.id = :id")
+    int incrementImportScrapeFailures(@Param("id") Long id);
+
+    @Query("SELECT p.importScrapeFailures FROM ProductInfo p WHERE p.id = :id")
+    int findImportScrapeFailures(@Param("id") Long id);
+
+    // Find products last scraped inside a window - used to find work a running scrape will not cover
+    @Query("SELECT p.id FROM ProductInfo p WHERE p.active = true AND p.scrapeFrequency = :frequency " +
+            "AND p.lastScrapedAt >= :from AND p.lastScrapedAt < :to")
+    List<Long> findIdsLastScrapedBetween(
+            @Param("frequency") String frequency,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            Pageable pageable);
+
+    // Optimistically claim leases - rows leased by another node in the meantime are skipped
+    @Modifying
+    @Query("UPDATE ProductInfo p SET p.leaseOwner = :owner, p.leaseUntil = :leaseUntil " +
+            "WHERE p.id IN :ids AND (p.leaseUntil IS NULL OR p.leaseUntil < :now)")
+    int claimLeases(
+            @Param("ids") Collection<Long> ids,
+            @Param("owner") String owner,
+            @Param("leaseUntil") LocalDateTime leaseUntil,
+            @Param("now") LocalDateTime now);
+
+    // Find the products a node actually won in its last claim
+    List<ProductInfo> findByIdInAndLeaseOwnerAndLeaseUntil(Collection<Long> ids, String leaseOwner,
+            LocalDateTime leaseUntil);
+
+    // Release a lease held by the given node
+    @Modifying
+    @Query("UPDATE ProductInfo p SET p.leaseOwner = NULL, p.leaseUntil = NULL " +
+            "WHERE p.id = :id AND p.leaseOwner = :owner")
+    int releaseLease(@Param("id") Long id, @Param("owner") String owner);
 }
@@ -0,0 +1,130 @@
+package com.PriceTracker.demo.scheduler;
+
+import com.PriceTracker.demo.models.Alert;
+import com.PriceTracker.demo.service.AlertService;
+import com.PriceTracker.demo.service.EmailService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Scheduled job that drains the alert outbox.
+ * Alerts are committed with the price write that triggered them; this job
+ * claims unsent ones in batches and emails them on the dispatcher pool, so
+ * SMTP latency and failures never reach the scrape path. Each batch is sent
+ * over one SMTP connection, grouped into per-recipient digests if enabled.
+ */
+@Component
+public class AlertDispatchJob {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertDispatchJob.class);
+
+    private final AlertService alertService;
+    private final EmailService emailService;
+    private final ThreadPoolTaskExecutor alertDispatchExecutor;
+
+    @Value("${app.alerts.dispatch-batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.alerts.claim-timeout:5m}")
+    private Duration claimTimeout;
+
+    public AlertDispatchJob(AlertService alertService,
+            EmailService emailService,
+            @Qualifier("alertDispatchExecutor") ThreadPoolTaskExecutor alertDispatchExecutor) {
+        this.alertService = alertService;
+        this.emailService = emailService;
+        this.alertDispatchExecutor = alertDispatchExecutor;
+    }
+
+    /**
+     * Send due alerts until the outbox has none left.
+     * Runs every few seconds, after the previous run finished. A batch is
+     * claimed only once a dispatcher thread is free to send it, so claims
+     * never wait in the executor's queue while their timeout runs.
+     */
+    @Scheduled(fixedDelayString = "${app.alerts.dispatch-interval:10s}")
+    public void dispatchAlerts() {
+        AtomicInteger sent = new AtomicInteger(0);
+        AtomicInteger failed = new AtomicInteger(0);
+        List<CompletableFuture<Void>> batches = new ArrayList<>();
+        Semaphore freeWorkers = new Semaphore(alertDispatchExecutor.getCorePoolSize());
+
+        while (true) {
+            freeWorkers.acquireUninterruptibly();
+            List<Alert> batch = alertService.claimDueAlerts(batchSize, claimTimeout);
+            if (batch.isEmpty()) {
+                freeWorkers.release();
+                break;
+            }
+            batches.add(CompletableFuture.runAsync(() -> {
+                try {
+                    deliver(batch, sent, failed);
+                } finally {
+                    freeWorkers.release();
+                }
+            }, alertDispatchExecutor));
+        }
+        CompletableFuture.allOf(batches.toArray(new CompletableFuture[0])).join();
+
+        if (sent.get() > 0 || failed.get() > 0) {
+            log.info("Alert dispatch finished. Sent: {}, Failed: {}", sent.get(), failed.get());
+        }
+    }
+
+    /**
+     * Render a claimed batch - one digest per recipient in digest mode - and send
+     * it over a single SMTP connection.
+     */
+    private void deliver(List<Alert> batch, AtomicInteger sent, AtomicInteger failed) {
+        List<List<Alert>> groups = alertService.isDigestEnabled()
+                ? new ArrayList<>(batch.stream()
+                        .collect(Collectors.groupingBy(Alert::getEmail, LinkedHashMap::new, Collectors.toList()))
+                        .values())
+                : batch.stream().map(List::of).toList();
+
+        List<EmailService.Email> emails = groups.stream()
+                .map(group -> emailService.digestEmail(group.get(0).getEmail(), group))
+                .toList();
+
+        Map<Integer, Exception> failures;
+        try {
+            failures = emailService.sendAll(emails);
+        } catch (Exception e) {
+            failures = new HashMap<>();
+            for (int i = 0; i < emails.size(); i++) {
+                failures.put(i, e);
+            }
+        }
+
+        for (int i = 0; i < groups.size(); i++) {
+            Exception failure = failures.get(i);
+            for (Alert alert : groups.get(i)) {
+                if (failure == null) {
+                    alertService.markSent(alert);
+                    sent.incrementAndGet();
+                } else {
+                    log.warn("Failed to send {} alert {} to {}: {}",
+                            alert.getAlertType(), alert.getId(), alert.getEmail(), failure.getMessage());
+                    alertService.markFailed(alert, failure.getMessage());
+                    failed.incrementAndGet();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.PriceTracker.demo.scheduler;
+
+import com.PriceTracker.demo.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Records canonical keys for products stored before they existed, so their
+ * duplicates are found on add and share one scrape target.
+ * Runs once at startup, one transaction per batch.
+ */
+@Component
+public class CanonicalKeyBackfillJob {
+
+    private static final Logger log = LoggerFactory.getLogger(CanonicalKeyBackfillJob.class);
+
+    private final ProductService productService;
+
+    @Value("${app.canonical.backfill-batch-size:500}")
+    private int batchSize;
+
+    public CanonicalKeyBackfillJob(ProductService productService) {
+        this.productService = productService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfill() {
+        int total = 0;
+        try {
+            int updated;
+            while ((updated = productService.backfillCanonicalKeys(batchSize)) > 0) {
+                total += updated;
+            }
+        } catch (Exception e) {
+            // Products without a key still scrape; they are retried on the next start
+            log.error("Canonical key backfill stopped after {} products: {}", total, e.getMessage());
+            return;
+        }
+        if (total > 0) {
+            log.info("Recorded canonical keys for {} products", total);
+        }
+    }
+}
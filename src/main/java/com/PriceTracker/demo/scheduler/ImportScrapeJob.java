@@ -0,0 +1,99 @@
+package com.PriceTracker.demo.scheduler;
+
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.scraper.CanonicalUrl;
+import com.PriceTracker.demo.scraper.UrlCanonicalizer;
+import com.PriceTracker.demo.service.PriceRefreshService;
+import com.PriceTracker.demo.service.ProductImportService;
+import com.PriceTracker.demo.service.ProductService;
+import com.PriceTracker.demo.service.ScrapeLeaseService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Scheduled job that runs the initial scrapes of imported products.
+ * Each firing claims a small leased batch and waits for it, so a large
+ * import is scraped at a steady rate instead of all at once. Short links,
+ * which imports store unresolved, are resolved here before their scrape.
+ * A product that fails its initial scrape is retried after its lease
+ * expires, up to app.import.max-scrape-attempts times, then deactivated.
+ */
+@Component
+public class ImportScrapeJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportScrapeJob.class);
+
+    private final PriceRefreshService priceRefreshService;
+    private final ScrapeLeaseService leaseService;
+    private final ProductImportService productImportService;
+    private final ProductService productService;
+    private final UrlCanonicalizer urlCanonicalizer;
+
+    @Value("${app.import.scrape-batch-size:20}")
+    private int batchSize;
+
+    public ImportScrapeJob(PriceRefreshService priceRefreshService, ScrapeLeaseService leaseService,
+            ProductImportService productImportService, ProductService productService,
+            UrlCanonicalizer urlCanonicalizer) {
+        this.priceRefreshService = priceRefreshService;
+        this.leaseService = leaseService;
+        this.productImportService = productImportService;
+        this.productService = productService;
+        this.urlCanonicalizer = urlCanonicalizer;
+    }
+
+    @Scheduled(fixedDelayString = "${app.import.scrape-interval:1s}")
+    public void scrapePendingImports() {
+        List<ProductInfo> products = leaseService.claimPendingImports(batchSize);
+        if (products.isEmpty()) {
+            return;
+        }
+
+        List<CompletableFuture<?>> pending = new ArrayList<>(products.size());
+        for (ProductInfo claimed : products) {
+            ProductInfo product = resolveShortLink(claimed);
+            pending.add(priceRefreshService.refreshAsync(product, true)
+                    .handle((updated, ex) -> {
+                        if (ex == null) {
+                            leaseService.release(product.getId());
+                        } else {
+                            onScrapeFailure(product, ex);
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+        log.debug("Ran initial scrapes of {} imported products", products.size());
+    }
+
+    /**
+     * Re-key a product stored with a short link by the page the link points to.
+     * Links that do not resolve are scraped as they are.
+     */
+    private ProductInfo resolveShortLink(ProductInfo product) {
+        CanonicalUrl canonical = urlCanonicalizer.canonicalize(product.getProductUrl());
+        if (canonical.key().equals(product.getCanonicalKey())) {
+            return product;
+        }
+        log.debug("Imported product {} resolved to {}", product.getId(), canonical.url());
+        return productService.updateCanonicalUrl(product.getId(), canonical);
+    }
+
+    private void onScrapeFailure(ProductInfo product, Throwable ex) {
+        // Keep the lease so the product is retried once it expires
+        if (productImportService.recordScrapeFailure(product)) {
+            productService.updateActiveStatus(product.getId(), false);
+            log.warn("Gave up on imported product {} after its initial scrape failed again: {}",
+                    product.getId(), ex.getMessage());
+        } else {
+            log.warn("Initial scrape of imported product {} failed: {}", product.getId(), ex.getMessage());
+        }
+    }
+}
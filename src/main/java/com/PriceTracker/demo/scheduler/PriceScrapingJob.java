@@ -1,29 +1,61 @@
 package com.PriceTracker.demo.scheduler;
 
+import com.PriceTracker.demo.dto.ScrapeRunStats;
 import com.PriceTracker.demo.models.ProductInfo;
-import com.PriceTracker.demo.service.ProductService;
+import com.PriceTracker.demo.service.AlertEvaluationStage;
+import com.PriceTracker.demo.service.PriceRefreshService;
+import com.PriceTracker.demo.service.ScrapeLeaseService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Scheduled job for automatic price scraping.
  * Runs at configured intervals to update product prices.
+ * Products are claimed in leased batches so several nodes can share the work.
+ * Only one run per frequency is active at a time; a firing that overlaps a
+ * running run queues its extra work for that run instead of starting another,
+ * and work queued as a run finishes is drained straight after it.
  */
 @Component
 public class PriceScrapingJob {
 
     private static final Logger log = LoggerFactory.getLogger(PriceScrapingJob.class);
 
-    private final ProductService productService;
+    private static final int RECENT_RUNS_KEPT = 50;
 
-    public PriceScrapingJob(ProductService productService) {
-        this.productService = productService;
+    private final PriceRefreshService priceRefreshService;
+    private final ScrapeLeaseService leaseService;
+    private final AlertEvaluationStage alertEvaluationStage;
+
+    private final Map<String, RunState> runStates = new ConcurrentHashMap<>();
+    private final Deque<ScrapeRunStats> recentRuns = new ArrayDeque<>();
+
+    @Value("${app.scrape.carry-over-limit:10000}")
+    private int carryOverLimit;
+
+    public PriceScrapingJob(PriceRefreshService priceRefreshService, ScrapeLeaseService leaseService,
+            AlertEvaluationStage alertEvaluationStage) {
+        this.priceRefreshService = priceRefreshService;
+        this.leaseService = leaseService;
+        this.alertEvaluationStage = alertEvaluationStage;
     }
 
     /**
@@ -34,14 +66,7 @@ public class PriceScrapingJob {
     public void scrapeHourlyProducts() {
         log.info("Starting hourly price scraping job at {}", LocalDateTime.now());
 
-        List<ProductInfo> products = productService.getProductsByFrequency("HOURLY");
-
-        if (products.isEmpty()) {
-            log.info("No hourly products to scrape");
-            return;
-        }
-
-        scrapeProducts(products, "HOURLY");
+        runOrCarryOver("HOURLY");
     }
 
     /**
@@ -52,39 +77,195 @@ public class PriceScrapingJob {
     public void scrapeDailyProducts() {
         log.info("Starting daily price scraping job at {}", LocalDateTime.now());
 
-        List<ProductInfo> products = productService.getProductsByFrequency("DAILY");
+        runOrCarryOver("DAILY");
+    }
 
-        if (products.isEmpty()) {
-            log.info("No daily products to scrape");
-            return;
+    /**
+     * Get stats of the most recent runs, newest first.
+     */
+    public List<ScrapeRunStats> getRecentRuns() {
+        synchronized (recentRuns) {
+            return new ArrayList<>(recentRuns);
+        }
+    }
+
+    /**
+     * Start a run for the frequency, or queue work for the run already in progress.
+     */
+    private void runOrCarryOver(String frequency) {
+        LocalDateTime firedAt = LocalDateTime.now();
+        RunState state = runStates.computeIfAbsent(frequency, f -> new RunState());
+
+        boolean claimDue = true;
+        if (!state.running.compareAndSet(false, true)) {
+            carryOver(frequency, state, firedAt);
+            // The run may have finished before it could see the queued work
+            if (!state.running.compareAndSet(false, true)) {
+                return;
+            }
+            claimDue = false;
+        }
+
+        while (true) {
+            try {
+                if (claimDue) {
+                    state.dueAt = firedAt;
+                }
+                scrapeProducts(frequency, state, firedAt, claimDue);
+            } finally {
+                state.running.set(false);
+            }
+
+            // Work queued after the last drain but before the flag was released would otherwise
+            // wait a whole interval; whoever takes the flag back drains it
+            if (state.carryOver.isEmpty() || !state.running.compareAndSet(false, true)) {
+                return;
+            }
+            claimDue = false;
+        }
+    }
+
+    /**
+     * Queue products the running run will not reach but which are due for this firing.
+     * Products still pending in the running run or already queued are skipped.
+     */
+    private void carryOver(String frequency, RunState state, LocalDateTime firedAt) {
+        int room = carryOverLimit - state.carryOver.size();
+        int added = 0;
+
+        if (room > 0) {
+            for (Long id : leaseService.findDueAfterRun(frequency, state.dueAt, firedAt, room)) {
+                if (state.carryOver.add(id)) {
+                    added++;
+                }
+            }
         }
+        state.carryOverDueAt = firedAt;
 
-        scrapeProducts(products, "DAILY");
+        log.warn("Previous {} run (started {}) still in progress - carried over {} products, {} queued",
+                frequency, state.dueAt, added, state.carryOver.size());
     }
 
     /**
-     * Scrape a list of products with error handling.
+     * Claim and scrape batches of due products, then drain the carry-over queue.
+     * Batches are submitted to the async engine without waiting for each other;
+     * claiming pauses whenever the engine is at capacity.
+     *
+     * @param claimDue False to only drain the carry-over queue
      */
-    private void scrapeProducts(List<ProductInfo> products, String frequency) {
+    private void scrapeProducts(String frequency, RunState state, LocalDateTime dueAt, boolean claimDue) {
+        LocalDateTime startedAt = LocalDateTime.now();
         AtomicInteger successCount = new AtomicInteger(0);
         AtomicInteger failCount = new AtomicInteger(0);
+        List<CompletableFuture<?>> pending = new ArrayList<>();
 
-        log.info("Scraping {} {} products", products.size(), frequency);
+        List<ProductInfo> products;
+        while (claimDue && !(products = leaseService.claimBatch(frequency, dueAt)).isEmpty()) {
+            scrapeBatch(products, frequency, successCount, failCount, pending);
+        }
 
-        // Process products in parallel using stream
-        products.parallelStream().forEach(product -> {
-            try {
-                productService.updateProductPrice(product.getId());
-                successCount.incrementAndGet();
-                log.debug("Successfully scraped: {}", product.getName());
-            } catch (Exception e) {
-                failCount.incrementAndGet();
-                log.error("Failed to scrape product {} (ID: {}): {}",
-                        product.getName(), product.getId(), e.getMessage());
+        int carriedOver = 0;
+        while (!state.carryOver.isEmpty()) {
+            List<Long> ids = takeCarryOver(state, leaseService.getBatchSize());
+            List<ProductInfo> batch = leaseService.claimIds(ids, frequency, state.carryOverDueAt);
+            carriedOver += batch.size();
+            scrapeBatch(batch, frequency, successCount, failCount, pending);
+        }
+
+        CompletableFuture.allOf(pending.toArray(new CompletableFuture[0])).join();
+
+        // Evaluate the run's price changes now rather than on the next periodic flush
+        alertEvaluationStage.flush();
+
+        recordRun(frequency, startedAt, successCount.get(), failCount.get(), carriedOver, state.carryOver.size());
+    }
+
+    /**
+     * Submit one claimed batch to the async scrape engine.
+     * Products sharing a scrape target are fetched once; that fetch records
+     * the price for all of them.
+     */
+    private void scrapeBatch(List<ProductInfo> products, String frequency,
+            AtomicInteger successCount, AtomicInteger failCount, List<CompletableFuture<?>> pending) {
+        if (products.isEmpty()) {
+            return;
+        }
+        log.info("Scraping {} {} products on node {}", products.size(), frequency, leaseService.getNodeId());
+
+        Map<String, List<ProductInfo>> byTarget = new LinkedHashMap<>();
+        for (ProductInfo product : products) {
+            byTarget.computeIfAbsent(priceRefreshService.scrapeTarget(product), t -> new ArrayList<>()).add(product);
+        }
+
+        for (List<ProductInfo> trackers : byTarget.values()) {
+            ProductInfo product = trackers.get(0);
+            // Forced, but shares the fetch with a manual scrape already in flight
+            pending.add(priceRefreshService.refreshAsync(product, true)
+                    .handle((updated, ex) -> {
+                        if (ex == null) {
+                            trackers.forEach(tracker -> leaseService.release(tracker.getId()));
+                            successCount.addAndGet(trackers.size());
+                            log.debug("Successfully scraped: {}", product.getName());
+                        } else {
+                            // Keep the leases so the products are retried once they expire, not again in this run
+                            failCount.addAndGet(trackers.size());
+                            log.error("Failed to scrape product {} (ID: {}): {}",
+                                    product.getName(), product.getId(), ex.getMessage());
+                        }
+                        return null;
+                    }));
+        }
+    }
+
+    private List<Long> takeCarryOver(RunState state, int max) {
+        List<Long> ids = new ArrayList<>(max);
+        Iterator<Long> it = state.carryOver.iterator();
+        while (it.hasNext() && ids.size() < max) {
+            ids.add(it.next());
+            it.remove();
+        }
+        return ids;
+    }
+
+    private void recordRun(String frequency, LocalDateTime startedAt, int scraped, int failed,
+            int carriedOver, int backlog) {
+        if (scraped == 0 && failed == 0) {
+            log.info("No {} products to scrape", frequency.toLowerCase());
+            return;
+        }
+
+        LocalDateTime finishedAt = LocalDateTime.now();
+        long millis = Math.max(1, Duration.between(startedAt, finishedAt).toMillis());
+        ScrapeRunStats stats = ScrapeRunStats.builder()
+                .frequency(frequency)
+                .nodeId(leaseService.getNodeId())
+                .startedAt(startedAt)
+                .finishedAt(finishedAt)
+                .scraped(scraped)
+                .failed(failed)
+                .carriedOver(carriedOver)
+                .backlog(backlog)
+                .throughputPerMinute((scraped + failed) * 60_000.0 / millis)
+                .build();
+
+        synchronized (recentRuns) {
+            recentRuns.addFirst(stats);
+            if (recentRuns.size() > RECENT_RUNS_KEPT) {
+                recentRuns.removeLast();
             }
-        });
+        }
 
-        log.info("Completed {} scraping job. Success: {}, Failed: {}",
-                frequency, successCount.get(), failCount.get());
+        log.info("Completed {} scraping job in {} ms. Success: {}, Failed: {}, Carried over: {}, Backlog: {}",
+                frequency, millis, scraped, failed, carriedOver, backlog);
+    }
+
+    /**
+     * Coordination state for one scrape frequency.
+     */
+    private static class RunState {
+        final AtomicBoolean running = new AtomicBoolean(false);
+        final Set<Long> carryOver = ConcurrentHashMap.newKeySet();
+        volatile LocalDateTime dueAt;
+        volatile LocalDateTime carryOverDueAt;
     }
 }
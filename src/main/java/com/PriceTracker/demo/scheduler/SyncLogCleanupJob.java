@@ -0,0 +1,31 @@
+package com.PriceTracker.demo.scheduler;
+
+import com.PriceTracker.demo.service.ProductService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Scheduled job that prunes the product deletion log used by delta sync.
+ */
+@Component
+public class SyncLogCleanupJob {
+
+    private static final Logger log = LoggerFactory.getLogger(SyncLogCleanupJob.class);
+
+    private final ProductService productService;
+
+    public SyncLogCleanupJob(ProductService productService) {
+        this.productService = productService;
+    }
+
+    /**
+     * Runs once per day at 3:30 AM.
+     */
+    @Scheduled(cron = "0 30 3 * * *")
+    public void pruneDeletionLog() {
+        int pruned = productService.pruneDeletionLog();
+        log.info("Pruned {} product deletion log entries", pruned);
+    }
+}
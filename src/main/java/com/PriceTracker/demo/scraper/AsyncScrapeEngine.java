@@ -0,0 +1,165 @@
+package com.PriceTracker.demo.scraper;
+
+import com.PriceTracker.demo.dto.ProductPrice;
+import com.PriceTracker.demo.exception.ScrapingException;
+import jakarta.annotation.PreDestroy;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Non-blocking scraping engine.
+ * Fetches pages with the JDK HttpClient and parses them with the site's
+ * PriceScraper, so an in-flight fetch holds no thread. A fixed number of
+ * permits bounds fetches plus persistence; submit blocks the caller while all
+ * are taken, so producers never run ahead of the database writes.
+ */
+@Component
+public class AsyncScrapeEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(AsyncScrapeEngine.class);
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 " +
+            "(KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    private final ScraperFactory scraperFactory;
+    private final HttpClient httpClient;
+    private final ExecutorService ioExecutor;
+    private final ExecutorService parseExecutor;
+    private final ExecutorService persistExecutor;
+    private final Semaphore permits;
+    private final int maxInFlight;
+
+    public AsyncScrapeEngine(ScraperFactory scraperFactory,
+            @Value("${app.scrape.async.max-in-flight:1000}") int maxInFlight,
+            @Value("${app.scrape.async.io-threads:2}") int ioThreads,
+            @Value("${app.scrape.async.parse-threads:4}") int parseThreads,
+            @Value("${app.scrape.async.persist-threads:4}") int persistThreads) {
+        this.scraperFactory = scraperFactory;
+        this.maxInFlight = maxInFlight;
+        this.permits = new Semaphore(maxInFlight);
+        this.ioExecutor = Executors.newFixedThreadPool(ioThreads, named("scrape-io-"));
+        this.parseExecutor = Executors.newFixedThreadPool(parseThreads, named("scrape-parse-"));
+        this.persistExecutor = Executors.newFixedThreadPool(persistThreads, named("scrape-persist-"));
+        this.httpClient = HttpClient.newBuilder()
+                .executor(ioExecutor)
+                .connectTimeout(TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+
+        log.info("Initialized async scrape engine: max in flight {}, io {}, parse {}, persist {} threads",
+                maxInFlight, ioThreads, parseThreads, persistThreads);
+    }
+
+    /**
+     * Fetch and parse a product page without blocking the caller.
+     *
+     * @param url The product page URL
+     * @return Future completed with the scraped data, or with a ScrapingException
+     */
+    public CompletableFuture<ProductPrice> scrapeAsync(String url) {
+        PriceScraper scraper;
+        try {
+            scraper = scraperFactory.getScraperForUrl(url);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                .timeout(TIMEOUT)
+                .header("User-Agent", USER_AGENT)
+                .header("Accept-Language", "en-US,en;q=0.9")
+                .header("Accept", "text/html,application/xhtml+xml")
+                .GET()
+                .build();
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .thenApplyAsync(response -> {
+                    if (response.statusCode() >= 400) {
+                        throw new ScrapingException("HTTP " + response.statusCode() + " from "
+                                + scraper.getSiteName(), url);
+                    }
+                    Document doc = Jsoup.parse(response.body(), url);
+                    return scraper.parse(doc, url);
+                }, parseExecutor)
+                .exceptionallyCompose(e -> CompletableFuture.failedFuture(toScrapingException(e, url, scraper)));
+    }
+
+    /**
+     * Scrape a page and hand the result to a blocking sink, such as a database write.
+     * Blocks the caller while the maximum number of scrapes are in flight; the
+     * permit is only returned once the sink has finished.
+     *
+     * @param url  The product page URL
+     * @param sink Consumer of the scraped data, run on the persistence pool
+     * @return Future completed with the sink's result
+     */
+    public <T> CompletableFuture<T> submit(String url, Function<ProductPrice, T> sink) {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(new ScrapingException("Interrupted waiting for scrape capacity", url));
+        }
+
+        CompletableFuture<T> result;
+        try {
+            result = scrapeAsync(url).thenApplyAsync(sink, persistExecutor);
+        } catch (RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+        return result.whenComplete((value, ex) -> permits.release());
+    }
+
+    /**
+     * Number of scrapes currently holding a permit.
+     */
+    public int getInFlight() {
+        return maxInFlight - permits.availablePermits();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ioExecutor.shutdown();
+        parseExecutor.shutdown();
+        persistExecutor.shutdown();
+    }
+
+    private RuntimeException toScrapingException(Throwable e, String url, PriceScraper scraper) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof ScrapingException scrapingException) {
+            return scrapingException;
+        }
+        log.error("Failed to scrape {} URL: {}", scraper.getSiteName(), url, cause);
+        return new ScrapingException("Failed to scrape " + scraper.getSiteName() + " product page", url, cause);
+    }
+
+    private static ThreadFactory named(String prefix) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
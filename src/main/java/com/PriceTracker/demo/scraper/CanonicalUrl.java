@@ -0,0 +1,35 @@
+package com.PriceTracker.demo.scraper;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Canonical form of a product URL.
+ *
+ * @param key Names the product on its site, e.g. "amazon.in:B0BDHWDR12"; equal for every URL of the product
+ * @param url Clean URL to scrape, without tracking parameters
+ */
+public record CanonicalUrl(String key, String url) {
+
+    /**
+     * 64-bit hash of the key, stored in an indexed column so lookups do not
+     * need an index on the long key or URL. Equal hashes still compare keys.
+     */
+    public long keyHash() {
+        return hash(key);
+    }
+
+    /**
+     * First 64 bits of the SHA-256 of a string.
+     */
+    public static long hash(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            return ByteBuffer.wrap(digest).getLong();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.PriceTracker.demo.scraper;
 
 import com.PriceTracker.demo.dto.ProductPrice;
 import com.PriceTracker.demo.exception.ScrapingException;
+import org.jsoup.nodes.Document;
 
 /**
  * Interface for price scrapers.
@@ -18,6 +19,17 @@ public interface PriceScraper {
      */
     ProductPrice scrape(String url) throws ScrapingException;
 
+    /**
+     * Extract product data from an already fetched page.
+     * Used by the async engine, which fetches pages without Jsoup.
+     * 
+     * @param doc The parsed product page
+     * @param url The product page URL
+     * @return ProductPrice containing scraped data
+     * @throws ScrapingException if the page has no usable price
+     */
+    ProductPrice parse(Document doc, String url) throws ScrapingException;
+
     /**
      * Check if this scraper supports the given URL.
      * 
@@ -26,6 +38,28 @@ public interface PriceScraper {
      */
     boolean supports(String url);
 
+    /**
+     * Reduce a product URL to the site's product key and a clean URL, so
+     * tracking parameters and path variants of one product compare equal.
+     *
+     * @param url The URL to canonicalise
+     * @return The canonical form, or null if the URL does not name a product
+     *         directly (e.g. a short link that must be resolved first)
+     */
+    default CanonicalUrl canonicalize(String url) {
+        return null;
+    }
+
+    /**
+     * Check if the URL is a short link that redirects to a product page.
+     *
+     * @param url The URL to check
+     * @return true if the URL must be resolved before it can be canonicalised
+     */
+    default boolean isShortLink(String url) {
+        return false;
+    }
+
     /**
      * Get the name of the site this scraper handles.
      * 
@@ -0,0 +1,116 @@
+package com.PriceTracker.demo.scraper;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * Turns product URLs into their canonical form, so the trackers of one
+ * product can be found whichever URL they were added with.
+ * Each site's scraper extracts its product key. Short links are resolved once
+ * by following their redirects, and the target is cached since a short link
+ * does not change where it points.
+ */
+@Component
+public class UrlCanonicalizer {
+
+    private static final Logger log = LoggerFactory.getLogger(UrlCanonicalizer.class);
+
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 " +
+            "(KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36";
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final ScraperFactory scraperFactory;
+    private final HttpClient httpClient;
+
+    // Short link to the URL it redirects to
+    private final Cache<String, String> resolved;
+
+    public UrlCanonicalizer(ScraperFactory scraperFactory,
+            @Value("${app.scrape.short-link-cache-size:10000}") long cacheSize) {
+        this.scraperFactory = scraperFactory;
+        this.httpClient = HttpClient.newBuilder()
+                .connectTimeout(TIMEOUT)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+        this.resolved = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .build();
+    }
+
+    /**
+     * Canonicalise a product URL, resolving short links.
+     * URLs the site's scraper cannot reduce to a product key are keyed by the
+     * URL itself, minus fragment and trailing slash.
+     *
+     * @throws com.PriceTracker.demo.exception.UnsupportedSiteException if no scraper supports the URL
+     */
+    public CanonicalUrl canonicalize(String url) {
+        PriceScraper scraper = scraperFactory.getScraperForUrl(url);
+        CanonicalUrl canonical = scraper.canonicalize(url);
+        if (canonical == null && scraper.isShortLink(url)) {
+            String target = resolved.get(url, this::resolve);
+            if (target != null && scraperFactory.isSupported(target)) {
+                canonical = scraperFactory.getScraperForUrl(target).canonicalize(target);
+            }
+        }
+        return canonical != null ? canonical : byUrl(url);
+    }
+
+    /**
+     * Canonicalise a stored URL without any network access.
+     * Short links are keyed by the link itself.
+     */
+    public CanonicalUrl canonicalizeOffline(String url) {
+        CanonicalUrl canonical = scraperFactory.isSupported(url)
+                ? scraperFactory.getScraperForUrl(url).canonicalize(url)
+                : null;
+        return canonical != null ? canonical : byUrl(url);
+    }
+
+    /**
+     * Follow a short link's redirects. Returns null if it cannot be resolved,
+     * which is not cached so a later add tries again.
+     */
+    private String resolve(String url) {
+        try {
+            HttpRequest request = HttpRequest.newBuilder(URI.create(url))
+                    .timeout(TIMEOUT)
+                    .header("User-Agent", USER_AGENT)
+                    .GET()
+                    .build();
+            HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+            String target = response.uri().toString();
+            log.info("Resolved short link {} to {}", url, target);
+            return target;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (Exception e) {
+            log.warn("Failed to resolve short link {}: {}", url, e.getMessage());
+            return null;
+        }
+    }
+
+    private CanonicalUrl byUrl(String url) {
+        String key = url.trim();
+        int hash = key.indexOf('#');
+        if (hash >= 0) {
+            key = key.substring(0, hash);
+        }
+        while (key.endsWith("/")) {
+            key = key.substring(0, key.length() - 1);
+        }
+        return new CanonicalUrl("url:" + key, url.trim());
+    }
+}
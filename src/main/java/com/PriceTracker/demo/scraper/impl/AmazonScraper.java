@@ -2,7 +2,9 @@ package com.PriceTracker.demo.scraper.impl;
 
 import com.PriceTracker.demo.dto.ProductPrice;
 import com.PriceTracker.demo.exception.ScrapingException;
+import com.PriceTracker.demo.scraper.CanonicalUrl;
 import com.PriceTracker.demo.scraper.PriceScraper;
+import com.PriceTracker.demo.util.Money;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -11,7 +13,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Scraper implementation for Amazon India and Amazon.com
@@ -26,6 +32,11 @@ public class AmazonScraper implements PriceScraper {
 
     private static final int TIMEOUT_MS = 15000;
 
+    // ASIN in the product paths Amazon links to, e.g. /dp/, /gp/product/ and the mobile /gp/aw/d/
+    private static final Pattern ASIN_PATH = Pattern.compile(
+            "/(?:dp|gp/product|gp/aw/d|exec/obidos/asin|o/asin)/([a-z0-9]{10})(?=[/?#]|$)",
+            Pattern.CASE_INSENSITIVE);
+
     @Override
     public ProductPrice scrape(String url) throws ScrapingException {
         log.info("Scraping Amazon URL: {}", url);
@@ -38,26 +49,31 @@ public class AmazonScraper implements PriceScraper {
                     .header("Accept", "text/html,application/xhtml+xml")
                     .get();
 
-            // Extract product title
-            String title = extractTitle(doc);
+            return parse(doc, url);
 
-            // Extract price
-            BigDecimal price = extractPrice(doc);
+        } catch (Exception e) {
+            log.error("Failed to scrape Amazon URL: {}", url, e);
+            throw new ScrapingException("Failed to scrape Amazon product page", url, e);
+        }
+    }
 
-            // Check availability
-            Boolean available = checkAvailability(doc);
+    @Override
+    public ProductPrice parse(Document doc, String url) throws ScrapingException {
+        // Extract product title
+        String title = extractTitle(doc);
 
-            // Determine currency based on URL
-            String currency = url.contains("amazon.in") ? "INR" : "USD";
+        // Extract price
+        BigDecimal price = extractPrice(doc);
 
-            log.info("Successfully scraped: {} - Price: {} {}", title, price, currency);
+        // Check availability
+        Boolean available = checkAvailability(doc);
 
-            return new ProductPrice(title, price, available, currency, LocalDateTime.now());
+        // Determine currency based on URL
+        String currency = url.contains("amazon.in") ? "INR" : "USD";
 
-        } catch (Exception e) {
-            log.error("Failed to scrape Amazon URL: {}", url, e);
-            throw new ScrapingException("Failed to scrape Amazon product page", url, e);
-        }
+        log.info("Successfully scraped: {} - Price: {} {}", title, price, currency);
+
+        return new ProductPrice(title, price, available, currency, LocalDateTime.now());
     }
 
     private String extractTitle(Document doc) {
@@ -99,9 +115,9 @@ public class AmazonScraper implements PriceScraper {
             Element priceElement = doc.selectFirst(selector);
             if (priceElement != null) {
                 String priceText = priceElement.text();
-                BigDecimal price = parsePrice(priceText);
-                if (price != null && price.compareTo(BigDecimal.ZERO) > 0) {
-                    return price;
+                Money price = parsePrice(priceText);
+                if (price != null && price.isPositive()) {
+                    return price.toBigDecimal();
                 }
             }
         }
@@ -109,32 +125,16 @@ public class AmazonScraper implements PriceScraper {
         throw new ScrapingException("Could not extract price from page", doc.baseUri());
     }
 
-    private BigDecimal parsePrice(String priceText) {
+    private Money parsePrice(String priceText) {
         if (priceText == null || priceText.isEmpty()) {
             return null;
         }
 
         try {
-            // Remove currency symbols, commas, and extra characters
+            // Read digits and the decimal point, skipping currency symbols and commas
             // Examples: "₹1,299.00", "$29.99", "1,299"
-            String cleaned = priceText
-                    .replaceAll("[₹$€£¥,\\s]", "") // Remove currency symbols and commas
-                    .replaceAll("[^0-9.]", ""); // Keep only digits and decimal
-
-            // Handle cases like "1299." or ".99"
-            if (cleaned.endsWith(".")) {
-                cleaned = cleaned.substring(0, cleaned.length() - 1);
-            }
-            if (cleaned.startsWith(".")) {
-                cleaned = "0" + cleaned;
-            }
-
-            if (cleaned.isEmpty()) {
-                return null;
-            }
-
-            return new BigDecimal(cleaned);
-        } catch (NumberFormatException e) {
+            return Money.parse(priceText, null);
+        } catch (NumberFormatException | ArithmeticException e) {
             log.warn("Could not parse price: {}", priceText);
             return null;
         }
@@ -169,6 +169,44 @@ public class AmazonScraper implements PriceScraper {
                 lowerUrl.contains("amzn.com");
     }
 
+    @Override
+    public CanonicalUrl canonicalize(String url) {
+        URI uri = toUri(url);
+        if (uri == null || uri.getHost() == null || uri.getRawPath() == null) {
+            return null;
+        }
+
+        // Marketplace domain, e.g. amazon.in for www.amazon.in or m.amazon.in
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        int dot = host.indexOf(".amazon.");
+        if (dot < 0 && !host.startsWith("amazon.")) {
+            return null;
+        }
+        String marketplace = dot < 0 ? host : host.substring(dot + 1);
+
+        Matcher matcher = ASIN_PATH.matcher(uri.getRawPath());
+        if (!matcher.find()) {
+            return null;
+        }
+        String asin = matcher.group(1).toUpperCase(Locale.ROOT);
+        return new CanonicalUrl(marketplace + ":" + asin, "https://www." + marketplace + "/dp/" + asin);
+    }
+
+    @Override
+    public boolean isShortLink(String url) {
+        URI uri = toUri(url);
+        return uri != null && uri.getHost() != null &&
+                uri.getHost().toLowerCase(Locale.ROOT).startsWith("amzn.");
+    }
+
+    private URI toUri(String url) {
+        try {
+            return url == null ? null : URI.create(url.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     @Override
     public String getSiteName() {
         return "Amazon";
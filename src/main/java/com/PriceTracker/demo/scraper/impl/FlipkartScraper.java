@@ -2,7 +2,9 @@ package com.PriceTracker.demo.scraper.impl;
 
 import com.PriceTracker.demo.dto.ProductPrice;
 import com.PriceTracker.demo.exception.ScrapingException;
+import com.PriceTracker.demo.scraper.CanonicalUrl;
 import com.PriceTracker.demo.scraper.PriceScraper;
+import com.PriceTracker.demo.util.Money;
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
@@ -11,7 +13,11 @@ import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.math.BigDecimal;
+import java.net.URI;
 import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Scraper implementation for Flipkart.com
@@ -26,6 +32,14 @@ public class FlipkartScraper implements PriceScraper {
 
     private static final int TIMEOUT_MS = 15000;
 
+    // Product id query parameter, e.g. pid=MOBGHWFHSV7GACRH
+    private static final Pattern PID_PARAM = Pattern.compile("(?:^|&)pid=([a-z0-9]{16})(?=&|$)",
+            Pattern.CASE_INSENSITIVE);
+
+    // Item path, e.g. /apple-iphone-15-black-128-gb/p/itm6ac6485515ae4
+    private static final Pattern ITEM_PATH = Pattern.compile("^(?:/dl)?((?:/[^/]+)*?/p/(itm[a-z0-9]+))",
+            Pattern.CASE_INSENSITIVE);
+
     @Override
     public ProductPrice scrape(String url) throws ScrapingException {
         log.info("Scraping Flipkart URL: {}", url);
@@ -37,18 +51,7 @@ public class FlipkartScraper implements PriceScraper {
                     .header("Accept-Language", "en-US,en;q=0.9")
                     .get();
 
-            // Extract product title
-            String title = extractTitle(doc);
-
-            // Extract price
-            BigDecimal price = extractPrice(doc);
-
-            // Check availability
-            Boolean available = checkAvailability(doc);
-
-            log.info("Successfully scraped: {} - Price: {} INR", title, price);
-
-            return new ProductPrice(title, price, available, "INR", LocalDateTime.now());
+            return parse(doc, url);
 
         } catch (Exception e) {
             log.error("Failed to scrape Flipkart URL: {}", url, e);
@@ -56,6 +59,22 @@ public class FlipkartScraper implements PriceScraper {
         }
     }
 
+    @Override
+    public ProductPrice parse(Document doc, String url) throws ScrapingException {
+        // Extract product title
+        String title = extractTitle(doc);
+
+        // Extract price
+        BigDecimal price = extractPrice(doc);
+
+        // Check availability
+        Boolean available = checkAvailability(doc);
+
+        log.info("Successfully scraped: {} - Price: {} INR", title, price);
+
+        return new ProductPrice(title, price, available, "INR", LocalDateTime.now());
+    }
+
     private String extractTitle(Document doc) {
         // Try multiple selectors for product title
         String[] titleSelectors = {
@@ -112,9 +131,9 @@ public class FlipkartScraper implements PriceScraper {
                     priceText = priceElement.text();
                 }
 
-                BigDecimal price = parsePrice(priceText);
-                if (price != null && price.compareTo(BigDecimal.ZERO) > 0) {
-                    return price;
+                Money price = parsePrice(priceText);
+                if (price != null && price.isPositive()) {
+                    return price.toBigDecimal();
                 }
             }
         }
@@ -122,24 +141,16 @@ public class FlipkartScraper implements PriceScraper {
         throw new ScrapingException("Could not extract price from Flipkart page", doc.baseUri());
     }
 
-    private BigDecimal parsePrice(String priceText) {
+    private Money parsePrice(String priceText) {
         if (priceText == null || priceText.isEmpty()) {
             return null;
         }
 
         try {
-            // Remove rupee symbol, commas, and extra characters
+            // Read digits and the decimal point, skipping currency symbols and commas
             // Examples: "₹1,299", "₹ 29,999.00"
-            String cleaned = priceText
-                    .replaceAll("[₹,\\s]", "") // Remove rupee symbol and commas
-                    .replaceAll("[^0-9.]", ""); // Keep only digits and decimal
-
-            if (cleaned.isEmpty()) {
-                return null;
-            }
-
-            return new BigDecimal(cleaned);
-        } catch (NumberFormatException e) {
+            return Money.parse(priceText, null);
+        } catch (NumberFormatException | ArithmeticException e) {
             log.warn("Could not parse price: {}", priceText);
             return null;
         }
@@ -168,6 +179,45 @@ public class FlipkartScraper implements PriceScraper {
                 lowerUrl.contains("fkrt.it"); // Short URL
     }
 
+    @Override
+    public CanonicalUrl canonicalize(String url) {
+        URI uri = toUri(url);
+        if (uri == null || uri.getHost() == null || uri.getRawPath() == null ||
+                !uri.getHost().toLowerCase(Locale.ROOT).endsWith("flipkart.com")) {
+            return null;
+        }
+
+        Matcher item = ITEM_PATH.matcher(uri.getRawPath());
+        if (!item.find()) {
+            return null;
+        }
+        String path = item.group(1);
+
+        // The pid names the exact variant; listings without one fall back to the item id
+        Matcher pid = uri.getRawQuery() != null ? PID_PARAM.matcher(uri.getRawQuery()) : null;
+        if (pid != null && pid.find()) {
+            String id = pid.group(1).toUpperCase(Locale.ROOT);
+            return new CanonicalUrl("flipkart:" + id, "https://www.flipkart.com" + path + "?pid=" + id);
+        }
+        return new CanonicalUrl("flipkart:" + item.group(2).toLowerCase(Locale.ROOT),
+                "https://www.flipkart.com" + path);
+    }
+
+    @Override
+    public boolean isShortLink(String url) {
+        URI uri = toUri(url);
+        return uri != null && uri.getHost() != null &&
+                uri.getHost().toLowerCase(Locale.ROOT).startsWith("fkrt.");
+    }
+
+    private URI toUri(String url) {
+        try {
+            return url == null ? null : URI.create(url.trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     @Override
     public String getSiteName() {
         return "Flipkart";
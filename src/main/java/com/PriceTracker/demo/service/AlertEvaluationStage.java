@@ -0,0 +1,219 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.AlertCooldown;
+import com.PriceTracker.demo.dto.PriceChange;
+import com.PriceTracker.demo.models.Alert;
+import com.PriceTracker.demo.models.PendingPriceChange;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.PendingPriceChangeRepo;
+import com.PriceTracker.demo.repositories.PriceChangeBatchRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Batch stage that turns recorded price changes into alerts.
+ * Price updates only queue their change, in the pending_price_changes table
+ * and in the transaction writing the price; a flush claims and evaluates a
+ * whole batch, loading its products and rules in one query each, and stores
+ * its alerts in one batched insert in the transaction dropping the batch.
+ * A batch that fails stays queued and is evaluated again once its claim times out.
+ * Alerts already stored for the same product, type and recipient within the
+ * cooldown are dropped, so a price flapping around a target alerts once.
+ * Any node may evaluate any product's changes, so each batch reads its
+ * products' last alerts from the database.
+ */
+@Service
+public class AlertEvaluationStage {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertEvaluationStage.class);
+
+    private final AlertService alertService;
+    private final AlertRuleService alertRuleService;
+    private final ProductRepo productRepo;
+    private final PendingPriceChangeRepo pendingPriceChangeRepo;
+    private final PriceChangeBatchRepo priceChangeBatchRepo;
+
+    // When each (product, type, recipient) last had an alert stored, in epoch millis - a cache of the
+    // alerts table, refreshed for each batch's products; only touched while flushing
+    private final Map<CooldownKey, Long> lastAlertedAt = new HashMap<>();
+
+    @Value("${app.alerts.evaluation.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.alerts.cooldown:6h}")
+    private Duration cooldown;
+
+    // How long a claimed batch is hidden from other flushes; a failed batch is retried after it
+    @Value("${app.alerts.evaluation.claim-timeout:1m}")
+    private Duration claimTimeout;
+
+    public AlertEvaluationStage(AlertService alertService, AlertRuleService alertRuleService,
+            ProductRepo productRepo, PendingPriceChangeRepo pendingPriceChangeRepo,
+            PriceChangeBatchRepo priceChangeBatchRepo) {
+        this.alertService = alertService;
+        this.alertRuleService = alertRuleService;
+        this.productRepo = productRepo;
+        this.pendingPriceChangeRepo = pendingPriceChangeRepo;
+        this.priceChangeBatchRepo = priceChangeBatchRepo;
+    }
+
+    /**
+     * Queue a price change for evaluation.
+     * Joins the caller's transaction, so the change is queued only if the price write commits.
+     */
+    public void submit(PriceChange change) {
+        submitAll(List.of(change));
+    }
+
+    /**
+     * Queue price changes for evaluation with one batched insert.
+     */
+    public void submitAll(List<PriceChange> changes) {
+        if (!changes.isEmpty()) {
+            priceChangeBatchRepo.insertAll(changes);
+        }
+    }
+
+    /**
+     * Evaluate all queued changes, a batch at a time.
+     * Also called at the end of each scrape run. Stops at the first batch
+     * that fails; it stays queued for a later flush.
+     */
+    @Scheduled(fixedDelayString = "${app.alerts.evaluation.flush-interval:2s}")
+    public synchronized void flush() {
+        pruneCooldowns(System.currentTimeMillis());
+
+        List<PendingPriceChange> batch;
+        while (!(batch = claimBatch()).isEmpty()) {
+            try {
+                process(batch);
+            } catch (RuntimeException e) {
+                log.error("Failed to evaluate {} price changes, retrying in {}: {}",
+                        batch.size(), claimTimeout, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    public long getPendingCount() {
+        return pendingPriceChangeRepo.count();
+    }
+
+    private List<PendingPriceChange> claimBatch() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Long> ids = pendingPriceChangeRepo.findClaimableIds(now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String claimToken = UUID.randomUUID().toString();
+        pendingPriceChangeRepo.claimForEvaluation(ids, claimToken, now.plus(claimTimeout), now);
+        return pendingPriceChangeRepo.findByIdInAndClaimTokenOrderByIdAsc(ids, claimToken);
+    }
+
+    private void process(List<PendingPriceChange> pending) {
+        long start = System.nanoTime();
+        List<PriceChange> changes = pending.stream().map(AlertEvaluationStage::toPriceChange).toList();
+
+        Set<Long> productIds = new HashSet<>();
+        changes.forEach(c -> productIds.add(c.getProductId()));
+        Map<Long, ProductInfo> products = new HashMap<>();
+        productRepo.findAllById(productIds).forEach(p -> products.put(p.getId(), p));
+
+        Map<Long, AlertRuleIndex> rules = alertRuleService.getIndexes(productIds);
+
+        // Other nodes, or this one before a restart, may have alerted since the cache was filled
+        for (AlertCooldown last : alertService.getCooldowns(productIds, cooldown)) {
+            long at = last.getLastTriggeredAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+            lastAlertedAt.merge(new CooldownKey(last.getProductId(), last.getAlertType(), last.getEmail()),
+                    at, Math::max);
+        }
+
+        List<Alert> alerts = evaluate(changes, products, id -> rules.getOrDefault(id, AlertRuleIndex.EMPTY));
+        alertService.saveEvaluated(alerts, pending.stream().map(PendingPriceChange::getId).toList());
+
+        // Only alerts actually stored start a cooldown
+        long now = System.currentTimeMillis();
+        alerts.forEach(alert -> lastAlertedAt.put(cooldownKey(alert), now));
+
+        log.info("Evaluated {} price changes in {} ms, {} alerts triggered",
+                changes.size(), (System.nanoTime() - start) / 1_000_000, alerts.size());
+    }
+
+    private static PriceChange toPriceChange(PendingPriceChange pending) {
+        return PriceChange.builder()
+                .productId(pending.getProductId())
+                .oldPrice(pending.getOldPrice())
+                .newPrice(pending.getNewPrice())
+                .wasAvailable(pending.getWasAvailable())
+                .available(pending.getAvailable())
+                .previousMinPrice(pending.getPreviousMinPrice())
+                .build();
+    }
+
+    /**
+     * Evaluate a batch of changes and return the alerts to store, minus those
+     * still in cooldown or repeated within the batch. Changes for unknown
+     * (deleted) products are skipped. Cooldowns are left to the caller to
+     * start once the alerts are stored.
+     */
+    List<Alert> evaluate(List<PriceChange> changes, Map<Long, ProductInfo> products,
+            Function<Long, AlertRuleIndex> rules) {
+        long now = System.currentTimeMillis();
+        long cooldownMillis = cooldown.toMillis();
+        List<Alert> candidates = new ArrayList<>();
+        List<Alert> alerts = new ArrayList<>();
+        Set<CooldownKey> alerted = new HashSet<>();
+
+        for (PriceChange change : changes) {
+            ProductInfo product = products.get(change.getProductId());
+            if (product == null) {
+                continue;
+            }
+
+            candidates.clear();
+            alertService.evaluate(product, change, rules.apply(product.getId()), candidates);
+
+            for (Alert alert : candidates) {
+                CooldownKey key = cooldownKey(alert);
+                Long last = lastAlertedAt.get(key);
+                if ((last != null && now - last < cooldownMillis) || !alerted.add(key)) {
+                    log.debug("Skipping {} alert for product {} to {} - in cooldown",
+                            alert.getAlertType(), product.getId(), alert.getEmail());
+                    continue;
+                }
+                alerts.add(alert);
+            }
+        }
+        return alerts;
+    }
+
+    private void pruneCooldowns(long now) {
+        long cooldownMillis = cooldown.toMillis();
+        lastAlertedAt.values().removeIf(last -> now - last >= cooldownMillis);
+    }
+
+    private static CooldownKey cooldownKey(Alert alert) {
+        return new CooldownKey(alert.getProduct().getId(), alert.getAlertType(), alert.getEmail());
+    }
+
+    private record CooldownKey(Long productId, String alertType, String email) {
+    }
+}
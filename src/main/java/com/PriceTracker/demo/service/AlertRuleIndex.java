@@ -0,0 +1,110 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.models.AlertRule;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Immutable index of one product's active alert rules.
+ * Price rules are kept sorted by threshold, so a price change only visits the
+ * rules it actually crossed: O(log n + k) for n rules and k matches.
+ */
+public final class AlertRuleIndex {
+
+    static final AlertRuleIndex EMPTY = of(List.of());
+
+    private final NavigableMap<BigDecimal, List<AlertRule>> byTargetPrice;
+    private final NavigableMap<BigDecimal, List<AlertRule>> byDropPercent;
+    private final List<AlertRule> allTimeLow;
+    private final List<AlertRule> backInStock;
+    private final int size;
+
+    private AlertRuleIndex(NavigableMap<BigDecimal, List<AlertRule>> byTargetPrice,
+            NavigableMap<BigDecimal, List<AlertRule>> byDropPercent,
+            List<AlertRule> allTimeLow, List<AlertRule> backInStock, int size) {
+        this.byTargetPrice = byTargetPrice;
+        this.byDropPercent = byDropPercent;
+        this.allTimeLow = allTimeLow;
+        this.backInStock = backInStock;
+        this.size = size;
+    }
+
+    /**
+     * Build an index from a product's active rules.
+     */
+    public static AlertRuleIndex of(Collection<AlertRule> rules) {
+        TreeMap<BigDecimal, List<AlertRule>> byTargetPrice = new TreeMap<>();
+        TreeMap<BigDecimal, List<AlertRule>> byDropPercent = new TreeMap<>();
+        List<AlertRule> allTimeLow = new ArrayList<>();
+        List<AlertRule> backInStock = new ArrayList<>();
+
+        for (AlertRule rule : rules) {
+            switch (rule.getRuleType()) {
+                case "TARGET_PRICE" -> byTargetPrice.computeIfAbsent(rule.getThreshold(), t -> new ArrayList<>()).add(rule);
+                case "PERCENT_DROP" -> byDropPercent.computeIfAbsent(rule.getThreshold(), t -> new ArrayList<>()).add(rule);
+                case "ALL_TIME_LOW" -> allTimeLow.add(rule);
+                case "BACK_IN_STOCK" -> backInStock.add(rule);
+                default -> throw new IllegalArgumentException("Unknown rule type: " + rule.getRuleType());
+            }
+        }
+
+        return new AlertRuleIndex(byTargetPrice, byDropPercent,
+                Collections.unmodifiableList(allTimeLow), Collections.unmodifiableList(backInStock), rules.size());
+    }
+
+    /**
+     * Target price rules crossed by a drop from oldPrice to newPrice:
+     * targets t with newPrice <= t < oldPrice.
+     */
+    public List<AlertRule> targetsCrossed(BigDecimal oldPrice, BigDecimal newPrice) {
+        if (oldPrice == null || newPrice.compareTo(oldPrice) >= 0) {
+            return List.of();
+        }
+        return flatten(byTargetPrice.subMap(newPrice, true, oldPrice, false).values());
+    }
+
+    /**
+     * Percentage drop rules whose threshold is at or below the given drop.
+     */
+    public List<AlertRule> dropsReached(BigDecimal dropPercent) {
+        if (dropPercent.signum() <= 0) {
+            return List.of();
+        }
+        return flatten(byDropPercent.headMap(dropPercent, true).values());
+    }
+
+    public List<AlertRule> getAllTimeLowRules() {
+        return allTimeLow;
+    }
+
+    public List<AlertRule> getBackInStockRules() {
+        return backInStock;
+    }
+
+    public boolean hasDropRules() {
+        return !byDropPercent.isEmpty();
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private static List<AlertRule> flatten(Collection<List<AlertRule>> buckets) {
+        if (buckets.isEmpty()) {
+            return List.of();
+        }
+        List<AlertRule> rules = new ArrayList<>();
+        buckets.forEach(rules::addAll);
+        return rules;
+    }
+}
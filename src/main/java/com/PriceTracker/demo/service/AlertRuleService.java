@@ -0,0 +1,153 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.AlertRuleRequest;
+import com.PriceTracker.demo.exception.AlertRuleNotFoundException;
+import com.PriceTracker.demo.exception.ProductNotFoundException;
+import com.PriceTracker.demo.models.AlertRule;
+import com.PriceTracker.demo.repositories.AlertRuleRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for managing subscriber alert rules.
+ * Keeps a per-product AlertRuleIndex in memory so evaluating a price change
+ * does not load rules from the database. Local changes invalidate the index
+ * immediately; entries also expire so rules added on other nodes are seen.
+ */
+@Service
+@Transactional
+public class AlertRuleService {
+
+    private static final Logger log = LoggerFactory.getLogger(AlertRuleService.class);
+
+    private final AlertRuleRepo alertRuleRepo;
+    private final ProductRepo productRepo;
+
+    private final Map<Long, CachedIndex> indexes = new ConcurrentHashMap<>();
+
+    @Value("${app.alerts.rules.cache-ttl:5m}")
+    private Duration cacheTtl;
+
+    public AlertRuleService(AlertRuleRepo alertRuleRepo, ProductRepo productRepo) {
+        this.alertRuleRepo = alertRuleRepo;
+        this.productRepo = productRepo;
+    }
+
+    /**
+     * Add an alert rule for a product.
+     */
+    public AlertRule addRule(AlertRuleRequest request) {
+        if (!productRepo.existsById(request.getProductId())) {
+            throw new ProductNotFoundException(request.getProductId());
+        }
+        boolean needsThreshold = "TARGET_PRICE".equals(request.getRuleType()) ||
+                "PERCENT_DROP".equals(request.getRuleType());
+        if (needsThreshold && request.getThreshold() == null) {
+            throw new IllegalArgumentException("Threshold is required for " + request.getRuleType() + " rules");
+        }
+
+        AlertRule rule = new AlertRule();
+        rule.setProductId(request.getProductId());
+        rule.setEmail(request.getEmail().trim());
+        rule.setRuleType(request.getRuleType());
+        rule.setThreshold(needsThreshold ? request.getThreshold() : null);
+        rule.setActive(true);
+
+        AlertRule saved = alertRuleRepo.save(rule);
+        indexes.remove(saved.getProductId());
+        log.info("Added {} rule for product {} ({})", saved.getRuleType(), saved.getProductId(), saved.getEmail());
+        return saved;
+    }
+
+    /**
+     * Get all rules for a product.
+     */
+    @Transactional(readOnly = true)
+    public List<AlertRule> getRules(Long productId) {
+        return alertRuleRepo.findByProductId(productId);
+    }
+
+    /**
+     * Delete an alert rule.
+     */
+    public void deleteRule(Long id) {
+        AlertRule rule = alertRuleRepo.findById(id)
+                .orElseThrow(() -> new AlertRuleNotFoundException(id));
+        alertRuleRepo.delete(rule);
+        indexes.remove(rule.getProductId());
+    }
+
+    /**
+     * Delete all rules of a product.
+     */
+    public void deleteRulesForProduct(Long productId) {
+        alertRuleRepo.deleteByProductId(productId);
+        indexes.remove(productId);
+    }
+
+    /**
+     * Get the rule index for a product, loading it if missing or expired.
+     */
+    @Transactional(readOnly = true)
+    public AlertRuleIndex getIndex(Long productId) {
+        long now = System.nanoTime();
+        CachedIndex cached = indexes.get(productId);
+        if (cached != null && now - cached.loadedAt() < cacheTtl.toNanos()) {
+            return cached.index();
+        }
+
+        List<AlertRule> rules = alertRuleRepo.findByProductIdAndActiveTrue(productId);
+        AlertRuleIndex index = rules.isEmpty() ? AlertRuleIndex.EMPTY : AlertRuleIndex.of(rules);
+        indexes.put(productId, new CachedIndex(index, now));
+        return index;
+    }
+
+    /**
+     * Get the rule indexes for several products, loading all missing or
+     * expired ones with a single query.
+     */
+    @Transactional(readOnly = true)
+    public Map<Long, AlertRuleIndex> getIndexes(Collection<Long> productIds) {
+        long now = System.nanoTime();
+        Map<Long, AlertRuleIndex> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            CachedIndex cached = indexes.get(productId);
+            if (cached != null && now - cached.loadedAt() < cacheTtl.toNanos()) {
+                result.put(productId, cached.index());
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, List<AlertRule>> rulesByProduct = new HashMap<>();
+        for (AlertRule rule : alertRuleRepo.findByProductIdInAndActiveTrue(missing)) {
+            rulesByProduct.computeIfAbsent(rule.getProductId(), id -> new ArrayList<>()).add(rule);
+        }
+        for (Long productId : missing) {
+            List<AlertRule> rules = rulesByProduct.get(productId);
+            AlertRuleIndex index = rules == null ? AlertRuleIndex.EMPTY : AlertRuleIndex.of(rules);
+            indexes.put(productId, new CachedIndex(index, now));
+            result.put(productId, index);
+        }
+        return result;
+    }
+
+    private record CachedIndex(AlertRuleIndex index, long loadedAt) {
+    }
+}
@@ -1,17 +1,34 @@
 package com.PriceTracker.demo.service;
 
+import com.PriceTracker.demo.dto.AlertCooldown;
+import com.PriceTracker.demo.dto.AlertEvent;
+import com.PriceTracker.demo.dto.AlertResponse;
+import com.PriceTracker.demo.dto.PriceChange;
 import com.PriceTracker.demo.models.Alert;
+import com.PriceTracker.demo.models.AlertRule;
 import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.AlertBatchRepo;
 import com.PriceTracker.demo.repositories.AlertRepo;
+import com.PriceTracker.demo.repositories.PendingPriceChangeRepo;
+import com.PriceTracker.demo.util.Money;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 /**
  * Service for managing price alerts.
@@ -24,124 +41,240 @@ public class AlertService {
     private static final Logger log = LoggerFactory.getLogger(AlertService.class);
 
     // Threshold for significant price drop (percentage)
-    private static final BigDecimal SIGNIFICANT_DROP_THRESHOLD = new BigDecimal("5");
+    private static final int SIGNIFICANT_DROP_PERCENT = 5;
+
+    // Upper bound for the delay between delivery retries
+    private static final Duration MAX_BACKOFF = Duration.ofHours(6);
 
     private final AlertRepo alertRepo;
-    private final EmailService emailService;
+    private final AlertBatchRepo alertBatchRepo;
+    private final PriceEventBroadcaster eventBroadcaster;
+    private final PendingPriceChangeRepo pendingPriceChangeRepo;
+
+    @Value("${app.alerts.retry-backoff:1m}")
+    private Duration retryBackoff;
+
+    @Value("${app.alerts.max-attempts:8}")
+    private int maxDeliveryAttempts;
+
+    @Value("${app.alerts.digest.enabled:false}")
+    private boolean digestEnabled;
 
-    public AlertService(AlertRepo alertRepo, EmailService emailService) {
+    @Value("${app.alerts.digest.window:15m}")
+    private Duration digestWindow;
+
+    public AlertService(AlertRepo alertRepo, AlertBatchRepo alertBatchRepo,
+            PriceEventBroadcaster eventBroadcaster, PendingPriceChangeRepo pendingPriceChangeRepo) {
         this.alertRepo = alertRepo;
-        this.emailService = emailService;
+        this.alertBatchRepo = alertBatchRepo;
+        this.eventBroadcaster = eventBroadcaster;
+        this.pendingPriceChangeRepo = pendingPriceChangeRepo;
     }
 
     /**
-     * Check price changes and trigger alerts if conditions are met.
+     * Evaluate one price change against the product's own alert settings and
+     * its subscriber rules, adding the alerts it triggers to the given list.
+     * Nothing is saved here; AlertEvaluationStage stores alerts in batches.
      */
-    public void checkAndTriggerAlerts(ProductInfo product, BigDecimal newPrice, BigDecimal oldPrice) {
-        // Skip if no email configured for this product
-        if (product.getAlertEmail() == null || product.getAlertEmail().isEmpty()) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void evaluate(ProductInfo product, PriceChange change, AlertRuleIndex rules, List<Alert> triggered) {
+        BigDecimal oldPrice = change.getOldPrice();
+        BigDecimal newPrice = change.getNewPrice();
+        Money oldAmount = Money.ofNullable(oldPrice, null);
+        Money newAmount = Money.of(newPrice, null);
+        boolean backInStock = Boolean.FALSE.equals(change.getWasAvailable()) &&
+                Boolean.TRUE.equals(change.getAvailable());
+
+        // Most scrapes see an unchanged or higher price, which can only matter for back in stock rules
+        if ((oldAmount == null || newAmount.compareTo(oldAmount) >= 0) && !backInStock) {
             return;
         }
 
-        // Check if target price is reached
-        if (product.getTargetPrice() != null &&
-                newPrice.compareTo(product.getTargetPrice()) <= 0 &&
-                (oldPrice == null || oldPrice.compareTo(product.getTargetPrice()) > 0)) {
+        String alertEmail = product.getAlertEmail();
+        if (oldPrice != null && alertEmail != null && !alertEmail.isEmpty()) {
+            // Check if target price is reached
+            BigDecimal target = product.getTargetPrice();
+            if (target != null && newPrice.compareTo(target) <= 0 && oldPrice.compareTo(target) > 0) {
+                Alert alert = newAlert(product, "TARGET_REACHED", change, alertEmail);
+                alert.setTargetPrice(target);
+                triggered.add(alert);
+            }
 
-            triggerTargetPriceAlert(product, newPrice, oldPrice);
+            // Check for significant price drop
+            if (oldAmount.isPositive() && oldAmount.dropsByAtLeast(newAmount, SIGNIFICANT_DROP_PERCENT)) {
+                Alert alert = newAlert(product, "PRICE_DROP", change, alertEmail);
+                alert.setPercentageChange(dropBasisPoints(oldAmount, newAmount) / 100.0);
+                triggered.add(alert);
+            }
         }
 
-        // Check for significant price drop
-        if (oldPrice != null && oldPrice.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal dropPercent = calculateDropPercent(oldPrice, newPrice);
+        if (rules.isEmpty()) {
+            return;
+        }
+
+        for (AlertRule rule : rules.targetsCrossed(oldPrice, newPrice)) {
+            Alert alert = newAlert(product, "TARGET_REACHED", change, rule.getEmail());
+            alert.setRuleId(rule.getId());
+            alert.setTargetPrice(rule.getThreshold());
+            triggered.add(alert);
+        }
+
+        if (rules.hasDropRules() && oldAmount != null && oldAmount.isPositive()) {
+            long dropBasisPoints = dropBasisPoints(oldAmount, newAmount);
+            for (AlertRule rule : rules.dropsReached(Money.basisPointsToPercent(dropBasisPoints))) {
+                Alert alert = newAlert(product, "PRICE_DROP", change, rule.getEmail());
+                alert.setRuleId(rule.getId());
+                alert.setPercentageChange(dropBasisPoints / 100.0);
+                triggered.add(alert);
+            }
+        }
 
-            if (dropPercent.compareTo(SIGNIFICANT_DROP_THRESHOLD) >= 0) {
-                triggerPriceDropAlert(product, newPrice, oldPrice, dropPercent.doubleValue());
+        if (change.getPreviousMinPrice() != null && newPrice.compareTo(change.getPreviousMinPrice()) < 0) {
+            for (AlertRule rule : rules.getAllTimeLowRules()) {
+                Alert alert = newAlert(product, "ALL_TIME_LOW", change, rule.getEmail());
+                alert.setRuleId(rule.getId());
+                triggered.add(alert);
+            }
+        }
+
+        if (backInStock) {
+            for (AlertRule rule : rules.getBackInStockRules()) {
+                Alert alert = newAlert(product, "BACK_IN_STOCK", change, rule.getEmail());
+                alert.setRuleId(rule.getId());
+                triggered.add(alert);
             }
         }
     }
 
     /**
-     * Calculate the percentage drop from old to new price.
-     * Returns positive value if price dropped, negative if increased.
+     * Get when each (product, type, recipient) of the given products last
+     * alerted within the cooldown, from the alerts every node has stored.
      */
-    private BigDecimal calculateDropPercent(BigDecimal oldPrice, BigDecimal newPrice) {
-        if (oldPrice.compareTo(BigDecimal.ZERO) == 0) {
-            return BigDecimal.ZERO;
-        }
+    @Transactional(readOnly = true)
+    public List<AlertCooldown> getCooldowns(Collection<Long> productIds, Duration cooldown) {
+        return alertRepo.findCooldownsSince(productIds, LocalDateTime.now().minus(cooldown));
+    }
 
-        return oldPrice.subtract(newPrice)
-                .divide(oldPrice, 4, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100));
+    /**
+     * Store the alerts a batch of pending price changes triggered and drop the
+     * changes from the evaluation queue in one transaction, so a failure in
+     * between leaves the changes to be evaluated again.
+     */
+    public void saveEvaluated(List<Alert> alerts, Collection<Long> changeIds) {
+        if (!alerts.isEmpty()) {
+            saveTriggered(alerts);
+        }
+        pendingPriceChangeRepo.deleteByIdIn(changeIds);
     }
 
     /**
-     * Trigger alert when target price is reached.
+     * Store triggered alerts in the outbox with one batched insert.
+     * AlertDispatchJob sends the emails.
      */
-    private void triggerTargetPriceAlert(ProductInfo product, BigDecimal newPrice, BigDecimal oldPrice) {
-        log.info("Target price reached for {}: {} (target: {})",
-                product.getName(), newPrice, product.getTargetPrice());
+    public void saveTriggered(List<Alert> alerts) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, LocalDateTime> attemptAtByEmail = new HashMap<>();
+        for (Alert alert : alerts) {
+            alert.setTriggeredAt(now);
+            alert.setNextAttemptAt(attemptAtByEmail.computeIfAbsent(alert.getEmail(), this::firstAttemptAt));
+        }
+        alertBatchRepo.insertAll(alerts);
 
+        long at = System.currentTimeMillis();
+        eventBroadcaster.publishAlerts(alerts.stream()
+                .map(alert -> new AlertEvent(alert.getProduct().getId(), alert.getAlertType(),
+                        alert.getTriggerPrice(), alert.getPercentageChange(), at))
+                .toList());
+    }
+
+    private Alert newAlert(ProductInfo product, String alertType, PriceChange change, String email) {
         Alert alert = new Alert();
         alert.setProduct(product);
-        alert.setAlertType("TARGET_REACHED");
-        alert.setTriggerPrice(newPrice);
-        alert.setPreviousPrice(oldPrice);
-        alert.setEmail(product.getAlertEmail());
+        alert.setAlertType(alertType);
+        alert.setTriggerPrice(change.getNewPrice());
+        alert.setPreviousPrice(change.getOldPrice());
+        alert.setEmail(email);
         alert.setNotified(false);
+        return alert;
+    }
 
-        alertRepo.save(alert);
-
-        // Send email notification
-        try {
-            emailService.sendTargetPriceAlert(
-                    product.getAlertEmail(),
-                    product,
-                    newPrice);
-
-            alert.setNotified(true);
-            alert.setNotifiedAt(LocalDateTime.now());
-            alertRepo.save(alert);
+    /**
+     * Calculate the drop from old to new price in basis points, rounded half up.
+     * Returns positive value if price dropped, negative if increased.
+     */
+    private static long dropBasisPoints(Money oldPrice, Money newPrice) {
+        return -oldPrice.changeBasisPointsTo(newPrice);
+    }
 
-        } catch (Exception e) {
-            log.error("Failed to send target price alert email for product {}", product.getName(), e);
+    /**
+     * When a new alert should first be sent.
+     * In digest mode it joins the recipient's open digest, or opens one that
+     * is sent when the digest window has passed.
+     */
+    private LocalDateTime firstAttemptAt(String email) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!digestEnabled) {
+            return now;
         }
+        return alertRepo.findOpenDigestSendTime(email, now)
+                .orElse(now.plus(digestWindow));
+    }
+
+    public boolean isDigestEnabled() {
+        return digestEnabled;
     }
 
     /**
-     * Trigger alert for significant price drop.
+     * Claim a batch of unsent alerts that are due for delivery.
+     * Claimed alerts are hidden from other dispatchers until the claim times out.
      */
-    private void triggerPriceDropAlert(ProductInfo product, BigDecimal newPrice,
-            BigDecimal oldPrice, Double percentDrop) {
-        log.info("Significant price drop for {}: {} -> {} ({:.1f}% drop)",
-                product.getName(), oldPrice, newPrice, percentDrop);
-
-        Alert alert = new Alert();
-        alert.setProduct(product);
-        alert.setAlertType("PRICE_DROP");
-        alert.setTriggerPrice(newPrice);
-        alert.setPreviousPrice(oldPrice);
-        alert.setPercentageChange(percentDrop);
-        alert.setEmail(product.getAlertEmail());
-        alert.setNotified(false);
+    public List<Alert> claimDueAlerts(int batchSize, Duration claimTimeout) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Long> ids = alertRepo.findDueForDelivery(now, PageRequest.of(0, batchSize));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
 
-        alertRepo.save(alert);
+        // A token per claim, since dispatchers claiming in the same millisecond share claimUntil
+        String claimToken = UUID.randomUUID().toString();
+        alertRepo.claimForDelivery(ids, claimToken, now.plus(claimTimeout), now);
+        return alertRepo.findClaimed(ids, claimToken);
+    }
 
-        // Send email notification
-        try {
-            emailService.sendPriceDropAlert(
-                    product.getAlertEmail(),
-                    product,
-                    newPrice,
-                    oldPrice,
-                    percentDrop);
+    /**
+     * Mark a claimed alert as delivered.
+     * Skipped if the claim timed out and another dispatcher claimed the alert since.
+     */
+    public void markSent(Alert alert) {
+        int updated = alertRepo.markSent(alert.getId(), alert.getClaimToken(), LocalDateTime.now());
+        if (updated == 0) {
+            log.warn("Alert {} was sent after its claim timed out; another dispatcher may send it again",
+                    alert.getId());
+        }
+    }
 
-            alert.setNotified(true);
-            alert.setNotifiedAt(LocalDateTime.now());
-            alertRepo.save(alert);
+    /**
+     * Record a failed delivery of a claimed alert and schedule a retry with
+     * exponential backoff. Gives up after the configured number of attempts.
+     * Skipped if the claim timed out and another dispatcher claimed the alert since.
+     */
+    public void markFailed(Alert alert, String error) {
+        int attempts = alert.getDeliveryAttempts() + 1;
+        LocalDateTime nextAttemptAt = null;
+        if (attempts < maxDeliveryAttempts) {
+            Duration backoff = retryBackoff.multipliedBy(1L << (attempts - 1));
+            if (backoff.compareTo(MAX_BACKOFF) > 0) {
+                backoff = MAX_BACKOFF;
+            }
+            nextAttemptAt = LocalDateTime.now().plus(backoff);
+        }
 
-        } catch (Exception e) {
-            log.error("Failed to send price drop alert email for product {}", product.getName(), e);
+        int updated = alertRepo.markFailed(alert.getId(), alert.getClaimToken(), attempts,
+                error != null && error.length() > 255 ? error.substring(0, 255) : error, nextAttemptAt);
+        if (updated == 0) {
+            log.warn("Failed delivery of alert {} not recorded, its claim timed out", alert.getId());
+        } else if (nextAttemptAt == null) {
+            log.error("Giving up on alert {} after {} attempts: {}", alert.getId(), attempts, error);
         }
     }
 
@@ -149,15 +282,23 @@ public class AlertService {
      * Get all alerts for a product.
      */
     @Transactional(readOnly = true)
-    public List<Alert> getAlertsForProduct(Long productId) {
-        return alertRepo.findByProductIdOrderByTriggeredAtDesc(productId);
+    public List<AlertResponse> getAlertsForProduct(Long productId) {
+        return alertRepo.findResponsesByProductId(productId, Pageable.unpaged());
+    }
+
+    /**
+     * Get the most recent alerts for a product.
+     */
+    @Transactional(readOnly = true)
+    public List<AlertResponse> getRecentAlerts(Long productId, int limit) {
+        return alertRepo.findResponsesByProductId(productId, PageRequest.of(0, limit));
     }
 
     /**
-     * Get all unnotified alerts.
+     * Get a page of unnotified alerts.
      */
     @Transactional(readOnly = true)
-    public List<Alert> getUnnotifiedAlerts() {
-        return alertRepo.findByNotifiedFalse();
+    public List<AlertResponse> getUnnotifiedAlerts(int page, int size) {
+        return alertRepo.findUnnotifiedResponses(PageRequest.of(page, size));
     }
 }
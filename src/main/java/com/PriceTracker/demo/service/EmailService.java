@@ -1,19 +1,27 @@
 package com.PriceTracker.demo.service;
 
+import com.PriceTracker.demo.models.Alert;
 import com.PriceTracker.demo.models.ProductInfo;
+import jakarta.mail.MessagingException;
+import jakarta.mail.internet.MimeMessage;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.MailSendException;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service for sending email notifications.
- * Handles price alert emails.
+ * Handles price alert emails, either one per alert or as per-recipient digests.
  * Note: JavaMailSender is optional - if not configured, emails are logged only.
  */
 @Service
@@ -46,63 +54,136 @@ public class EmailService {
     }
 
     /**
-     * Send email when target price is reached.
+     * A rendered email ready to send.
      */
-    public void sendTargetPriceAlert(String to, ProductInfo product, BigDecimal currentPrice) {
-        String subject = "🎯 Target Price Reached: " + product.getName();
-        String body = buildTargetPriceBody(product, currentPrice);
-
-        if (!emailEnabled || mailSender == null) {
-            log.info("Email (simulated) to {}: {} - {}", to, subject, product.getName());
-            log.debug("Email body:\n{}", body);
-            return;
-        }
+    public record Email(String to, String subject, String body) {
+    }
 
-        sendEmail(to, subject, body);
-        log.info("Sent target price alert to {} for product {}", to, product.getName());
+    /**
+     * Render the email for a single alert.
+     */
+    public Email alertEmail(Alert alert) {
+        ProductInfo product = alert.getProduct();
+        return switch (alert.getAlertType()) {
+            case "PRICE_DROP" -> new Email(alert.getEmail(),
+                    String.format("📉 Price Drop Alert: %s (%.1f%% off!)",
+                            product.getName(), alert.getPercentageChange()),
+                    buildPriceDropBody(product, alert.getTriggerPrice(),
+                            alert.getPreviousPrice(), alert.getPercentageChange()));
+            case "ALL_TIME_LOW" -> new Email(alert.getEmail(),
+                    "🏆 All-Time Low: " + product.getName(),
+                    buildStatusBody(product, alert.getTriggerPrice(),
+                            "The product you're tracking is at its lowest price ever!"));
+            case "BACK_IN_STOCK" -> new Email(alert.getEmail(),
+                    "📦 Back In Stock: " + product.getName(),
+                    buildStatusBody(product, alert.getTriggerPrice(),
+                            "The product you're tracking is available again!"));
+            default -> new Email(alert.getEmail(), "🎯 Target Price Reached: " + product.getName(),
+                    buildTargetPriceBody(product, alert.getTriggerPrice(), targetOf(alert)));
+        };
     }
 
     /**
-     * Send email for significant price drop.
+     * Render one digest email covering several alerts for the same recipient.
      */
-    public void sendPriceDropAlert(String to, ProductInfo product, BigDecimal newPrice,
-            BigDecimal oldPrice, Double percentDrop) {
-        String subject = String.format("📉 Price Drop Alert: %s (%.1f%% off!)",
-                product.getName(), percentDrop);
-        String body = buildPriceDropBody(product, newPrice, oldPrice, percentDrop);
+    public Email digestEmail(String to, List<Alert> alerts) {
+        if (alerts.size() == 1) {
+            return alertEmail(alerts.get(0));
+        }
 
-        if (!emailEnabled || mailSender == null) {
-            log.info("Email (simulated) to {}: {} - {}", to, subject, product.getName());
-            log.debug("Email body:\n{}", body);
-            return;
+        StringBuilder items = new StringBuilder();
+        for (Alert alert : alerts) {
+            ProductInfo product = alert.getProduct();
+            String line = switch (alert.getAlertType()) {
+                case "PRICE_DROP" -> String.format("📉 %s%n   ₹%s → ₹%s (%.1f%% off)",
+                        product.getName(), alert.getPreviousPrice(), alert.getTriggerPrice(),
+                        alert.getPercentageChange());
+                case "ALL_TIME_LOW" -> String.format("🏆 %s%n   All-time low: ₹%s",
+                        product.getName(), alert.getTriggerPrice());
+                case "BACK_IN_STOCK" -> String.format("📦 %s%n   Back in stock at ₹%s",
+                        product.getName(), alert.getTriggerPrice());
+                default -> String.format("🎯 %s%n   Now ₹%s (target ₹%s)",
+                        product.getName(), alert.getTriggerPrice(), targetOf(alert));
+            };
+            items.append(line).append(String.format("%n   🔗 %s%n%n", product.getProductUrl()));
         }
 
-        sendEmail(to, subject, body);
-        log.info("Sent price drop alert to {} for product {}", to, product.getName());
+        String subject = String.format("📬 PricePulse: %d price alerts for your tracked products", alerts.size());
+        String body = String.format("""
+                Here's what changed on the products you're tracking:
+
+                %s---
+                PricePulse - Your Price Tracking Assistant
+                """, items);
+        return new Email(to, subject, body);
     }
 
     /**
-     * Send a simple email.
+     * Send a batch of emails over a single SMTP connection.
+     *
+     * @return Failures keyed by the index of the email in the batch; empty if all were sent
      */
-    private void sendEmail(String to, String subject, String body) {
-        try {
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setFrom(fromEmail);
-            message.setTo(to);
-            message.setSubject(subject);
-            message.setText(body);
+    public Map<Integer, Exception> sendAll(List<Email> emails) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        if (emails.isEmpty()) {
+            return failures;
+        }
+
+        if (!emailEnabled || mailSender == null) {
+            for (Email email : emails) {
+                log.info("Email (simulated) to {}: {}", email.to(), email.subject());
+                log.debug("Email body:\n{}", email.body());
+            }
+            return failures;
+        }
+
+        List<MimeMessage> messages = new ArrayList<>(emails.size());
+        Map<MimeMessage, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < emails.size(); i++) {
+            try {
+                MimeMessage message = toMimeMessage(emails.get(i));
+                indexes.put(message, i);
+                messages.add(message);
+            } catch (MessagingException e) {
+                failures.put(i, e);
+            }
+        }
 
-            mailSender.send(message);
+        try {
+            // JavaMailSender sends all messages through one connected transport
+            mailSender.send(messages.toArray(new MimeMessage[0]));
+        } catch (MailSendException e) {
+            if (e.getFailedMessages().isEmpty()) {
+                messages.forEach(message -> failures.put(indexes.get(message), e));
+            }
+            e.getFailedMessages().forEach((message, cause) -> failures.put(indexes.get(message), cause));
         } catch (Exception e) {
-            log.error("Failed to send email to {}: {}", to, e.getMessage());
-            throw e;
+            log.error("Failed to send {} emails: {}", messages.size(), e.getMessage());
+            messages.forEach(message -> failures.put(indexes.get(message), e));
         }
+
+        log.info("Sent {} of {} alert emails", emails.size() - failures.size(), emails.size());
+        return failures;
+    }
+
+    private MimeMessage toMimeMessage(Email email) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, "UTF-8");
+        helper.setFrom(fromEmail);
+        helper.setTo(email.to());
+        helper.setSubject(email.subject());
+        helper.setText(email.body());
+        return message;
+    }
+
+    private BigDecimal targetOf(Alert alert) {
+        return alert.getTargetPrice() != null ? alert.getTargetPrice() : alert.getProduct().getTargetPrice();
     }
 
     /**
      * Build email body for target price alert.
      */
-    private String buildTargetPriceBody(ProductInfo product, BigDecimal currentPrice) {
+    private String buildTargetPriceBody(ProductInfo product, BigDecimal currentPrice, BigDecimal targetPrice) {
         return String.format("""
                 Great news! 🎉
 
@@ -124,7 +205,33 @@ public class EmailService {
                 product.getName(),
                 product.getSourceSite(),
                 currentPrice,
-                product.getTargetPrice(),
+                targetPrice,
+                product.getProductUrl());
+    }
+
+    /**
+     * Build email body for all-time low and back in stock alerts.
+     */
+    private String buildStatusBody(ProductInfo product, BigDecimal currentPrice, String headline) {
+        return String.format("""
+                Good news! 🎉
+
+                %s
+
+                📦 Product: %s
+                🏪 Store: %s
+
+                💰 Current Price: ₹%s
+
+                🔗 Buy Now: %s
+
+                ---
+                PricePulse - Your Price Tracking Assistant
+                """,
+                headline,
+                product.getName(),
+                product.getSourceSite(),
+                currentPrice,
                 product.getProductUrl());
     }
 
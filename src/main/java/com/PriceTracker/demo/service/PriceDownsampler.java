@@ -0,0 +1,107 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.PricePoint;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reduces a price series to at most a given number of points while keeping
+ * its shape. The first and last points are always kept; the points between
+ * are split into equal-count buckets and each bucket keeps its lowest and
+ * highest price, in time order. Every price extreme therefore survives,
+ * which plain averaging or Largest-Triangle-Three-Buckets does not promise.
+ * Points are fed one at a time, so only the current bucket's two candidates
+ * are held while a series is streamed from the database.
+ */
+class PriceDownsampler {
+
+    // Smallest useful budget: first, last and one bucket's min and max
+    static final int MIN_POINTS = 4;
+
+    private final long count;
+    private final int buckets;
+    private final boolean passThrough;
+    private final List<PricePoint> result;
+
+    private PricePoint held;
+    private long index;
+    private long bucket = -1;
+    private PricePoint bucketMin;
+    private PricePoint bucketMax;
+
+    /**
+     * @param count     Expected number of points; a few more or fewer are tolerated
+     * @param maxPoints Largest number of points to return
+     */
+    PriceDownsampler(long count, int maxPoints) {
+        if (maxPoints < MIN_POINTS) {
+            throw new IllegalArgumentException("maxPoints must be at least " + MIN_POINTS);
+        }
+        this.count = count;
+        this.passThrough = count <= maxPoints;
+        this.buckets = (maxPoints - 2) / 2;
+        this.result = new ArrayList<>((int) Math.min(count, maxPoints));
+    }
+
+    /**
+     * Add the next point of the series, in time order.
+     * Each point is held back until the next one arrives, so the last point
+     * is known without trusting the expected count.
+     */
+    void accept(PricePoint point) {
+        if (held != null) {
+            place(held, index++);
+        }
+        held = point;
+    }
+
+    /**
+     * The downsampled series, in time order.
+     */
+    List<PricePoint> result() {
+        flushBucket();
+        if (held != null) {
+            result.add(held);
+            held = null;
+        }
+        return result;
+    }
+
+    private void place(PricePoint point, long i) {
+        if (passThrough || i == 0) {
+            result.add(point);
+            return;
+        }
+
+        long interior = Math.max(1, count - 2);
+        long b = Math.min(buckets - 1, (i - 1) * buckets / interior);
+        if (b != bucket) {
+            flushBucket();
+            bucket = b;
+        }
+        if (bucketMin == null || point.getPrice().compareTo(bucketMin.getPrice()) < 0) {
+            bucketMin = point;
+        }
+        if (bucketMax == null || point.getPrice().compareTo(bucketMax.getPrice()) > 0) {
+            bucketMax = point;
+        }
+    }
+
+    private void flushBucket() {
+        if (bucketMin == null) {
+            return;
+        }
+        if (bucketMin == bucketMax) {
+            result.add(bucketMin);
+        } else if (bucketMin.getScrapedAt().isAfter(bucketMax.getScrapedAt())) {
+            result.add(bucketMax);
+            result.add(bucketMin);
+        } else {
+            result.add(bucketMin);
+            result.add(bucketMax);
+        }
+        bucketMin = null;
+        bucketMax = null;
+    }
+}
@@ -0,0 +1,339 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.AlertEvent;
+import com.PriceTracker.demo.dto.PriceEvent;
+import com.PriceTracker.demo.exception.EventStreamLimitException;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes price and alert events to Server-Sent Events subscribers.
+ * An idle stream holds no thread, only its emitter and a small buffer.
+ * Each subscriber buffers at most one pending price per product (newer
+ * prices replace older ones) and a bounded number of alerts (the oldest are
+ * dropped), so a slow client never makes memory grow. Buffers are drained
+ * by a small sender pool, one drain per subscriber at a time; a write that
+ * blocks longer than the write timeout drops its stream, so a stalled client
+ * cannot hold a sender thread and delay every other stream.
+ */
+@Service
+public class PriceEventBroadcaster {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceEventBroadcaster.class);
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService sender;
+    private final int maxConnections;
+    private final int bufferSize;
+    private final long writeTimeoutNanos;
+
+    // One permit per open stream, taken before the stream is added
+    private final Semaphore connections;
+
+    public PriceEventBroadcaster(@Value("${app.events.max-connections:10000}") int maxConnections,
+            @Value("${app.events.buffer-size:100}") int bufferSize,
+            @Value("${app.events.sender-threads:2}") int senderThreads,
+            @Value("${app.events.write-timeout:5s}") Duration writeTimeout) {
+        this.maxConnections = maxConnections;
+        this.bufferSize = bufferSize;
+        this.writeTimeoutNanos = writeTimeout.toNanos();
+        this.connections = new Semaphore(maxConnections);
+        AtomicInteger counter = new AtomicInteger();
+        this.sender = Executors.newFixedThreadPool(senderThreads, runnable -> {
+            Thread thread = new Thread(runnable, "sse-sender-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Open an event stream.
+     *
+     * @param productIds Products to receive events for; empty for all products
+     */
+    public SseEmitter subscribe(Collection<Long> productIds) {
+        if (!connections.tryAcquire()) {
+            throw new EventStreamLimitException(maxConnections);
+        }
+
+        // No timeout - heartbeats detect dead connections instead
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter, Set.copyOf(productIds));
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onTimeout(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        subscribers.add(subscriber);
+
+        // Send a first heartbeat so the client sees the stream is open
+        subscriber.heartbeat();
+        log.debug("Opened event stream for products {} ({} open)", productIds, subscribers.size());
+        return emitter;
+    }
+
+    /**
+     * Publish a new price. Inside a transaction it is published after commit.
+     */
+    public void publishPrice(PriceEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.wants(event.getProductId())) {
+                    subscriber.offerPrice(event);
+                }
+            }
+        });
+    }
+
+    /**
+     * Publish triggered alerts. Inside a transaction they are published after commit.
+     */
+    public void publishAlerts(List<AlertEvent> events) {
+        if (events.isEmpty() || subscribers.isEmpty()) {
+            return;
+        }
+        afterCommit(() -> {
+            for (Subscriber subscriber : subscribers) {
+                for (AlertEvent event : events) {
+                    if (subscriber.wants(event.getProductId())) {
+                        subscriber.offerAlert(event);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Send a heartbeat to every stream, dropping those that can no longer be written.
+     */
+    @Scheduled(fixedDelayString = "${app.events.heartbeat-interval:15s}")
+    public void sendHeartbeats() {
+        subscribers.forEach(Subscriber::heartbeat);
+    }
+
+    /**
+     * Drop streams whose current write has blocked longer than the write timeout.
+     * Completing the emitter closes the connection, which fails the blocked write.
+     */
+    @Scheduled(fixedDelayString = "${app.events.write-check-interval:1s}")
+    public void dropStalledStreams() {
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.stalledSince(now) > writeTimeoutNanos) {
+                log.warn("Dropping event stream stalled on a write for over {} ms",
+                        writeTimeoutNanos / 1_000_000);
+                subscriber.abort();
+            }
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        sender.shutdownNow();
+    }
+
+    private void remove(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            connections.release();
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * One open stream with its pending events.
+     */
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final Set<Long> productIds;
+
+        // Guarded by this
+        final Map<Long, PriceEvent> prices = new LinkedHashMap<>();
+        final Deque<AlertEvent> alerts = new ArrayDeque<>();
+        boolean heartbeatDue;
+        int dropped;
+
+        final AtomicBoolean draining = new AtomicBoolean(false);
+
+        // When the write in progress started, or 0 between writes
+        volatile long writingSince;
+
+        // Sender thread inside drain, and whether it was interrupted to abort - guarded by writeLock
+        final Object writeLock = new Object();
+        Thread writer;
+        boolean aborted;
+
+        Subscriber(SseEmitter emitter, Set<Long> productIds) {
+            this.emitter = emitter;
+            this.productIds = productIds;
+        }
+
+        boolean wants(Long productId) {
+            return productIds.isEmpty() || productIds.contains(productId);
+        }
+
+        void offerPrice(PriceEvent event) {
+            synchronized (this) {
+                // Replaces a still pending price of the same product
+                if (prices.size() >= bufferSize && !prices.containsKey(event.getProductId())) {
+                    dropped++;
+                } else {
+                    prices.put(event.getProductId(), event);
+                }
+            }
+            scheduleDrain();
+        }
+
+        void offerAlert(AlertEvent event) {
+            synchronized (this) {
+                if (alerts.size() >= bufferSize) {
+                    alerts.pollFirst();
+                    dropped++;
+                }
+                alerts.addLast(event);
+            }
+            scheduleDrain();
+        }
+
+        void heartbeat() {
+            synchronized (this) {
+                heartbeatDue = true;
+            }
+            scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (draining.compareAndSet(false, true)) {
+                try {
+                    sender.execute(this::drain);
+                } catch (RuntimeException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            synchronized (writeLock) {
+                if (aborted) {
+                    draining.set(false);
+                    return;
+                }
+                writer = Thread.currentThread();
+            }
+            try {
+                List<SseEmitter.SseEventBuilder> batch;
+                while (!(batch = takePending()).isEmpty()) {
+                    for (SseEmitter.SseEventBuilder event : batch) {
+                        writingSince = System.nanoTime();
+                        emitter.send(event);
+                        writingSince = 0;
+                    }
+                }
+            } catch (IOException | IllegalStateException e) {
+                // Client went away - the emitter callbacks may not fire for a write failure
+                remove(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                writingSince = 0;
+                synchronized (writeLock) {
+                    writer = null;
+                    if (aborted) {
+                        Thread.interrupted(); // Don't pass an abort on to the pool's next task
+                    }
+                }
+                draining.set(false);
+            }
+            // An event may have arrived after the last take but before the flag was cleared
+            if (hasPending()) {
+                scheduleDrain();
+            }
+        }
+
+        private synchronized List<SseEmitter.SseEventBuilder> takePending() {
+            List<SseEmitter.SseEventBuilder> batch = new ArrayList<>(prices.size() + alerts.size() + 1);
+            if (dropped > 0) {
+                batch.add(SseEmitter.event().name("dropped").data(dropped));
+                dropped = 0;
+            }
+            for (PriceEvent event : prices.values()) {
+                batch.add(SseEmitter.event().name("price").data(event, MediaType.APPLICATION_JSON));
+            }
+            for (AlertEvent event : alerts) {
+                batch.add(SseEmitter.event().name("alert").data(event, MediaType.APPLICATION_JSON));
+            }
+            if (heartbeatDue && batch.isEmpty()) {
+                batch.add(SseEmitter.event().comment("heartbeat"));
+            }
+            prices.clear();
+            alerts.clear();
+            heartbeatDue = false;
+            return batch;
+        }
+
+        long stalledSince(long now) {
+            long since = writingSince;
+            return since == 0 ? 0 : now - since;
+        }
+
+        /**
+         * Drop the stream and interrupt a write blocked on it.
+         */
+        void abort() {
+            remove(this);
+            synchronized (writeLock) {
+                aborted = true;
+                if (writer != null) {
+                    writer.interrupt();
+                }
+            }
+            emitter.completeWithError(new IOException("Event stream write timed out"));
+        }
+
+        private synchronized boolean hasPending() {
+            return !prices.isEmpty() || !alerts.isEmpty() || heartbeatDue || dropped > 0;
+        }
+    }
+}
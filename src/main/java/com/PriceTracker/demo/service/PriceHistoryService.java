@@ -1,21 +1,50 @@
 package com.PriceTracker.demo.service;
 
 import com.PriceTracker.demo.dto.PriceAnalytics;
+import com.PriceTracker.demo.dto.PriceEvent;
+import com.PriceTracker.demo.dto.PriceHistoryPage;
+import com.PriceTracker.demo.dto.PricePoint;
+import com.PriceTracker.demo.dto.PriceRecord;
+import com.PriceTracker.demo.dto.PriceSeriesSet;
+import com.PriceTracker.demo.dto.PriceStats;
+import com.PriceTracker.demo.dto.SeriesPoint;
+import com.PriceTracker.demo.dto.SeriesRequest;
 import com.PriceTracker.demo.exception.ProductNotFoundException;
 import com.PriceTracker.demo.models.PriceHistory;
+import com.PriceTracker.demo.models.PriceTrend;
 import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.PriceHistoryBatchRepo;
 import com.PriceTracker.demo.repositories.PriceHistoryRepo;
 import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.util.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 /**
  * Service for managing price history data.
@@ -28,12 +57,34 @@ public class PriceHistoryService {
 
     private static final Logger log = LoggerFactory.getLogger(PriceHistoryService.class);
 
+    // Lower bound for queries over a product's whole history
+    private static final LocalDateTime ALL_TIME = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    // Share of the month average the day average must move before the trend is UP or DOWN
+    private static final double TREND_BAND = 0.01;
+
+    public static final Set<String> EXPORT_FORMATS = Set.of("ndjson", "csv");
+
     private final PriceHistoryRepo priceHistoryRepo;
+    private final PriceHistoryBatchRepo priceHistoryBatchRepo;
     private final ProductRepo productRepo;
+    private final ProductReadCache readCache;
+    private final PriceEventBroadcaster eventBroadcaster;
+    private final ObjectMapper objectMapper;
+    private final ProductSearchIndex searchIndex;
 
-    public PriceHistoryService(PriceHistoryRepo priceHistoryRepo, ProductRepo productRepo) {
+    public PriceHistoryService(PriceHistoryRepo priceHistoryRepo, PriceHistoryBatchRepo priceHistoryBatchRepo,
+            ProductRepo productRepo, ProductReadCache readCache, PriceEventBroadcaster eventBroadcaster,
+            ObjectMapper objectMapper, ProductSearchIndex searchIndex) {
         this.priceHistoryRepo = priceHistoryRepo;
+        this.priceHistoryBatchRepo = priceHistoryBatchRepo;
         this.productRepo = productRepo;
+        this.readCache = readCache;
+        this.eventBroadcaster = eventBroadcaster;
+        this.objectMapper = objectMapper;
+        this.searchIndex = searchIndex;
     }
 
     /**
@@ -41,32 +92,217 @@ public class PriceHistoryService {
      */
     @Transactional
     public PriceHistory savePrice(ProductInfo product, BigDecimal price, Boolean available, String currency) {
-        PriceHistory priceHistory = new PriceHistory(product, price, available, currency);
-        PriceHistory saved = priceHistoryRepo.save(priceHistory);
-
-        // Update product's current price
-        product.setCurrentPrice(price);
-        productRepo.save(product);
+        PriceHistory saved = priceHistoryRepo.save(new PriceHistory(product, price, available, currency));
+        applyStored(List.of(saved));
 
         log.info("Saved price {} for product {}", price, product.getName());
         return saved;
     }
 
+    /**
+     * Save a batch of ingested price records with one batched insert.
+     * Records whose ingest key is already stored, or repeated in the batch,
+     * are dropped. A product's current price moves to its newest record only
+     * if that is newer than its last price, so late observations just fill in history.
+     *
+     * @param records Records of managed products, with scrapedAt and ingestKeyHash set
+     * @return The records stored
+     */
+    @Transactional
+    public List<PriceHistory> savePrices(List<PriceHistory> records) {
+        if (records.isEmpty()) {
+            return List.of();
+        }
+        Set<Long> seen = new HashSet<>(priceHistoryRepo.findIngestKeyHashesIn(
+                records.stream().map(PriceHistory::getIngestKeyHash).toList()));
+        List<PriceHistory> fresh = new ArrayList<>(records.size());
+        for (PriceHistory record : records) {
+            if (seen.add(record.getIngestKeyHash())) {
+                fresh.add(record);
+            }
+        }
+        priceHistoryBatchRepo.insertAll(fresh);
+        int moved = applyStored(fresh);
+
+        log.debug("Saved {} of {} ingested prices, {} current prices moved", fresh.size(), records.size(), moved);
+        return fresh;
+    }
+
+    /**
+     * Bring the products of just stored price records up to date: each
+     * product's trend takes its prices in time order, and its current price
+     * moves to its newest record if that is newer than its last price. Then
+     * caches, the search index and event streams are told.
+     *
+     * @return Number of products whose current price moved
+     */
+    private int applyStored(List<PriceHistory> stored) {
+        Map<Long, List<PriceHistory>> byProduct = new HashMap<>();
+        for (PriceHistory record : stored) {
+            byProduct.computeIfAbsent(record.getProduct().getId(), id -> new ArrayList<>()).add(record);
+        }
+
+        List<ProductInfo> products = new ArrayList<>(byProduct.size());
+        int moved = 0;
+        long at = System.currentTimeMillis();
+        for (List<PriceHistory> prices : byProduct.values()) {
+            // Trends skip prices older than the last they have seen
+            prices.sort(Comparator.comparing(PriceHistory::getScrapedAt));
+            ProductInfo product = prices.get(0).getProduct();
+            PriceTrend trend = trendOf(product);
+            prices.forEach(record -> trend.update(record.getScrapedAt(), record.getPrice()));
+
+            PriceHistory latest = prices.get(prices.size() - 1);
+            readCache.evict(product.getId());
+            if (product.getLastScrapedAt() == null || latest.getScrapedAt().isAfter(product.getLastScrapedAt())) {
+                product.setCurrentPrice(latest.getPrice());
+                product.setLastScrapedAt(latest.getScrapedAt());
+                eventBroadcaster.publishPrice(new PriceEvent(product.getId(), latest.getPrice(),
+                        latest.getAvailable(), at));
+                moved++;
+            }
+            products.add(product); // Saved even when the current price stays, since the trend moved
+        }
+        productRepo.saveAll(products);
+        searchIndex.onPricesSaved(stored);
+        return moved;
+    }
+
     /**
      * Get price history for a product within the last N days.
      */
-    public List<PriceHistory> getHistory(Long productId, int days) {
+    public List<PriceRecord> getHistory(Long productId, int days) {
         LocalDateTime startDate = LocalDateTime.now().minusDays(days);
         LocalDateTime endDate = LocalDateTime.now();
 
-        return priceHistoryRepo.findByProductIdAndDateRange(productId, startDate, endDate);
+        return priceHistoryRepo.findRecordsByProductIdAndDateRange(productId, startDate, endDate);
     }
 
     /**
      * Get all price history for a product (ordered by most recent first).
      */
-    public List<PriceHistory> getAllHistory(Long productId) {
-        return priceHistoryRepo.findByProductIdOrderByScrapedAtDesc(productId);
+    public List<PriceRecord> getAllHistory(Long productId) {
+        return priceHistoryRepo.findRecordsByProductId(productId);
+    }
+
+    /**
+     * Get price history for a product reduced to at most maxPoints points,
+     * oldest first, keeping every price extreme.
+     *
+     * @param days Window in days, or null for the whole history
+     */
+    public List<PricePoint> getDownsampledHistory(Long productId, Integer days, int maxPoints) {
+        LocalDateTime since = days != null ? LocalDateTime.now().minusDays(days) : ALL_TIME;
+        PriceDownsampler sampler = new PriceDownsampler(
+                priceHistoryRepo.countByProductIdSince(productId, since), maxPoints);
+
+        try (Stream<PricePoint> points = priceHistoryRepo.streamPointsSince(productId, since)) {
+            points.forEach(sampler::accept);
+        }
+        return sampler.result();
+    }
+
+    /**
+     * Get the price series of several products over the last N days, aligned
+     * on a grid of maxPoints equal intervals. All series are read with one
+     * query, plus one for the prices they start from, however many products there are.
+     */
+    public PriceSeriesSet getSeries(SeriesRequest request) {
+        List<Long> ids = request.getProductIds().stream().distinct().toList();
+        Set<Long> found = new HashSet<>(productRepo.findIdsIn(ids));
+        for (Long id : ids) {
+            if (!found.contains(id)) {
+                throw new ProductNotFoundException(id);
+            }
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime since = now.minusDays(request.getDays());
+        SeriesGrid grid = new SeriesGrid(ids, since, now, request.getMaxPoints());
+        priceHistoryRepo.findLastPointsBefore(ids, since)
+                .forEach(point -> grid.startFrom(point.getProductId(), point.getPrice()));
+        try (Stream<SeriesPoint> points = priceHistoryRepo.streamSeriesPointsSince(ids, since)) {
+            points.forEach(point -> grid.accept(point.getProductId(), point.getScrapedAt(), point.getPrice()));
+        }
+
+        return PriceSeriesSet.builder()
+                .productIds(grid.productIds())
+                .timestamps(grid.timestamps())
+                .prices(grid.prices())
+                .build();
+    }
+
+    /**
+     * Get a page of price history for a product, newest first.
+     * Pages are keyed on (scrapedAt, id) rather than an offset, so every page
+     * is one index seek and new prices never shift later pages.
+     *
+     * @param before Cursor from the previous page, or null for the newest page
+     */
+    public PriceHistoryPage getHistoryPage(Long productId, String before, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        if (!productRepo.existsById(productId)) {
+            throw new ProductNotFoundException(productId);
+        }
+
+        // One extra row tells whether there is another page
+        PageRequest page = PageRequest.of(0, limit + 1);
+        List<PriceRecord> rows;
+        if (before == null || before.isBlank()) {
+            rows = priceHistoryRepo.findFirstPage(productId, page);
+        } else {
+            PageKey key = decodePageKey(before);
+            rows = priceHistoryRepo.findPageBefore(productId, key.scrapedAt(), key.id(), page);
+        }
+
+        if (rows.size() <= limit) {
+            return new PriceHistoryPage(rows, null);
+        }
+        List<PriceRecord> items = rows.subList(0, limit);
+        return new PriceHistoryPage(items, encodePageKey(items.get(limit - 1)));
+    }
+
+    /**
+     * Check that a product's history can be exported in the given format,
+     * before the response is committed.
+     */
+    public void checkExport(Long productId, String format) {
+        if (!EXPORT_FORMATS.contains(format)) {
+            throw new IllegalArgumentException("format must be one of " + EXPORT_FORMATS);
+        }
+        if (!productRepo.existsById(productId)) {
+            throw new ProductNotFoundException(productId);
+        }
+    }
+
+    /**
+     * Write a product's whole price history, oldest first, as NDJSON or CSV.
+     * Rows are streamed from the database in fetch-size chunks and written as
+     * they arrive, so memory does not grow with the number of rows.
+     */
+    public void exportHistory(Long productId, String format, OutputStream out) throws IOException {
+        boolean csv = "csv".equals(format);
+        ObjectWriter rowWriter = objectMapper.writerFor(PriceRecord.class);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write("id,scrapedAt,price,available,currency\n");
+        }
+
+        try (Stream<PriceRecord> records = priceHistoryRepo.streamRecords(productId)) {
+            Iterator<PriceRecord> it = records.iterator();
+            while (it.hasNext()) {
+                PriceRecord record = it.next();
+                if (csv) {
+                    writeCsvRow(writer, record);
+                } else {
+                    writer.write(rowWriter.writeValueAsString(record));
+                    writer.write('\n');
+                }
+            }
+        }
+        writer.flush();
     }
 
     /**
@@ -77,16 +313,36 @@ public class PriceHistoryService {
     }
 
     /**
-     * Compute price analytics for a product.
+     * Get price analytics for a product.
+     * Served from the read cache while the product's stored updatedAt matches
+     * the cached one; saving a price updates the product.
      */
     public PriceAnalytics getAnalytics(Long productId, int days) {
+        LocalDateTime updatedAt = productRepo.findUpdatedAtById(productId)
+                .orElseThrow(() -> new ProductNotFoundException(productId));
+        return getAnalytics(productId, days, updatedAt);
+    }
+
+    /**
+     * Get price analytics for a product whose current updatedAt the caller has already read.
+     */
+    public PriceAnalytics getAnalytics(Long productId, int days, LocalDateTime updatedAt) {
+        return readCache.getAnalytics(productId, days, updatedAt, () -> computeAnalytics(productId, days));
+    }
+
+    /**
+     * Compute price analytics for a product.
+     */
+    private PriceAnalytics computeAnalytics(Long productId, int days) {
         ProductInfo product = productRepo.findById(productId)
                 .orElseThrow(() -> new ProductNotFoundException(productId));
 
-        List<PriceHistory> history = getHistory(productId, days);
+        // Only the window's first and latest prices are needed, not the whole window
+        PageRequest one = PageRequest.of(0, 1);
+        List<PriceRecord> first = priceHistoryRepo.findOldestSince(productId, LocalDateTime.now().minusDays(days), one);
 
-        if (history.isEmpty()) {
-            return PriceAnalytics.builder()
+        if (first.isEmpty()) {
+            return withTrend(PriceAnalytics.builder(), product.getTrend())
                     .productId(productId)
                     .productName(product.getName())
                     .currentPrice(product.getCurrentPrice())
@@ -95,49 +351,121 @@ public class PriceHistoryService {
                     .build();
         }
 
-        // Get aggregate values from repository queries
-        BigDecimal minPrice = priceHistoryRepo.findMinPriceByProductId(productId);
-        BigDecimal maxPrice = priceHistoryRepo.findMaxPriceByProductId(productId);
-        BigDecimal avgPrice = priceHistoryRepo.findAvgPriceByProductId(productId);
-        long recordCount = priceHistoryRepo.countByProductId(productId);
-
-        // Get current price (most recent)
-        BigDecimal currentPrice = history.get(history.size() - 1).getPrice();
+        // All-time aggregates in one query
+        PriceStats stats = priceHistoryRepo.findStatsByProductId(productId);
+        BigDecimal minPrice = stats.getMinPrice();
+        BigDecimal maxPrice = stats.getMaxPrice();
+        BigDecimal avgPrice = stats.getAvgPrice() != null ? BigDecimal.valueOf(stats.getAvgPrice()) : null;
+        long recordCount = stats.getRecordCount();
 
-        // Get first price for comparison
-        BigDecimal firstPrice = history.get(0).getPrice();
+        // Current (most recent) and first prices, compared in minor units.
+        // Currency is left out: these are all prices of the one product.
+        Money currentPrice = Money.of(priceHistoryRepo.findFirstPage(productId, one).get(0).getPrice(), null);
+        Money firstPrice = Money.of(first.get(0).getPrice(), null);
 
         // Calculate price change
-        BigDecimal priceChange = currentPrice.subtract(firstPrice);
+        Money priceChange = currentPrice.minus(firstPrice);
 
         // Calculate percentage change
         Double percentageChange = null;
-        if (firstPrice.compareTo(BigDecimal.ZERO) > 0) {
-            percentageChange = priceChange
-                    .divide(firstPrice, 4, RoundingMode.HALF_UP)
-                    .multiply(BigDecimal.valueOf(100))
-                    .doubleValue();
+        if (firstPrice.isPositive()) {
+            percentageChange = firstPrice.changeBasisPointsTo(currentPrice) / 100.0;
         }
 
         // Check if at lowest price
-        boolean isAtLowestPrice = currentPrice.compareTo(minPrice) <= 0;
+        boolean isAtLowestPrice = currentPrice.compareTo(Money.of(minPrice, null)) <= 0;
 
         // Calculate savings from max
-        BigDecimal savingsFromMax = maxPrice.subtract(currentPrice);
+        Money savingsFromMax = Money.of(maxPrice, null).minus(currentPrice);
 
-        return PriceAnalytics.builder()
+        return withTrend(PriceAnalytics.builder(), product.getTrend())
                 .productId(productId)
                 .productName(product.getName())
                 .minPrice(minPrice)
                 .maxPrice(maxPrice)
                 .avgPrice(avgPrice != null ? avgPrice.setScale(2, RoundingMode.HALF_UP) : null)
-                .currentPrice(currentPrice)
-                .priceChange(priceChange)
+                .currentPrice(currentPrice.toBigDecimal())
+                .priceChange(priceChange.toBigDecimal())
                 .percentageChange(percentageChange)
                 .recordCount(recordCount)
                 .daysAnalyzed(days)
                 .isAtLowestPrice(isAtLowestPrice)
-                .savingsFromMax(savingsFromMax)
+                .savingsFromMax(savingsFromMax.toBigDecimal())
                 .build();
     }
+
+    /**
+     * Add the trend fields, read from the product's running statistics.
+     */
+    private static PriceAnalytics.PriceAnalyticsBuilder withTrend(PriceAnalytics.PriceAnalyticsBuilder builder,
+            PriceTrend trend) {
+        if (trend == null || trend.getTrendCount() == null) {
+            return builder;
+        }
+        Double volatility = trend.volatility();
+        return builder
+                .emaDay(toPrice(trend.getEmaDay()))
+                .emaWeek(toPrice(trend.getEmaWeek()))
+                .emaMonth(toPrice(trend.getEmaMonth()))
+                .volatility(volatility != null ? Math.round(volatility * 10_000) / 100.0 : null)
+                .trend(direction(trend.getEmaDay(), trend.getEmaMonth()))
+                .lastChangedAt(trend.getLastChangedAt())
+                .dropStreak(trend.getDropStreak());
+    }
+
+    // UP or DOWN when the day average is more than TREND_BAND away from the month average
+    private static String direction(double day, double month) {
+        if (month <= 0 || Math.abs(day - month) <= month * TREND_BAND) {
+            return "FLAT";
+        }
+        return day > month ? "UP" : "DOWN";
+    }
+
+    private static BigDecimal toPrice(Double value) {
+        return value == null ? null : BigDecimal.valueOf(value).setScale(Money.SCALE, RoundingMode.HALF_UP);
+    }
+
+    private static PriceTrend trendOf(ProductInfo product) {
+        if (product.getTrend() == null) {
+            product.setTrend(new PriceTrend());
+        }
+        return product.getTrend();
+    }
+
+    private void writeCsvRow(Writer writer, PriceRecord record) throws IOException {
+        writer.write(String.valueOf(record.getId()));
+        writer.write(',');
+        writer.write(String.valueOf(record.getScrapedAt()));
+        writer.write(',');
+        writer.write(record.getPrice().toPlainString());
+        writer.write(',');
+        writer.write(record.getAvailable() != null ? record.getAvailable().toString() : "");
+        writer.write(',');
+        writer.write(record.getCurrency() != null ? record.getCurrency() : "");
+        writer.write('\n');
+    }
+
+    // Cursor is "<epoch second>.<nano>.<id>" in base36, exact to the stored precision
+    private static String encodePageKey(PriceRecord last) {
+        LocalDateTime at = last.getScrapedAt();
+        return Long.toString(at.toEpochSecond(ZoneOffset.UTC), 36) + "." +
+                Integer.toString(at.getNano(), 36) + "." + Long.toString(last.getId(), 36);
+    }
+
+    private static PageKey decodePageKey(String cursor) {
+        String[] parts = cursor.split("\\.");
+        if (parts.length != 3) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+        try {
+            LocalDateTime at = LocalDateTime.ofEpochSecond(Long.parseLong(parts[0], 36),
+                    Integer.parseInt(parts[1], 36), ZoneOffset.UTC);
+            return new PageKey(at, Long.parseLong(parts[2], 36));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid page cursor: " + cursor);
+        }
+    }
+
+    private record PageKey(LocalDateTime scrapedAt, Long id) {
+    }
 }
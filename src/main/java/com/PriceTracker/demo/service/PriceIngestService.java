@@ -0,0 +1,147 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.PriceIngestResult;
+import com.PriceTracker.demo.dto.PriceObservation;
+import com.PriceTracker.demo.util.Money;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service for ingesting externally sourced prices from NDJSON uploads.
+ * The upload is read a line at a time and written in batches, one
+ * transaction each, through ProductService.ingestPrices.
+ */
+@Service
+public class PriceIngestService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceIngestService.class);
+
+    // Line errors kept per ingest; the rest are only counted
+    private static final int MAX_ERRORS = 20;
+
+    private final ProductService productService;
+    private final ObjectReader observationReader;
+
+    @Value("${app.ingest.batch-size:10000}")
+    private int batchSize;
+
+    // How far in the future an observation may be stamped, for clock skew between feeds and us
+    @Value("${app.ingest.max-clock-skew:5m}")
+    private Duration maxClockSkew;
+
+    public PriceIngestService(ProductService productService, ObjectMapper objectMapper) {
+        this.productService = productService;
+        this.observationReader = objectMapper.readerFor(PriceObservation.class);
+    }
+
+    /**
+     * Ingest an NDJSON upload of price observations.
+     * Batches written before a failure stay written; resending the upload
+     * then only stores what is missing, as long as it carries idempotency keys.
+     */
+    public PriceIngestResult ingest(InputStream body) throws IOException {
+        long start = System.nanoTime();
+        PriceIngestResult result = new PriceIngestResult();
+        List<PriceObservation> batch = new ArrayList<>(batchSize);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                result.setReceived(result.getReceived() + 1);
+
+                PriceObservation observation;
+                try {
+                    observation = observationReader.readValue(line);
+                } catch (IOException e) {
+                    invalid(result, lineNo, "not a JSON price observation");
+                    continue;
+                }
+                String error = validate(observation);
+                if (error != null) {
+                    invalid(result, lineNo, error);
+                    continue;
+                }
+
+                batch.add(observation);
+                if (batch.size() >= batchSize) {
+                    write(batch, result);
+                    batch.clear();
+                }
+            }
+        }
+        write(batch, result);
+
+        result.setElapsedMillis((System.nanoTime() - start) / 1_000_000);
+        log.info("Ingested {} price observations in {} ms: {} stored, {} duplicates, {} unmatched, {} invalid",
+                result.getReceived(), result.getElapsedMillis(), result.getStored(), result.getDuplicates(),
+                result.getUnmatched(), result.getInvalid());
+        return result;
+    }
+
+    private String validate(PriceObservation observation) {
+        if (observation.getProductId() == null &&
+                (observation.getProductKey() == null || observation.getProductKey().isBlank())) {
+            return "productId or productKey is required";
+        }
+        if (observation.getPrice() == null || observation.getPrice().compareTo(BigDecimal.ZERO) <= 0) {
+            return "price must be positive";
+        }
+        if (observation.getPrice().stripTrailingZeros().scale() > Money.SCALE) {
+            return "price has more than " + Money.SCALE + " decimal places";
+        }
+        if (observation.getObservedAt() != null &&
+                observation.getObservedAt().isAfter(Instant.now().plus(maxClockSkew))) {
+            return "observedAt is in the future";
+        }
+        return null;
+    }
+
+    /**
+     * Write one batch. A concurrent ingest of the same observations can win
+     * the unique ingest key between our check and insert; the retry then drops them.
+     */
+    private void write(List<PriceObservation> batch, PriceIngestResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        PriceIngestResult written;
+        try {
+            written = productService.ingestPrices(batch);
+        } catch (DataIntegrityViolationException e) {
+            log.debug("Retrying ingest batch after a concurrent duplicate: {}", e.getMessage());
+            written = productService.ingestPrices(batch);
+        }
+        result.setStored(result.getStored() + written.getStored());
+        result.setDuplicates(result.getDuplicates() + written.getDuplicates());
+        result.setUnmatched(result.getUnmatched() + written.getUnmatched());
+        result.setPriceChanges(result.getPriceChanges() + written.getPriceChanges());
+    }
+
+    private void invalid(PriceIngestResult result, int lineNo, String message) {
+        result.setInvalid(result.getInvalid() + 1);
+        if (result.getErrors().size() < MAX_ERRORS) {
+            result.getErrors().add("line " + lineNo + ": " + message);
+        }
+    }
+}
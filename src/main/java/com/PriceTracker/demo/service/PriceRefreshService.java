@@ -0,0 +1,129 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.scraper.AsyncScrapeEngine;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service in front of the scrape engine that avoids duplicate fetches.
+ * Concurrent refreshes of the same product share one scrape, and non-forced
+ * refreshes inside the freshness window return the last scraped result.
+ * Products tracked more than once (same canonical key) share one scrape
+ * target: a single fetch records the price for every active tracker.
+ */
+@Service
+public class PriceRefreshService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceRefreshService.class);
+
+    private final ProductService productService;
+    private final AsyncScrapeEngine scrapeEngine;
+
+    // Scrapes currently running, keyed by scrape target, with the products each one updated
+    private final Map<String, CompletableFuture<List<ProductInfo>>> inFlight = new ConcurrentHashMap<>();
+
+    @Value("${app.scrape.freshness-window:5m}")
+    private Duration freshnessWindow;
+
+    public PriceRefreshService(ProductService productService, AsyncScrapeEngine scrapeEngine) {
+        this.productService = productService;
+        this.scrapeEngine = scrapeEngine;
+    }
+
+    /**
+     * Refresh the price of a product, waiting for the result.
+     *
+     * @param productId The product to refresh
+     * @param force     Scrape even if the last result is inside the freshness window
+     * @return The product with its latest price
+     */
+    public ProductInfo refresh(Long productId, boolean force) {
+        try {
+            return refreshAsync(productService.getProduct(productId), force).join();
+        } catch (CompletionException e) {
+            // Surface the original exception so it maps to the same error response
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Refresh the price of a product without waiting for the fetch.
+     * Blocks only while the scrape engine is at capacity.
+     *
+     * @param product The product to refresh
+     * @param force   Scrape even if the last result is inside the freshness window
+     * @return Future completed with the product and its latest price
+     */
+    public CompletableFuture<ProductInfo> refreshAsync(ProductInfo product, boolean force) {
+        Long productId = product.getId();
+        if (!force && isFresh(product)) {
+            log.debug("Product {} scraped at {} is still fresh, skipping scrape",
+                    productId, product.getLastScrapedAt());
+            return CompletableFuture.completedFuture(product);
+        }
+
+        String target = scrapeTarget(product);
+        CompletableFuture<List<ProductInfo>> scrape = new CompletableFuture<>();
+        CompletableFuture<List<ProductInfo>> existing = inFlight.putIfAbsent(target, scrape);
+        if (existing != null) {
+            log.debug("Joining in-flight scrape of {} for product {}", target, productId);
+            return existing.thenApply(updated -> pick(updated, productId));
+        }
+
+        try {
+            scrapeEngine.submit(product.getProductUrl(),
+                    scrapedData -> productService.applyScrapedPriceToTrackers(productId, scrapedData))
+                    .whenComplete((updated, ex) -> {
+                        inFlight.remove(target, scrape);
+                        if (ex != null) {
+                            scrape.completeExceptionally(ex instanceof CompletionException && ex.getCause() != null
+                                    ? ex.getCause() : ex);
+                        } else {
+                            scrape.complete(updated);
+                        }
+                    });
+        } catch (RuntimeException e) {
+            inFlight.remove(target, scrape);
+            scrape.completeExceptionally(e);
+        }
+        return scrape.thenApply(updated -> pick(updated, productId));
+    }
+
+    /**
+     * The page a product is scraped from, shared by all trackers of the same
+     * canonical product. Products without a canonical key are their own target.
+     */
+    public String scrapeTarget(ProductInfo product) {
+        return product.getCanonicalKey() != null ? product.getCanonicalKey() : "product:" + product.getId();
+    }
+
+    /**
+     * A product's result from a shared scrape. An inactive product joining an
+     * active tracker's scrape is not updated by it and is returned as stored.
+     */
+    private ProductInfo pick(List<ProductInfo> updated, Long productId) {
+        return updated.stream()
+                .filter(product -> product.getId().equals(productId))
+                .findFirst()
+                .orElseGet(() -> productService.getProduct(productId));
+    }
+
+    private boolean isFresh(ProductInfo product) {
+        return product.getLastScrapedAt() != null &&
+                product.getLastScrapedAt().isAfter(LocalDateTime.now().minus(freshnessWindow));
+    }
+}
@@ -0,0 +1,397 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.ProductImport;
+import com.PriceTracker.demo.dto.ProductRequest;
+import com.PriceTracker.demo.exception.ImportNotFoundException;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.ProductBatchRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.scraper.CanonicalUrl;
+import com.PriceTracker.demo.scraper.ScraperFactory;
+import com.PriceTracker.demo.scraper.UrlCanonicalizer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Service for importing products in bulk from NDJSON or CSV uploads.
+ * The upload is read a row at a time; rows are validated, canonicalised and
+ * deduplicated against the upload and, a batch at a time, against tracked
+ * products, then stored with one batched insert per batch. Canonicalising
+ * needs no network, so short links are stored as they are and resolved by
+ * ImportScrapeJob. Stored products are pending until ImportScrapeJob has run
+ * their initial scrape, or has given up on it.
+ * Keeps a registry of recent imports so their progress can be polled.
+ */
+@Service
+public class ProductImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductImportService.class);
+
+    public static final Set<String> FORMATS = Set.of("ndjson", "csv");
+
+    // Row errors kept per import; the rest are only counted
+    private static final int MAX_ERRORS = 20;
+
+    private static final int MAX_NAME_LENGTH = 255;
+
+    private final ProductRepo productRepo;
+    private final ProductBatchRepo productBatchRepo;
+    private final UrlCanonicalizer urlCanonicalizer;
+    private final ScraperFactory scraperFactory;
+    private final ObjectReader requestReader;
+    private final Validator validator;
+
+    private final Map<String, ProductImport> imports = new ConcurrentHashMap<>();
+
+    @Value("${app.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.import.max-rows:100000}")
+    private int maxRows;
+
+    @Value("${app.import.retention:24h}")
+    private Duration retention;
+
+    @Value("${app.import.max-scrape-attempts:3}")
+    private int maxScrapeAttempts;
+
+    public ProductImportService(ProductRepo productRepo, ProductBatchRepo productBatchRepo,
+            UrlCanonicalizer urlCanonicalizer, ScraperFactory scraperFactory,
+            ObjectMapper objectMapper, Validator validator) {
+        this.productRepo = productRepo;
+        this.productBatchRepo = productBatchRepo;
+        this.urlCanonicalizer = urlCanonicalizer;
+        this.scraperFactory = scraperFactory;
+        this.requestReader = objectMapper.readerFor(ProductRequest.class);
+        this.validator = validator;
+    }
+
+    /**
+     * Read an upload and store its new products as pending.
+     * CSV uploads need a header row naming their columns: url, targetPrice,
+     * scrapeFrequency and alertEmail, of which only url is required.
+     *
+     * @param format ndjson or csv
+     * @return The import, with its row counts final
+     */
+    public ProductImport importProducts(InputStream body, String format) {
+        if (!FORMATS.contains(format)) {
+            throw new IllegalArgumentException("Import format must be one of " + FORMATS);
+        }
+        evictFinishedImports();
+
+        ProductImport result = ProductImport.builder()
+                .id(UUID.randomUUID().toString())
+                .format(format)
+                .status("READING")
+                .errors(new ArrayList<>())
+                .startedAt(LocalDateTime.now())
+                .build();
+        imports.put(result.getId(), result);
+
+        Upload upload = new Upload(result);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            if ("csv".equals(format)) {
+                readCsv(reader, upload);
+            } else {
+                readNdjson(reader, upload);
+            }
+            upload.flush();
+        } catch (IOException | RuntimeException e) {
+            // Batches stored before the failure stay imported
+            result.setStatus("FAILED");
+            upload.error(0, "Upload failed: " + e.getMessage());
+            log.warn("Import {} failed after {} rows: {}", result.getId(), result.getRows(), e.getMessage());
+        }
+
+        result.setFinishedAt(LocalDateTime.now());
+        log.info("Import {} read {} rows: {} accepted, {} duplicates, {} unsupported, {} invalid",
+                result.getId(), result.getRows(), result.getAccepted(), result.getDuplicates(),
+                result.getUnsupported(), result.getInvalid());
+        return getImport(result.getId());
+    }
+
+    /**
+     * Get an import with the current progress of its initial scrapes.
+     */
+    public ProductImport getImport(String importId) {
+        ProductImport result = imports.get(importId);
+        if (result == null) {
+            throw new ImportNotFoundException(importId);
+        }
+        if (result.getFinishedAt() != null) {
+            result.setScraped(productRepo.countByImportIdAndLastScrapedAtIsNotNull(importId));
+            result.setPending(productRepo.countByImportIdAndLastScrapedAtIsNullAndActive(importId, true));
+            result.setAbandoned(productRepo.countByImportIdAndLastScrapedAtIsNullAndActive(importId, false));
+            if (!"FAILED".equals(result.getStatus())) {
+                result.setStatus(result.getPending() > 0 ? "SCRAPING" : "DONE");
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Count a failed initial scrape. The product is retried once its lease
+     * expires, until it has failed the maximum number of attempts; then the
+     * caller deactivates it, and it counts as abandoned rather than pending.
+     *
+     * @return True if the product has no attempts left
+     */
+    @Transactional
+    public boolean recordScrapeFailure(ProductInfo product) {
+        ProductImport result = imports.get(product.getImportId());
+        if (result != null) {
+            synchronized (result) {
+                result.setFailedScrapes(result.getFailedScrapes() + 1);
+            }
+        }
+        productRepo.incrementImportScrapeFailures(product.getId());
+        return productRepo.findImportScrapeFailures(product.getId()) >= maxScrapeAttempts;
+    }
+
+    private void readNdjson(BufferedReader reader, Upload upload) throws IOException {
+        String line;
+        int lineNo = 0;
+        while ((line = reader.readLine()) != null && upload.hasRoom(lineNo + 1)) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            ProductRequest request;
+            try {
+                request = requestReader.readValue(line);
+            } catch (IOException e) {
+                upload.invalid(lineNo, "not a JSON product request");
+                continue;
+            }
+            upload.accept(lineNo, request);
+        }
+    }
+
+    private void readCsv(BufferedReader reader, Upload upload) throws IOException {
+        String line;
+        int lineNo = 0;
+        Map<String, Integer> columns = null;
+        while ((line = reader.readLine()) != null && upload.hasRoom(lineNo + 1)) {
+            lineNo++;
+            if (line.isBlank()) {
+                continue;
+            }
+            List<String> fields = splitCsv(line);
+            if (columns == null) {
+                columns = new HashMap<>();
+                for (int i = 0; i < fields.size(); i++) {
+                    columns.put(fields.get(i).trim().toLowerCase(Locale.ROOT), i);
+                }
+                if (!columns.containsKey("url")) {
+                    throw new IllegalArgumentException("CSV header must include a url column");
+                }
+                continue;
+            }
+
+            ProductRequest request = new ProductRequest();
+            request.setUrl(field(fields, columns, "url"));
+            request.setAlertEmail(field(fields, columns, "alertemail"));
+            String frequency = field(fields, columns, "scrapefrequency");
+            if (frequency != null) {
+                request.setScrapeFrequency(frequency.toUpperCase(Locale.ROOT));
+            }
+            String target = field(fields, columns, "targetprice");
+            try {
+                request.setTargetPrice(target != null ? new BigDecimal(target) : null);
+            } catch (NumberFormatException e) {
+                upload.invalid(lineNo, "target price is not a number");
+                continue;
+            }
+            upload.accept(lineNo, request);
+        }
+    }
+
+    private static String field(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= fields.size()) {
+            return null;
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    /**
+     * Split a CSV line, honouring double-quoted fields with "" escapes.
+     */
+    static List<String> splitCsv(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    private void evictFinishedImports() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(retention);
+        imports.values().removeIf(result -> result.getFinishedAt() != null && result.getFinishedAt().isBefore(cutoff));
+    }
+
+    /**
+     * Reading state of one upload.
+     */
+    private final class Upload {
+        final ProductImport result;
+        // Canonical keys already seen in this upload
+        final Set<String> seenKeys = new HashSet<>();
+        final List<ProductInfo> batch = new ArrayList<>(batchSize);
+
+        Upload(ProductImport result) {
+            this.result = result;
+        }
+
+        boolean hasRoom(int lineNo) {
+            if (result.getRows() < maxRows) {
+                return true;
+            }
+            error(lineNo, "row limit of " + maxRows + " reached, rest of the upload ignored");
+            return false;
+        }
+
+        void accept(int lineNo, ProductRequest request) {
+            result.setRows(result.getRows() + 1);
+
+            Set<ConstraintViolation<ProductRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                invalidRow(lineNo, violations.iterator().next().getMessage());
+                return;
+            }
+
+            String url = request.getUrl().trim();
+            if (!scraperFactory.isSupported(url)) {
+                result.setUnsupported(result.getUnsupported() + 1);
+                return;
+            }
+
+            CanonicalUrl canonical = urlCanonicalizer.canonicalizeOffline(url);
+            if (!seenKeys.add(canonical.key())) {
+                result.setDuplicates(result.getDuplicates() + 1);
+                return;
+            }
+
+            ProductInfo product = new ProductInfo();
+            product.setName(canonical.url().length() > MAX_NAME_LENGTH
+                    ? canonical.url().substring(0, MAX_NAME_LENGTH) : canonical.url());
+            product.setSourceSite(scraperFactory.getSiteNameForUrl(canonical.url()));
+            product.setProductUrl(canonical.url());
+            product.setCanonicalKey(canonical.key());
+            product.setCanonicalKeyHash(canonical.keyHash());
+            product.setScrapeFrequency(request.getScrapeFrequency() != null ? request.getScrapeFrequency() : "DAILY");
+            product.setTargetPrice(request.getTargetPrice());
+            product.setAlertEmail(request.getAlertEmail());
+            product.setActive(true);
+            product.setImportId(result.getId());
+            batch.add(product);
+
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void invalid(int lineNo, String message) {
+            result.setRows(result.getRows() + 1);
+            invalidRow(lineNo, message);
+        }
+
+        private void invalidRow(int lineNo, String message) {
+            result.setInvalid(result.getInvalid() + 1);
+            error(lineNo, message);
+        }
+
+        void error(int lineNo, String message) {
+            if (result.getErrors().size() < MAX_ERRORS) {
+                result.getErrors().add(lineNo > 0 ? "line " + lineNo + ": " + message : message);
+            }
+        }
+
+        /**
+         * Drop the batch's already tracked products and insert the rest.
+         * A concurrent add of one of them can win its canonical key between
+         * our check and insert; the retry then drops it.
+         */
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            List<ProductInfo> fresh;
+            try {
+                fresh = insertFresh();
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Retrying import batch after a concurrent duplicate: {}", e.getMessage());
+                fresh = insertFresh();
+            }
+            result.setDuplicates(result.getDuplicates() + batch.size() - fresh.size());
+            result.setAccepted(result.getAccepted() + fresh.size());
+            batch.clear();
+        }
+
+        private List<ProductInfo> insertFresh() {
+            List<Long> hashes = batch.stream().map(ProductInfo::getCanonicalKeyHash).toList();
+            Set<String> tracked = new HashSet<>(productRepo.findCanonicalKeysByHashIn(hashes));
+            // Hashes some other key holds the first slot of
+            Set<Long> taken = new HashSet<>(productRepo.findFirstSlotHashesIn(hashes));
+
+            List<ProductInfo> fresh = new ArrayList<>(batch.size());
+            for (ProductInfo product : batch) {
+                if (!tracked.contains(product.getCanonicalKey())) {
+                    product.setCanonicalSlot(taken.add(product.getCanonicalKeyHash())
+                            ? 0 : ProductService.duplicateCanonicalSlot());
+                    fresh.add(product);
+                }
+            }
+            productBatchRepo.insertAll(fresh);
+            return fresh;
+        }
+    }
+}
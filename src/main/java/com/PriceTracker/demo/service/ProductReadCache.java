@@ -0,0 +1,140 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.CacheStats;
+import com.PriceTracker.demo.dto.PriceAnalytics;
+import com.PriceTracker.demo.dto.ProductResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Local cache of product responses and price analytics.
+ * Entries are evicted by size and age, and a product's entries are dropped
+ * whenever its price or settings change on this node. Every entry also
+ * carries the updatedAt of the product it was built from, and readers pass
+ * the product's current updatedAt: an entry left behind by a change made on
+ * another node no longer matches and is rebuilt, so a body is never served
+ * with a validator newer than its data. The age limit also bounds how far
+ * an analytics window can lag behind the clock.
+ */
+@Service
+public class ProductReadCache {
+
+    private final Cache<Long, ProductResponse> responses;
+
+    private final Cache<AnalyticsKey, VersionedAnalytics> analytics;
+
+    // Windows ever cached per product, so evicting a product drops exactly its analytics entries
+    private final Map<Long, Set<Integer>> windowsByProduct = new ConcurrentHashMap<>();
+
+    public ProductReadCache(@Value("${app.cache.max-entries:10000}") long maxEntries,
+            @Value("${app.cache.ttl:10m}") Duration ttl) {
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.analytics = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Get a product response, computing it on a miss or when the cached one
+     * was built from another version of the product.
+     *
+     * @param updatedAt The product's current updatedAt, as stored
+     */
+    public ProductResponse getResponse(Long productId, LocalDateTime updatedAt, Supplier<ProductResponse> loader) {
+        ProductResponse cached = responses.getIfPresent(productId);
+        if (cached != null && Objects.equals(cached.getUpdatedAt(), updatedAt)) {
+            return cached;
+        }
+        ProductResponse loaded = loader.get();
+        responses.put(productId, loaded);
+        return loaded;
+    }
+
+    /**
+     * Get analytics for a product and window, computing them on a miss or
+     * when the cached ones were computed for another version of the product.
+     *
+     * @param updatedAt The product's current updatedAt, as stored
+     */
+    public PriceAnalytics getAnalytics(Long productId, int days, LocalDateTime updatedAt,
+            Supplier<PriceAnalytics> loader) {
+        AnalyticsKey key = new AnalyticsKey(productId, days);
+        VersionedAnalytics cached = analytics.getIfPresent(key);
+        if (cached != null && Objects.equals(cached.updatedAt(), updatedAt)) {
+            return cached.analytics();
+        }
+        windowsByProduct.computeIfAbsent(productId, id -> ConcurrentHashMap.newKeySet()).add(days);
+        PriceAnalytics loaded = loader.get();
+        analytics.put(key, new VersionedAnalytics(loaded, updatedAt));
+        return loaded;
+    }
+
+    /**
+     * Drop a product's cached entries.
+     * Inside a transaction they are dropped again after commit, so a read
+     * racing the write cannot leave the old values cached.
+     */
+    public void evict(Long productId) {
+        evictNow(productId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictNow(productId);
+                }
+            });
+        }
+    }
+
+    /**
+     * Hit, miss and eviction counters of both caches.
+     */
+    public List<CacheStats> getStats() {
+        return List.of(toStats("product-responses", responses), toStats("price-analytics", analytics));
+    }
+
+    private void evictNow(Long productId) {
+        responses.invalidate(productId);
+        Set<Integer> windows = windowsByProduct.remove(productId);
+        if (windows != null) {
+            windows.forEach(days -> analytics.invalidate(new AnalyticsKey(productId, days)));
+        }
+    }
+
+    private CacheStats toStats(String name, Cache<?, ?> cache) {
+        com.github.benmanes.caffeine.cache.stats.CacheStats stats = cache.stats();
+        return CacheStats.builder()
+                .name(name)
+                .size(cache.estimatedSize())
+                .hits(stats.hitCount())
+                .misses(stats.missCount())
+                .hitRate(stats.hitRate())
+                .evictions(stats.evictionCount())
+                .build();
+    }
+
+    private record AnalyticsKey(Long productId, int days) {
+    }
+
+    private record VersionedAnalytics(PriceAnalytics analytics, LocalDateTime updatedAt) {
+    }
+}
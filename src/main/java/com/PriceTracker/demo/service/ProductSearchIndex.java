@@ -0,0 +1,408 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.PriceTotals;
+import com.PriceTracker.demo.dto.ProductResponse;
+import com.PriceTracker.demo.dto.ProductSearchResult;
+import com.PriceTracker.demo.models.PriceHistory;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.PriceHistoryRepo;
+import com.PriceTracker.demo.repositories.ProductDeletionRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+/**
+ * In-memory search index over the product catalogue.
+ * Each product is held as a ready response plus its running price totals,
+ * and names are indexed by trigram, so a search never touches the database.
+ * Writes on this node update the index when they commit; a periodic delta
+ * refresh from the sync log picks up writes made on other nodes.
+ */
+@Service
+public class ProductSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+
+    private static final int GRAM = 3;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int TOTALS_BATCH = 1000;
+
+    public static final Set<String> SORTS = Set.of("updatedAt", "price", "drop");
+
+    private final ProductRepo productRepo;
+    private final PriceHistoryRepo priceHistoryRepo;
+    private final ProductDeletionRepo productDeletionRepo;
+
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    // Trigram of a normalised name -> ids of products whose name contains it
+    private final Map<String, Set<Long>> grams = new ConcurrentHashMap<>();
+
+    private volatile boolean loaded;
+
+    // Products changed after this are reread on the next refresh - guarded by this
+    private LocalDateTime refreshedUpTo;
+
+    @Value("${app.sync.commit-lag:5s}")
+    private Duration commitLag;
+
+    public ProductSearchIndex(ProductRepo productRepo, PriceHistoryRepo priceHistoryRepo,
+            ProductDeletionRepo productDeletionRepo) {
+        this.productRepo = productRepo;
+        this.priceHistoryRepo = priceHistoryRepo;
+        this.productDeletionRepo = productDeletionRepo;
+    }
+
+    /**
+     * Search products by name, filter and sort them, and return one page.
+     *
+     * @param query     Text the name must contain (case-insensitive), or blank for all products
+     * @param site      Source site to match, or null for any
+     * @param active    Active status to match, or null for any
+     * @param priceDrop Only products priced below their average
+     * @param sort      updatedAt, price or drop (percent below average)
+     */
+    public ProductSearchResult search(String query, String site, Boolean active, boolean priceDrop,
+            String sort, boolean ascending, int page, int size) {
+        if (!SORTS.contains(sort)) {
+            throw new IllegalArgumentException("sort must be one of " + SORTS);
+        }
+        if (size < 1 || size > MAX_PAGE_SIZE || page < 0) {
+            throw new IllegalArgumentException("size must be between 1 and " + MAX_PAGE_SIZE + " and page at least 0");
+        }
+        ensureLoaded();
+
+        String key = normalize(query);
+        Comparator<Entry> order = comparator(sort, ascending);
+        long k = Math.min((long) (page + 1) * size, Integer.MAX_VALUE);
+
+        // Keep only the best k matches, so a page costs O(matches * log k) rather than a full sort
+        PriorityQueue<Entry> top = new PriorityQueue<>(order.reversed());
+        long total = 0;
+        for (Entry entry : candidates(key)) {
+            if (!entry.nameKey().contains(key)
+                    || (site != null && !site.equalsIgnoreCase(entry.response().getSourceSite()))
+                    || (active != null && entry.response().isActive() != active)
+                    || (priceDrop && (entry.dropPercent() == null || entry.dropPercent().signum() <= 0))) {
+                continue;
+            }
+            total++;
+            top.offer(entry);
+            if (top.size() > k) {
+                top.poll();
+            }
+        }
+
+        List<Entry> best = new ArrayList<>(top);
+        best.sort(order);
+        int from = Math.min(page * size, best.size());
+        return ProductSearchResult.builder()
+                .items(best.subList(from, best.size()).stream().map(Entry::response).toList())
+                .total(total)
+                .page(page)
+                .size(size)
+                .build();
+    }
+
+    /**
+     * Record a change to a product's own fields. Inside a transaction it is applied after commit.
+     */
+    public void onProductSaved(ProductInfo product) {
+        afterCommit(() -> apply(product, List.of()));
+    }
+
+    /**
+     * Record a new price of a product. Inside a transaction it is applied after commit.
+     */
+    public void onPriceSaved(ProductInfo product, BigDecimal price) {
+        afterCommit(() -> apply(product, price != null ? List.of(price) : List.of()));
+    }
+
+    /**
+     * Record a batch of new prices, each product's entry rebuilt once.
+     * Inside a transaction it is applied after commit.
+     */
+    public void onPricesSaved(Collection<PriceHistory> records) {
+        Map<Long, ProductInfo> products = new HashMap<>();
+        Map<Long, List<BigDecimal>> prices = new HashMap<>();
+        for (PriceHistory record : records) {
+            products.putIfAbsent(record.getProduct().getId(), record.getProduct());
+            prices.computeIfAbsent(record.getProduct().getId(), id -> new ArrayList<>()).add(record.getPrice());
+        }
+        afterCommit(() -> products.forEach((id, product) -> apply(product, prices.get(id))));
+    }
+
+    /**
+     * Record a deleted product. Inside a transaction it is applied after commit.
+     */
+    public void onProductDeleted(Long productId) {
+        afterCommit(() -> {
+            if (loaded) {
+                remove(productId);
+            }
+        });
+    }
+
+    /**
+     * Reread products changed since the last refresh, including changes made
+     * by other nodes, and drop deleted ones.
+     */
+    @Scheduled(fixedDelayString = "${app.search.refresh-interval:30s}")
+    public void refresh() {
+        if (!loaded) {
+            return;
+        }
+        LocalDateTime since;
+        synchronized (this) {
+            since = refreshedUpTo;
+        }
+        LocalDateTime next = LocalDateTime.now().minus(commitLag);
+
+        List<ProductInfo> changed = productRepo.findByUpdatedAtAfter(since);
+        List<Long> deleted = productDeletionRepo.findProductIdsDeletedAfter(since);
+        Map<Long, PriceTotals> totals = loadTotals(changed.stream().map(ProductInfo::getId).toList());
+
+        synchronized (this) {
+            changed.forEach(product -> put(product, totals.get(product.getId())));
+            deleted.forEach(this::remove);
+            refreshedUpTo = next;
+        }
+        if (!changed.isEmpty() || !deleted.isEmpty()) {
+            log.debug("Search index refreshed: {} changed, {} deleted", changed.size(), deleted.size());
+        }
+    }
+
+    /**
+     * Drop the index, so the next search rebuilds it from the database.
+     */
+    public synchronized void invalidate() {
+        loaded = false;
+        entries.clear();
+        grams.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) {
+            return;
+        }
+        synchronized (this) {
+            if (loaded) {
+                return;
+            }
+            long start = System.nanoTime();
+            LocalDateTime next = LocalDateTime.now().minus(commitLag);
+
+            Map<Long, PriceTotals> totals = new HashMap<>();
+            priceHistoryRepo.findAllTotals().forEach(t -> totals.put(t.getProductId(), t));
+            productRepo.findAll().forEach(product -> put(product, totals.get(product.getId())));
+
+            refreshedUpTo = next;
+            loaded = true;
+            log.info("Built product search index over {} products in {} ms",
+                    entries.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    private Map<Long, PriceTotals> loadTotals(List<Long> productIds) {
+        Map<Long, PriceTotals> totals = new HashMap<>();
+        for (int i = 0; i < productIds.size(); i += TOTALS_BATCH) {
+            List<Long> batch = productIds.subList(i, Math.min(i + TOTALS_BATCH, productIds.size()));
+            priceHistoryRepo.findTotalsByProductIds(batch).forEach(t -> totals.put(t.getProductId(), t));
+        }
+        return totals;
+    }
+
+    /**
+     * Apply a local change, extending the product's price totals by the new price if given.
+     */
+    private synchronized void apply(ProductInfo product, List<BigDecimal> newPrices) {
+        if (!loaded) {
+            return; // The initial build reads it from the database
+        }
+        Entry existing = entries.get(product.getId());
+        BigDecimal min = existing != null ? existing.response().getMinPrice() : null;
+        BigDecimal max = existing != null ? existing.response().getMaxPrice() : null;
+        BigDecimal sum = existing != null ? existing.priceSum() : BigDecimal.ZERO;
+        long count = existing != null ? existing.response().getPriceRecordCount() : 0;
+
+        for (BigDecimal newPrice : newPrices) {
+            min = min == null || newPrice.compareTo(min) < 0 ? newPrice : min;
+            max = max == null || newPrice.compareTo(max) > 0 ? newPrice : max;
+            sum = sum.add(newPrice);
+            count++;
+        }
+        put(product, new PriceTotals(product.getId(), min, max, sum, count));
+    }
+
+    private synchronized void put(ProductInfo product, PriceTotals totals) {
+        Entry entry = toEntry(product, totals);
+        Entry previous = entries.put(product.getId(), entry);
+        if (previous == null || !previous.nameKey().equals(entry.nameKey())) {
+            if (previous != null) {
+                unindex(previous);
+            }
+            for (String gram : gramsOf(entry.nameKey())) {
+                grams.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(product.getId());
+            }
+        }
+    }
+
+    private synchronized void remove(Long productId) {
+        Entry previous = entries.remove(productId);
+        if (previous != null) {
+            unindex(previous);
+        }
+    }
+
+    private void unindex(Entry entry) {
+        Long id = entry.response().getId();
+        for (String gram : gramsOf(entry.nameKey())) {
+            Set<Long> ids = grams.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    /**
+     * Entries that may contain the query, narrowed by the query's trigrams.
+     * Callers still check the full name, since trigrams can match out of order.
+     */
+    private Collection<Entry> candidates(String key) {
+        if (key.length() < GRAM) {
+            return entries.values();
+        }
+
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : gramsOf(key)) {
+            Set<Long> ids = grams.get(gram);
+            if (ids == null) {
+                return List.of();
+            }
+            postings.add(ids);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        List<Entry> result = new ArrayList<>();
+        for (Long id : postings.get(0)) {
+            boolean inAll = true;
+            for (int i = 1; i < postings.size() && inAll; i++) {
+                inAll = postings.get(i).contains(id);
+            }
+            Entry entry = inAll ? entries.get(id) : null;
+            if (entry != null) {
+                result.add(entry);
+            }
+        }
+        return result;
+    }
+
+    private static Set<String> gramsOf(String key) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM <= key.length(); i++) {
+            result.add(key.substring(i, i + GRAM));
+        }
+        return result;
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    private static Comparator<Entry> comparator(String sort, boolean ascending) {
+        Comparator<Entry> order = switch (sort) {
+            case "price" -> by(entry -> entry.response().getCurrentPrice(), ascending);
+            case "drop" -> by(Entry::dropPercent, ascending);
+            default -> by(entry -> entry.response().getUpdatedAt(), ascending);
+        };
+        // Ties broken by id, so pages never overlap
+        return order.thenComparing(entry -> entry.response().getId());
+    }
+
+    // Orders by a key in either direction, with missing values always last
+    private static <T extends Comparable<? super T>> Comparator<Entry> by(Function<Entry, T> key, boolean ascending) {
+        return ascending
+                ? Comparator.comparing(key, Comparator.nullsLast(Comparator.<T>naturalOrder()))
+                : Comparator.comparing(key, Comparator.nullsFirst(Comparator.<T>naturalOrder())).reversed();
+    }
+
+    private static Entry toEntry(ProductInfo product, PriceTotals totals) {
+        long count = totals != null && totals.getRecordCount() != null ? totals.getRecordCount() : 0;
+        BigDecimal sum = totals != null && totals.getPriceSum() != null ? totals.getPriceSum() : BigDecimal.ZERO;
+        BigDecimal avg = count > 0 ? sum.divide(BigDecimal.valueOf(count), 2, RoundingMode.HALF_UP) : null;
+
+        BigDecimal drop = null;
+        if (avg != null && avg.signum() > 0 && product.getCurrentPrice() != null) {
+            drop = avg.subtract(product.getCurrentPrice())
+                    .multiply(BigDecimal.valueOf(100))
+                    .divide(avg, 2, RoundingMode.HALF_UP);
+        }
+
+        ProductResponse response = ProductResponse.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .sourceSite(product.getSourceSite())
+                .productUrl(product.getProductUrl())
+                .scrapeFrequency(product.getScrapeFrequency())
+                .targetPrice(product.getTargetPrice())
+                .currentPrice(product.getCurrentPrice())
+                .alertEmail(product.getAlertEmail())
+                .active(product.isActive())
+                .createdAt(product.getCreatedAt())
+                .updatedAt(product.getUpdatedAt())
+                .minPrice(totals != null ? totals.getMinPrice() : null)
+                .maxPrice(totals != null ? totals.getMaxPrice() : null)
+                .avgPrice(avg)
+                .priceRecordCount(count)
+                .build();
+        return new Entry(response, normalize(product.getName()), sum, drop);
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    /**
+     * One indexed product: its response, normalised name, price sum and percent below average.
+     */
+    private record Entry(ProductResponse response, String nameKey, BigDecimal priceSum, BigDecimal dropPercent) {
+    }
+}
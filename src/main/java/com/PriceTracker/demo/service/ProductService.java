@@ -1,21 +1,55 @@
 package com.PriceTracker.demo.service;
 
+import com.PriceTracker.demo.dto.AlertRuleRequest;
+import com.PriceTracker.demo.dto.PriceChange;
+import com.PriceTracker.demo.dto.PriceIngestResult;
+import com.PriceTracker.demo.dto.PriceObservation;
+import com.PriceTracker.demo.dto.PriceStats;
+import com.PriceTracker.demo.dto.ProductChanges;
+import com.PriceTracker.demo.dto.ProductDetail;
 import com.PriceTracker.demo.dto.ProductPrice;
 import com.PriceTracker.demo.dto.ProductRequest;
 import com.PriceTracker.demo.dto.ProductResponse;
+import com.PriceTracker.demo.dto.ProductSearchResult;
+import com.PriceTracker.demo.dto.ProductSummary;
 import com.PriceTracker.demo.exception.DuplicateProductException;
 import com.PriceTracker.demo.exception.ProductNotFoundException;
+import com.PriceTracker.demo.models.AlertRule;
+import com.PriceTracker.demo.models.PriceHistory;
+import com.PriceTracker.demo.models.ProductDeletion;
 import com.PriceTracker.demo.models.ProductInfo;
 import com.PriceTracker.demo.repositories.PriceHistoryRepo;
+import com.PriceTracker.demo.repositories.ProductDeletionRepo;
 import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.scraper.CanonicalUrl;
 import com.PriceTracker.demo.scraper.PriceScraper;
 import com.PriceTracker.demo.scraper.ScraperFactory;
+import com.PriceTracker.demo.scraper.UrlCanonicalizer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Service for managing products.
@@ -27,42 +61,84 @@ public class ProductService {
 
     private static final Logger log = LoggerFactory.getLogger(ProductService.class);
 
+    private static final int MAX_DETAIL_ALERTS = 100;
+
+    // Drop a subscriber of a shared product is alerted at, matching the alerts of the product's own email
+    private static final BigDecimal SUBSCRIBER_DROP_PERCENT = new BigDecimal("5");
+
     private final ProductRepo productRepo;
     private final PriceHistoryRepo priceHistoryRepo;
     private final ScraperFactory scraperFactory;
     private final PriceHistoryService priceHistoryService;
+    private final AlertEvaluationStage alertEvaluationStage;
+    private final AlertRuleService alertRuleService;
+    private final ProductReadCache readCache;
+    private final ProductDeletionRepo productDeletionRepo;
     private final AlertService alertService;
+    private final ProductSearchIndex searchIndex;
+    private final UrlCanonicalizer urlCanonicalizer;
+
+    // How far behind the clock a delta-sync cursor is kept, so rows written by
+    // transactions still committing when the cursor is issued are not skipped
+    @Value("${app.sync.commit-lag:5s}")
+    private Duration commitLag;
+
+    // How long deletions are logged; older cursors get the full list
+    @Value("${app.sync.deletion-retention:30d}")
+    private Duration deletionRetention;
 
     public ProductService(ProductRepo productRepo,
             PriceHistoryRepo priceHistoryRepo,
             ScraperFactory scraperFactory,
             PriceHistoryService priceHistoryService,
-            AlertService alertService) {
+            AlertEvaluationStage alertEvaluationStage,
+            AlertRuleService alertRuleService,
+            ProductReadCache readCache,
+            ProductDeletionRepo productDeletionRepo,
+            AlertService alertService,
+            ProductSearchIndex searchIndex,
+            UrlCanonicalizer urlCanonicalizer) {
         this.productRepo = productRepo;
         this.priceHistoryRepo = priceHistoryRepo;
         this.scraperFactory = scraperFactory;
         this.priceHistoryService = priceHistoryService;
+        this.alertEvaluationStage = alertEvaluationStage;
+        this.alertRuleService = alertRuleService;
+        this.readCache = readCache;
+        this.productDeletionRepo = productDeletionRepo;
         this.alertService = alertService;
+        this.searchIndex = searchIndex;
+        this.urlCanonicalizer = urlCanonicalizer;
     }
 
     /**
      * Add a new product to track.
+     * URLs are compared by their canonical product key, so tracking parameters,
+     * path variants and short links of a tracked product find the existing one.
+     * Adding an existing product with a new alert email subscribes that email
+     * to it instead of tracking and scraping the product twice.
+     * Runs outside a transaction, since resolving a short link and the
+     * initial scrape go over the network; each write commits on its own.
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public ProductInfo addProduct(ProductRequest request) {
         String url = request.getUrl().trim();
+        CanonicalUrl canonical = urlCanonicalizer.canonicalize(url);
 
-        // Check for duplicate URL
-        if (productRepo.existsByProductUrl(url)) {
-            throw new DuplicateProductException(url);
+        Optional<ProductInfo> existing = findByCanonicalKey(canonical);
+        if (existing.isPresent()) {
+            return subscribeToExisting(existing.get(), request, url);
         }
 
         // Get appropriate scraper and scrape initial price
-        PriceScraper scraper = scraperFactory.getScraperForUrl(url);
-        ProductPrice scrapedData = scraper.scrape(url);
+        PriceScraper scraper = scraperFactory.getScraperForUrl(canonical.url());
+        ProductPrice scrapedData = scraper.scrape(canonical.url());
 
         // Create product entity
         ProductInfo product = new ProductInfo();
-        product.setProductUrl(url);
+        product.setProductUrl(canonical.url());
+        product.setCanonicalKey(canonical.key());
+        product.setCanonicalKeyHash(canonical.keyHash());
         product.setName(scrapedData.getProductName());
         product.setSourceSite(scraper.getSiteName());
         product.setCurrentPrice(scrapedData.getPrice());
@@ -71,8 +147,20 @@ public class ProductService {
         product.setAlertEmail(request.getAlertEmail());
         product.setActive(true);
 
-        // Save product
-        ProductInfo saved = productRepo.save(product);
+        // Save product; the canonical key's unique slot makes a concurrent add of the same product lose here
+        ProductInfo saved;
+        try {
+            saved = productRepo.save(product);
+        } catch (DataIntegrityViolationException e) {
+            existing = findByCanonicalKey(canonical);
+            if (existing.isPresent()) {
+                return subscribeToExisting(existing.get(), request, url);
+            }
+            // Another product's key has the same hash
+            product.setCanonicalSlot(duplicateCanonicalSlot());
+            saved = productRepo.save(product);
+        }
+        searchIndex.onProductSaved(saved);
         log.info("Added new product: {} ({})", saved.getName(), saved.getSourceSite());
 
         // Save initial price to history
@@ -82,6 +170,86 @@ public class ProductService {
         return saved;
     }
 
+    /**
+     * Subscribe the request's alert email to an already tracked product with
+     * rules matching the alerts it would get as the product's own email.
+     *
+     * @throws DuplicateProductException if there is nothing new to subscribe
+     */
+    private ProductInfo subscribeToExisting(ProductInfo product, ProductRequest request, String url) {
+        String email = request.getAlertEmail() != null ? request.getAlertEmail().trim() : "";
+        if (email.isEmpty() || email.equalsIgnoreCase(product.getAlertEmail())) {
+            throw new DuplicateProductException(url);
+        }
+
+        List<AlertRule> rules = alertRuleService.getRules(product.getId());
+        int added = 0;
+        if (request.getTargetPrice() != null) {
+            added += addRuleIfMissing(rules, product.getId(), email, "TARGET_PRICE", request.getTargetPrice());
+        }
+        added += addRuleIfMissing(rules, product.getId(), email, "PERCENT_DROP", SUBSCRIBER_DROP_PERCENT);
+        if (added == 0) {
+            throw new DuplicateProductException(url);
+        }
+
+        log.info("Subscribed {} to already tracked product {} (ID: {}) instead of tracking {} again",
+                email, product.getName(), product.getId(), url);
+        return product;
+    }
+
+    private int addRuleIfMissing(List<AlertRule> rules, Long productId, String email, String ruleType,
+            BigDecimal threshold) {
+        boolean exists = rules.stream().anyMatch(rule -> rule.getEmail().equalsIgnoreCase(email) &&
+                rule.getRuleType().equals(ruleType) && threshold.compareTo(rule.getThreshold()) == 0);
+        if (exists) {
+            return 0;
+        }
+        alertRuleService.addRule(new AlertRuleRequest(productId, email, ruleType, threshold));
+        return 1;
+    }
+
+    /**
+     * Find the tracked product with a canonical key, if any.
+     * The oldest tracker wins when duplicates were stored before keys existed.
+     */
+    private Optional<ProductInfo> findByCanonicalKey(CanonicalUrl canonical) {
+        return productRepo.findByCanonicalKeyHash(canonical.keyHash()).stream()
+                .filter(product -> canonical.key().equals(product.getCanonicalKey()))
+                .min(Comparator.comparing(ProductInfo::getId));
+    }
+
+    /**
+     * Canonical slot for a product that cannot be its key's tracker of record.
+     */
+    static long duplicateCanonicalSlot() {
+        return ThreadLocalRandom.current().nextLong(1, Long.MAX_VALUE);
+    }
+
+    /**
+     * Record canonical keys for a batch of products stored without one.
+     * Short links are keyed as they are, since resolving them needs the network.
+     * Duplicates tracked before keys existed are kept, in other slots than the first.
+     *
+     * @return Number of products updated; 0 once all have keys
+     */
+    public int backfillCanonicalKeys(int batchSize) {
+        List<ProductInfo> products = productRepo.findByCanonicalKeyHashIsNull(PageRequest.of(0, batchSize));
+        List<CanonicalUrl> canonicals = products.stream()
+                .map(product -> urlCanonicalizer.canonicalizeOffline(product.getProductUrl()))
+                .toList();
+        Set<Long> taken = new HashSet<>(productRepo.findFirstSlotHashesIn(
+                canonicals.stream().map(CanonicalUrl::keyHash).toList()));
+        for (int i = 0; i < products.size(); i++) {
+            ProductInfo product = products.get(i);
+            CanonicalUrl canonical = canonicals.get(i);
+            product.setCanonicalKey(canonical.key());
+            product.setCanonicalKeyHash(canonical.keyHash());
+            product.setCanonicalSlot(taken.add(canonical.keyHash()) ? 0 : duplicateCanonicalSlot());
+        }
+        productRepo.saveAll(products);
+        return products.size();
+    }
+
     /**
      * Get a product by ID.
      */
@@ -93,11 +261,52 @@ public class ProductService {
 
     /**
      * Get product response with analytics.
+     * Served from the read cache while the product's stored updatedAt matches the cached one.
      */
     @Transactional(readOnly = true)
     public ProductResponse getProductResponse(Long id) {
-        ProductInfo product = getProduct(id);
-        return toProductResponse(product);
+        LocalDateTime updatedAt = productRepo.findUpdatedAtById(id)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+        return readCache.getResponse(id, updatedAt, () -> toProductResponse(getProduct(id)));
+    }
+
+    /**
+     * Get everything the detail view shows for a product in one read-only
+     * transaction: the product, its downsampled series and analytics over
+     * the window, and its recent alerts. The product and analytics come from
+     * the read cache when warm, leaving four small queries.
+     */
+    @Transactional(readOnly = true)
+    public ProductDetail getProductDetail(Long id, int days, int maxPoints, int alertLimit) {
+        if (alertLimit < 1 || alertLimit > MAX_DETAIL_ALERTS) {
+            throw new IllegalArgumentException("alerts must be between 1 and " + MAX_DETAIL_ALERTS);
+        }
+        ProductResponse product = getProductResponse(id);
+        return ProductDetail.builder()
+                .product(product)
+                .series(priceHistoryService.getDownsampledHistory(id, days, maxPoints))
+                .analytics(priceHistoryService.getAnalytics(id, days, product.getUpdatedAt()))
+                .recentAlerts(alertService.getRecentAlerts(id, alertLimit))
+                .build();
+    }
+
+    /**
+     * Get the version of a product and its price history, for conditional requests.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getProductVersion(Long id) {
+        LocalDateTime updatedAt = productRepo.findUpdatedAtById(id)
+                .orElseThrow(() -> new ProductNotFoundException(id));
+        return ResourceVersion.of("p" + id, updatedAt, priceHistoryRepo.findLatestScrapedAtByProductId(id));
+    }
+
+    /**
+     * Get the version of the product list, for conditional requests.
+     * Adding, updating, scraping or deleting any product changes it.
+     */
+    @Transactional(readOnly = true)
+    public ResourceVersion getListVersion() {
+        return ResourceVersion.of("l" + productRepo.count(), productRepo.findLatestUpdatedAt());
     }
 
     /**
@@ -112,8 +321,8 @@ public class ProductService {
      * Get all active products.
      */
     @Transactional(readOnly = true)
-    public List<ProductInfo> getActiveProducts() {
-        return productRepo.findByActiveTrue();
+    public List<ProductSummary> getActiveProducts() {
+        return productRepo.findActiveSummaries();
     }
 
     /**
@@ -122,16 +331,85 @@ public class ProductService {
     @Transactional(readOnly = true)
     public List<ProductResponse> getAllProductResponses() {
         return productRepo.findAll().stream()
-                .map(this::toProductResponse)
+                .map(product -> readCache.getResponse(product.getId(), product.getUpdatedAt(),
+                        () -> toProductResponse(product)))
                 .toList();
     }
 
+    /**
+     * Search the catalogue by name with filters, sorting and paging.
+     * Served from the in-memory search index.
+     */
+    public ProductSearchResult searchProducts(String query, String site, Boolean active, boolean priceDrop,
+            String sort, String order, int page, int size) {
+        if (!"asc".equalsIgnoreCase(order) && !"desc".equalsIgnoreCase(order)) {
+            throw new IllegalArgumentException("order must be asc or desc");
+        }
+        return searchIndex.search(query, site, active, priceDrop, sort, "asc".equalsIgnoreCase(order), page, size);
+    }
+
+    /**
+     * Get products changed since a delta-sync cursor, plus deletions.
+     * Without a cursor, or with one older than the deletion log, the full
+     * list is returned with reset set.
+     *
+     * @param cursor Cursor from the previous call, or null for a full sync
+     */
+    @Transactional(readOnly = true)
+    public ProductChanges getChangesSince(String cursor) {
+        LocalDateTime now = LocalDateTime.now();
+        String nextCursor = encodeCursor(now.minus(commitLag));
+
+        LocalDateTime since = cursor == null || cursor.isBlank() ? null : decodeCursor(cursor);
+        if (since == null || since.isBefore(now.minus(deletionRetention))) {
+            return ProductChanges.builder()
+                    .products(getAllProductResponses())
+                    .deleted(List.of())
+                    .cursor(nextCursor)
+                    .reset(true)
+                    .build();
+        }
+
+        return ProductChanges.builder()
+                .products(productRepo.findByUpdatedAtAfter(since).stream()
+                        .map(product -> readCache.getResponse(product.getId(), product.getUpdatedAt(),
+                                () -> toProductResponse(product)))
+                        .toList())
+                .deleted(productDeletionRepo.findProductIdsDeletedAfter(since))
+                .cursor(nextCursor)
+                .reset(false)
+                .build();
+    }
+
+    /**
+     * Drop deletion log entries older than the retention period.
+     */
+    public int pruneDeletionLog() {
+        return productDeletionRepo.deleteOlderThan(LocalDateTime.now().minus(deletionRetention));
+    }
+
+    private String encodeCursor(LocalDateTime time) {
+        return Long.toString(time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), 36);
+    }
+
+    private LocalDateTime decodeCursor(String cursor) {
+        try {
+            return LocalDateTime.ofInstant(Instant.ofEpochMilli(Long.parseLong(cursor, 36)), ZoneId.systemDefault());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid sync cursor: " + cursor);
+        }
+    }
+
     /**
      * Delete a product.
      */
     public void deleteProduct(Long id) {
         ProductInfo product = getProduct(id);
+        alertRuleService.deleteRulesForProduct(id);
         productRepo.delete(product);
+        productDeletionRepo.save(new ProductDeletion(id));
+        readCache.evict(id);
+        searchIndex.onProductDeleted(id);
         log.info("Deleted product: {} (ID: {})", product.getName(), id);
     }
 
@@ -141,6 +419,25 @@ public class ProductService {
     public ProductInfo updateTargetPrice(Long id, java.math.BigDecimal targetPrice) {
         ProductInfo product = getProduct(id);
         product.setTargetPrice(targetPrice);
+        readCache.evict(id);
+        ProductInfo saved = productRepo.save(product);
+        searchIndex.onProductSaved(saved);
+        return saved;
+    }
+
+    /**
+     * Key a product by the page its short link resolved to.
+     * Resolving needs the network, so callers do it outside any transaction.
+     */
+    public ProductInfo updateCanonicalUrl(Long id, CanonicalUrl canonical) {
+        ProductInfo product = getProduct(id);
+        product.setProductUrl(canonical.url());
+        product.setCanonicalKey(canonical.key());
+        product.setCanonicalKeyHash(canonical.keyHash());
+        // A short link can resolve to a product that is tracked already
+        product.setCanonicalSlot(productRepo.existsFirstSlotHolder(canonical.keyHash(), id)
+                ? duplicateCanonicalSlot() : 0);
+        readCache.evict(id);
         return productRepo.save(product);
     }
 
@@ -150,7 +447,10 @@ public class ProductService {
     public ProductInfo updateActiveStatus(Long id, boolean active) {
         ProductInfo product = getProduct(id);
         product.setActive(active);
-        return productRepo.save(product);
+        readCache.evict(id);
+        ProductInfo saved = productRepo.save(product);
+        searchIndex.onProductSaved(saved);
+        return saved;
     }
 
     /**
@@ -159,23 +459,75 @@ public class ProductService {
     public ProductInfo updateProductPrice(Long productId) {
         ProductInfo product = getProduct(productId);
 
-        // Get previous price for comparison
-        java.math.BigDecimal previousPrice = product.getCurrentPrice();
-
         // Scrape current price
         PriceScraper scraper = scraperFactory.getScraperForUrl(product.getProductUrl());
         ProductPrice scrapedData = scraper.scrape(product.getProductUrl());
 
+        return applyScrapedPrice(product, scrapedData);
+    }
+
+    /**
+     * Record an already scraped price for a product.
+     * Used by the async scrape engine once a page has been fetched.
+     */
+    public ProductInfo applyScrapedPrice(Long productId, ProductPrice scrapedData) {
+        return applyScrapedPrice(getProduct(productId), scrapedData);
+    }
+
+    /**
+     * Record an already scraped price for a product and every other active
+     * tracker of the same canonical product, which share its scrape target.
+     *
+     * @return The updated products, the given one first
+     */
+    public List<ProductInfo> applyScrapedPriceToTrackers(Long productId, ProductPrice scrapedData) {
+        ProductInfo product = getProduct(productId);
+        List<ProductInfo> updated = new ArrayList<>();
+        updated.add(applyScrapedPrice(product, scrapedData));
+
+        if (product.getCanonicalKeyHash() != null) {
+            for (ProductInfo other : productRepo.findByCanonicalKeyHash(product.getCanonicalKeyHash())) {
+                if (other.isActive() && !other.getId().equals(productId) &&
+                        product.getCanonicalKey().equals(other.getCanonicalKey())) {
+                    updated.add(applyScrapedPrice(other, scrapedData));
+                }
+            }
+        }
+        return updated;
+    }
+
+    private ProductInfo applyScrapedPrice(ProductInfo product, ProductPrice scrapedData) {
+        Long productId = product.getId();
+
+        // Get previous price for comparison
+        java.math.BigDecimal previousPrice = product.getCurrentPrice();
+
         java.math.BigDecimal newPrice = scrapedData.getPrice();
 
+        // Look up history state only when a subscriber rule needs it
+        AlertRuleIndex rules = alertRuleService.getIndex(productId);
+        PriceChange change = PriceChange.builder()
+                .productId(productId)
+                .oldPrice(previousPrice)
+                .newPrice(newPrice)
+                .available(scrapedData.getAvailable())
+                .previousMinPrice(rules.getAllTimeLowRules().isEmpty() ? null
+                        : priceHistoryRepo.findMinPriceByProductId(productId))
+                .wasAvailable(rules.getBackInStockRules().isEmpty() ? null
+                        : priceHistoryService.getLatestPrice(productId).map(PriceHistory::getAvailable).orElse(null))
+                .build();
+
+        // Imported products carry a placeholder name until their first scrape
+        if (product.getImportId() != null && product.getLastScrapedAt() == null) {
+            product.setName(scrapedData.getProductName());
+        }
+
         // Save to price history
         priceHistoryService.savePrice(product, newPrice,
                 scrapedData.getAvailable(), scrapedData.getCurrency());
 
-        // Check for alert conditions
-        if (previousPrice != null) {
-            alertService.checkAndTriggerAlerts(product, newPrice, previousPrice);
-        }
+        // Alert conditions are checked in batches; the change is queued with the price
+        alertEvaluationStage.submit(change);
 
         log.info("Updated price for {}: {} -> {}", product.getName(), previousPrice, newPrice);
 
@@ -183,6 +535,150 @@ public class ProductService {
         return productRepo.findById(productId).orElse(product);
     }
 
+    /**
+     * Record a batch of externally observed prices without scraping.
+     * An observation names its product by id or canonical key; a key tracked
+     * more than once records the price for each active tracker. Observations
+     * resent with the same idempotency key are dropped, and products whose
+     * current price moved are queued for alert evaluation like scraped ones.
+     */
+    public PriceIngestResult ingestPrices(List<PriceObservation> observations) {
+        List<String> keys = new ArrayList<>(observations.size());
+        Set<Long> ids = new HashSet<>();
+        Set<Long> keyHashes = new HashSet<>();
+        for (PriceObservation observation : observations) {
+            String key = observation.getProductId() != null ? null : canonicalKeyOf(observation.getProductKey());
+            keys.add(key);
+            if (key != null) {
+                keyHashes.add(CanonicalUrl.hash(key));
+            } else {
+                ids.add(observation.getProductId());
+            }
+        }
+
+        Map<Long, ProductInfo> byId = new HashMap<>();
+        Map<String, List<ProductInfo>> byKey = new HashMap<>();
+        addActive(ids.isEmpty() ? List.of() : productRepo.findAllById(ids), byId, null);
+        addActive(keyHashes.isEmpty() ? List.of() : productRepo.findByCanonicalKeyHashIn(keyHashes), byId, byKey);
+
+        // State before the batch, for building the price changes
+        Map<Long, BigDecimal> oldPrices = new HashMap<>();
+        Map<Long, LocalDateTime> oldScrapedAt = new HashMap<>();
+        List<Long> needMin = new ArrayList<>();
+        List<Long> needAvailability = new ArrayList<>();
+        Map<Long, AlertRuleIndex> rules = alertRuleService.getIndexes(byId.keySet());
+        for (ProductInfo product : byId.values()) {
+            oldPrices.put(product.getId(), product.getCurrentPrice());
+            oldScrapedAt.put(product.getId(), product.getLastScrapedAt());
+            AlertRuleIndex index = rules.getOrDefault(product.getId(), AlertRuleIndex.EMPTY);
+            if (!index.getAllTimeLowRules().isEmpty()) {
+                needMin.add(product.getId());
+            }
+            if (!index.getBackInStockRules().isEmpty()) {
+                needAvailability.add(product.getId());
+            }
+        }
+        // History state only for products with rules that need it, one query for all of them
+        Map<Long, BigDecimal> previousMin = new HashMap<>();
+        if (!needMin.isEmpty()) {
+            priceHistoryRepo.findTotalsByProductIds(needMin)
+                    .forEach(totals -> previousMin.put(totals.getProductId(), totals.getMinPrice()));
+        }
+        Map<Long, Boolean> wasAvailable = new HashMap<>();
+        Map<Long, PriceHistory> latestBefore = new HashMap<>();
+        if (!needAvailability.isEmpty()) {
+            // Ties on scrapedAt go to the later insert
+            for (PriceHistory record : priceHistoryRepo.findLatestByProductIds(needAvailability)) {
+                latestBefore.merge(record.getProduct().getId(), record,
+                        (a, b) -> b.getId() > a.getId() ? b : a);
+            }
+            latestBefore.forEach((id, record) -> wasAvailable.put(id, record.getAvailable()));
+        }
+
+        PriceIngestResult result = new PriceIngestResult();
+        LocalDateTime now = LocalDateTime.now();
+        List<PriceHistory> records = new ArrayList<>(observations.size());
+        for (int i = 0; i < observations.size(); i++) {
+            PriceObservation observation = observations.get(i);
+            String key = keys.get(i);
+            List<ProductInfo> targets = key != null ? byKey.getOrDefault(key, List.of())
+                    : byId.containsKey(observation.getProductId()) ? List.of(byId.get(observation.getProductId()))
+                    : List.of();
+            if (targets.isEmpty()) {
+                result.setUnmatched(result.getUnmatched() + 1);
+                continue;
+            }
+
+            LocalDateTime observedAt = observation.getObservedAt() != null
+                    ? LocalDateTime.ofInstant(observation.getObservedAt(), ZoneId.systemDefault())
+                    : now;
+            String idempotencyKey = observation.getIdempotencyKey() != null ? observation.getIdempotencyKey()
+                    : (key != null ? key : "id:" + observation.getProductId()) + "@" + observedAt;
+            for (ProductInfo product : targets) {
+                PriceHistory record = new PriceHistory(product, observation.getPrice(),
+                        observation.getAvailable(), observation.getCurrency());
+                record.setScrapedAt(observedAt);
+                record.setIngestKeyHash(CanonicalUrl.hash(idempotencyKey + "@" + product.getId()));
+                records.add(record);
+            }
+        }
+
+        List<PriceHistory> stored = priceHistoryService.savePrices(records);
+        result.setStored(stored.size());
+        result.setDuplicates(records.size() - stored.size());
+
+        Map<Long, PriceHistory> newest = new HashMap<>();
+        for (PriceHistory record : stored) {
+            newest.merge(record.getProduct().getId(), record,
+                    (a, b) -> b.getScrapedAt().isAfter(a.getScrapedAt()) ? b : a);
+        }
+        List<PriceChange> changes = new ArrayList<>();
+        for (PriceHistory latest : newest.values()) {
+            ProductInfo product = latest.getProduct();
+            if (Objects.equals(oldScrapedAt.get(product.getId()), product.getLastScrapedAt())) {
+                continue; // Only filled in older history
+            }
+            changes.add(PriceChange.builder()
+                    .productId(product.getId())
+                    .oldPrice(oldPrices.get(product.getId()))
+                    .newPrice(product.getCurrentPrice())
+                    .available(latest.getAvailable())
+                    .previousMinPrice(previousMin.get(product.getId()))
+                    .wasAvailable(wasAvailable.get(product.getId()))
+                    .build());
+        }
+        alertEvaluationStage.submitAll(changes);
+        result.setPriceChanges(changes.size());
+        return result;
+    }
+
+    /**
+     * The canonical key an observation names: a product URL is canonicalised,
+     * anything else is taken as a key.
+     */
+    private String canonicalKeyOf(String productKey) {
+        if (productKey == null) {
+            return null;
+        }
+        String key = productKey.trim();
+        return key.startsWith("http://") || key.startsWith("https://")
+                ? urlCanonicalizer.canonicalizeOffline(key).key()
+                : key;
+    }
+
+    private void addActive(Collection<ProductInfo> products, Map<Long, ProductInfo> byId,
+            Map<String, List<ProductInfo>> byKey) {
+        for (ProductInfo product : products) {
+            if (!product.isActive()) {
+                continue;
+            }
+            byId.put(product.getId(), product);
+            if (byKey != null) {
+                byKey.computeIfAbsent(product.getCanonicalKey(), k -> new ArrayList<>()).add(product);
+            }
+        }
+    }
+
     /**
      * Get products by scrape frequency.
      */
@@ -195,6 +691,7 @@ public class ProductService {
      * Convert ProductInfo to ProductResponse with analytics.
      */
     private ProductResponse toProductResponse(ProductInfo product) {
+        PriceStats stats = priceHistoryRepo.findStatsByProductId(product.getId());
         return ProductResponse.builder()
                 .id(product.getId())
                 .name(product.getName())
@@ -207,10 +704,10 @@ public class ProductService {
                 .active(product.isActive())
                 .createdAt(product.getCreatedAt())
                 .updatedAt(product.getUpdatedAt())
-                .minPrice(priceHistoryRepo.findMinPriceByProductId(product.getId()))
-                .maxPrice(priceHistoryRepo.findMaxPriceByProductId(product.getId()))
-                .avgPrice(priceHistoryRepo.findAvgPriceByProductId(product.getId()))
-                .priceRecordCount(priceHistoryRepo.countByProductId(product.getId()))
+                .minPrice(stats.getMinPrice())
+                .maxPrice(stats.getMaxPrice())
+                .avgPrice(stats.getAvgPrice() != null ? BigDecimal.valueOf(stats.getAvgPrice()) : null)
+                .priceRecordCount(stats.getRecordCount())
                 .build();
     }
 }
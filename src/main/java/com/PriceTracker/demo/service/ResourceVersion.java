@@ -0,0 +1,44 @@
+package com.PriceTracker.demo.service;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Validator for a cacheable API resource: an ETag plus the last modification
+ * time in epoch millis, both derived without running aggregate queries.
+ */
+public record ResourceVersion(String etag, long lastModified) {
+
+    static ResourceVersion of(String prefix, LocalDateTime... changedAt) {
+        StringBuilder etag = new StringBuilder(prefix);
+        long lastModified = 0;
+        for (LocalDateTime time : changedAt) {
+            long millis = toMillis(time);
+            etag.append('-').append(Long.toString(millis, 36));
+            lastModified = Math.max(lastModified, millis);
+        }
+        return new ResourceVersion(etag.toString(), lastModified);
+    }
+
+    /**
+     * Version of a view over the last N days. The window moves with the clock,
+     * so the version also changes every hour as old records drop out.
+     */
+    public ResourceVersion forWindow(int days) {
+        long hour = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).minusDays(days)
+                .atZone(ZoneId.systemDefault()).toEpochSecond() / 3600;
+        return new ResourceVersion(etag + "-w" + days + "-" + Long.toString(hour, 36), lastModified);
+    }
+
+    /**
+     * Version of another representation of the same data, such as a downsampled series.
+     */
+    public ResourceVersion withVariant(String variant) {
+        return new ResourceVersion(etag + "-" + variant, lastModified);
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time == null ? 0 : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
@@ -0,0 +1,134 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.ProductRequest;
+import com.PriceTracker.demo.dto.ScrapeJob;
+import com.PriceTracker.demo.exception.ScrapeJobNotFoundException;
+import com.PriceTracker.demo.exception.ScrapeJobOnOtherNodeException;
+import com.PriceTracker.demo.models.ProductInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Service for running API-triggered scrapes on the scrape executor.
+ * Keeps a registry of recent jobs so their status can be polled.
+ * The registry is per node, like the executor running the jobs: a job id
+ * starts with the id of its node, and only that node answers polls for it.
+ * Behind a load balancer, route /api/scrape-jobs/{id} on that prefix or use
+ * sticky sessions; other nodes answer 421 naming the job's node.
+ */
+@Service
+public class ScrapeJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScrapeJobService.class);
+
+    private final ThreadPoolTaskExecutor scrapeExecutor;
+    private final PriceRefreshService priceRefreshService;
+    private final ProductService productService;
+    private final String nodeId;
+
+    private final Map<String, ScrapeJob> jobs = new ConcurrentHashMap<>();
+
+    @Value("${app.scrape.job-retention:1h}")
+    private Duration jobRetention;
+
+    public ScrapeJobService(@Qualifier("scrapeExecutor") ThreadPoolTaskExecutor scrapeExecutor,
+            PriceRefreshService priceRefreshService,
+            ProductService productService,
+            ScrapeLeaseService leaseService) {
+        this.scrapeExecutor = scrapeExecutor;
+        this.priceRefreshService = priceRefreshService;
+        this.productService = productService;
+        this.nodeId = leaseService.getNodeId();
+    }
+
+    /**
+     * Submit a price refresh for an existing product.
+     */
+    public ScrapeJob submitScrape(Long productId, boolean force) {
+        ScrapeJob job = newJob("SCRAPE", productId, null);
+        return submit(job, () -> priceRefreshService.refresh(productId, force));
+    }
+
+    /**
+     * Submit adding a new product, including its initial scrape.
+     */
+    public ScrapeJob submitAddProduct(ProductRequest request) {
+        ScrapeJob job = newJob("ADD_PRODUCT", null, request.getUrl());
+        return submit(job, () -> productService.addProduct(request));
+    }
+
+    /**
+     * Get a job by ID.
+     *
+     * @throws ScrapeJobOnOtherNodeException If the job was submitted to another node
+     */
+    public ScrapeJob getJob(String jobId) {
+        ScrapeJob job = jobs.get(jobId);
+        if (job != null) {
+            return job;
+        }
+        int separator = jobId.lastIndexOf('.');
+        if (separator > 0 && !jobId.substring(0, separator).equals(nodeId)) {
+            throw new ScrapeJobOnOtherNodeException(jobId, jobId.substring(0, separator));
+        }
+        throw new ScrapeJobNotFoundException(jobId);
+    }
+
+    private ScrapeJob newJob(String type, Long productId, String url) {
+        return ScrapeJob.builder()
+                .id(nodeId + "." + UUID.randomUUID())
+                .nodeId(nodeId)
+                .type(type)
+                .status("PENDING")
+                .productId(productId)
+                .url(url)
+                .submittedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private ScrapeJob submit(ScrapeJob job, Supplier<ProductInfo> work) {
+        evictFinishedJobs();
+
+        // Rejected with TaskRejectedException if the executor queue is full
+        CompletableFuture<ProductInfo> future = scrapeExecutor.submitCompletable(() -> {
+            job.setStatus("RUNNING");
+            return work.get();
+        });
+
+        job.setFuture(future);
+        jobs.put(job.getId(), job);
+
+        // Status last, so a poll that sees a finished job also sees its result
+        future.whenComplete((product, ex) -> {
+            job.setFinishedAt(LocalDateTime.now());
+            if (ex != null) {
+                Throwable cause = ex.getCause() != null ? ex.getCause() : ex;
+                job.setError(cause.getMessage());
+                job.setStatus("FAILED");
+                log.warn("{} job {} failed: {}", job.getType(), job.getId(), cause.getMessage());
+            } else {
+                job.setProductId(product.getId());
+                job.setStatus("DONE");
+            }
+        });
+
+        return job;
+    }
+
+    private void evictFinishedJobs() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(jobRetention);
+        jobs.values().removeIf(job -> job.getFinishedAt() != null && job.getFinishedAt().isBefore(cutoff));
+    }
+}
@@ -0,0 +1,140 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Service for distributing scrape work across application nodes.
+ * Nodes claim batches of due products through lease columns on the products
+ * table, so each product is scraped by exactly one node per run. Leases of a
+ * crashed node simply expire and are re-claimed by the others.
+ */
+@Service
+@Transactional
+public class ScrapeLeaseService {
+
+    private static final Logger log = LoggerFactory.getLogger(ScrapeLeaseService.class);
+
+    private final ProductRepo productRepo;
+    private final String nodeId;
+
+    @Value("${app.scrape.lease-duration:15m}")
+    private Duration leaseDuration;
+
+    @Value("${app.scrape.lease-batch-size:20}")
+    private int batchSize;
+
+    public ScrapeLeaseService(ProductRepo productRepo,
+            @Value("${app.scrape.node-id:}") String nodeId) {
+        this.productRepo = productRepo;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+        log.info("Scrape lease node id: {}", this.nodeId);
+    }
+
+    /**
+     * Claim the next batch of products due now for the given frequency.
+     * Returns an empty list when nothing is left to claim.
+     */
+    public List<ProductInfo> claimBatch(String frequency) {
+        return claimBatch(frequency, LocalDateTime.now());
+    }
+
+    /**
+     * Claim the next batch of products that were due at the given run time.
+     * Products scraped after the run started are not due again for that run.
+     */
+    public List<ProductInfo> claimBatch(String frequency, LocalDateTime dueAt) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Long> candidates = productRepo.findClaimableIds(
+                frequency, dueAt.minus(minimumInterval(frequency)), now, PageRequest.of(0, batchSize));
+        return claim(candidates, frequency, now);
+    }
+
+    /**
+     * Claim specific products that are still due at the given run time.
+     */
+    public List<ProductInfo> claimIds(Collection<Long> ids, String frequency, LocalDateTime dueAt) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        List<Long> candidates = productRepo.findClaimableIdsIn(ids, dueAt.minus(minimumInterval(frequency)), now);
+        return claim(candidates, frequency, now);
+    }
+
+    /**
+     * Claim imported products still waiting for their initial scrape.
+     */
+    public List<ProductInfo> claimPendingImports(int limit) {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        return claim(productRepo.findPendingImportIds(now, PageRequest.of(0, limit)), "IMPORT", now);
+    }
+
+    /**
+     * Find products a run started at runDueAt will not scrape but which are due
+     * again at laterDueAt - they were scraped between the two due thresholds.
+     */
+    @Transactional(readOnly = true)
+    public List<Long> findDueAfterRun(String frequency, LocalDateTime runDueAt, LocalDateTime laterDueAt, int limit) {
+        Duration interval = minimumInterval(frequency);
+        return productRepo.findIdsLastScrapedBetween(frequency,
+                runDueAt.minus(interval), laterDueAt.minus(interval), PageRequest.of(0, limit));
+    }
+
+    private List<ProductInfo> claim(List<Long> candidates, String frequency, LocalDateTime now) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        // Another node may win some of the candidates between the select and the update
+        LocalDateTime leaseUntil = now.plus(leaseDuration);
+        int claimed = productRepo.claimLeases(candidates, nodeId, leaseUntil, now);
+        log.debug("Node {} claimed {} of {} {} candidates", nodeId, claimed, candidates.size(), frequency);
+
+        return productRepo.findByIdInAndLeaseOwnerAndLeaseUntil(candidates, nodeId, leaseUntil);
+    }
+
+    /**
+     * Release the lease on a product after it was scraped.
+     */
+    public void release(Long productId) {
+        productRepo.releaseLease(productId, nodeId);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * A product scraped more recently than half its period is not due again,
+     * which keeps nodes whose cron fires slightly later from re-scraping it.
+     */
+    private Duration minimumInterval(String frequency) {
+        return "HOURLY".equals(frequency) ? Duration.ofMinutes(30) : Duration.ofHours(12);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
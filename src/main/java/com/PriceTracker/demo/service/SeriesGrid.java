@@ -0,0 +1,106 @@
+package com.PriceTracker.demo.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aligns the price series of several products on one grid of equal time
+ * intervals. Each grid point holds the product's last price at or before
+ * it, carried forward over intervals without a new price, so every series
+ * has one value per timestamp and charts can overlay them directly.
+ * Points are fed one at a time in time order per product; only one row per
+ * product is held, whatever the length of the underlying history.
+ */
+class SeriesGrid {
+
+    private final long start;
+    private final long step;
+    private final long[] timestamps;
+    private final Map<Long, Column> columns = new LinkedHashMap<>();
+
+    /**
+     * @param productIds Products in column order
+     * @param from       Start of the window
+     * @param to         End of the window, the last timestamp
+     * @param points     Number of grid points
+     */
+    SeriesGrid(List<Long> productIds, LocalDateTime from, LocalDateTime to, int points) {
+        this.start = toMillis(from);
+        this.step = Math.max(1, (toMillis(to) - start) / points);
+        this.timestamps = new long[points];
+        for (int i = 0; i < points; i++) {
+            timestamps[i] = start + step * (i + 1);
+        }
+        for (Long id : productIds) {
+            columns.putIfAbsent(id, new Column(points));
+        }
+    }
+
+    /**
+     * Set the price a product's series starts from, before the window opens.
+     */
+    void startFrom(Long productId, BigDecimal price) {
+        Column column = columns.get(productId);
+        if (column != null && column.filled == 0) {
+            column.last = price;
+        }
+    }
+
+    /**
+     * Add the next price of a product, in time order for that product.
+     */
+    void accept(Long productId, LocalDateTime scrapedAt, BigDecimal price) {
+        Column column = columns.get(productId);
+        if (column == null) {
+            return;
+        }
+        // First grid point at or after the price
+        long offset = toMillis(scrapedAt) - start;
+        int index = (int) Math.min(timestamps.length - 1, Math.max(0, (offset + step - 1) / step - 1));
+        column.fillTo(index);
+        column.last = price;
+    }
+
+    List<Long> productIds() {
+        return new ArrayList<>(columns.keySet());
+    }
+
+    List<Long> timestamps() {
+        return Arrays.stream(timestamps).boxed().toList();
+    }
+
+    List<List<BigDecimal>> prices() {
+        List<List<BigDecimal>> prices = new ArrayList<>(columns.size());
+        for (Column column : columns.values()) {
+            column.fillTo(timestamps.length);
+            prices.add(Arrays.asList(column.values));
+        }
+        return prices;
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Column {
+        private final BigDecimal[] values;
+        private int filled; // Grid points before this one are final
+        private BigDecimal last;
+
+        private Column(int points) {
+            this.values = new BigDecimal[points];
+        }
+
+        private void fillTo(int index) {
+            for (; filled < index; filled++) {
+                values[filled] = last;
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package com.PriceTracker.demo.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Immutable fixed-point amount of money: a count of minor units (paise,
+ * cents) plus a currency code. Arithmetic is on a long, so the alert and
+ * analytics paths allocate no BigDecimal per operation. Converts exactly to
+ * and from the DECIMAL(10,2) price columns.
+ *
+ * @param minorUnits Amount in hundredths of the currency unit
+ * @param currency   ISO currency code, or null where it is not known
+ */
+public record Money(long minorUnits, String currency) implements Comparable<Money> {
+
+    // Decimal places of the price columns
+    public static final int SCALE = 2;
+
+    private static final long UNIT = 100;
+    private static final long BASIS_POINTS = 10_000;
+
+    /**
+     * Convert a stored or requested price. Fails rather than rounds when the
+     * amount has more than two decimal places.
+     */
+    public static Money of(BigDecimal amount, String currency) {
+        try {
+            return new Money(amount.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact(),
+                    currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Not an amount of money: " + amount, e);
+        }
+    }
+
+    /**
+     * Convert a price that may be null, such as a product's current price.
+     */
+    public static Money ofNullable(BigDecimal amount, String currency) {
+        return amount == null ? null : of(amount, currency);
+    }
+
+    /**
+     * Read the price in scraped text such as "₹1,29,999.00" or "$29.99".
+     * Currency symbols, grouping separators and other characters are skipped;
+     * only digits and one decimal point are read.
+     *
+     * @return The price, or null if the text has no digits
+     * @throws NumberFormatException If there is more than one decimal point or
+     *                               more than two decimal places
+     */
+    public static Money parse(CharSequence text, String currency) {
+        long units = 0;
+        int decimals = -1; // Digits read after the point, -1 before it
+        boolean digits = false;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (decimals >= SCALE) {
+                    throw new NumberFormatException("More than " + SCALE + " decimal places: " + text);
+                }
+                units = Math.addExact(Math.multiplyExact(units, 10), c - '0');
+                digits = true;
+                if (decimals >= 0) {
+                    decimals++;
+                }
+            } else if (c == '.') {
+                if (decimals >= 0) {
+                    throw new NumberFormatException("More than one decimal point: " + text);
+                }
+                decimals = 0;
+            }
+        }
+        if (!digits) {
+            return null;
+        }
+        for (int d = Math.max(decimals, 0); d < SCALE; d++) {
+            units = Math.multiplyExact(units, 10);
+        }
+        return new Money(units, currency);
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public Money minus(Money other) {
+        return new Money(Math.subtractExact(minorUnits, other.minorUnits), currencyWith(other));
+    }
+
+    public boolean isPositive() {
+        return minorUnits > 0;
+    }
+
+    /**
+     * Change from this amount to another as a share of this one, in basis
+     * points (hundredths of a percent), rounded half up. Zero if this is zero.
+     */
+    public long changeBasisPointsTo(Money other) {
+        currencyWith(other);
+        if (minorUnits == 0) {
+            return 0;
+        }
+        long change = Math.multiplyExact(Math.subtractExact(other.minorUnits, minorUnits), BASIS_POINTS);
+        long quotient = change / minorUnits;
+        long remainder = Math.abs(change % minorUnits);
+        if (remainder * 2 >= Math.abs(minorUnits)) {
+            quotient += Long.signum(change) * Long.signum(minorUnits);
+        }
+        return quotient;
+    }
+
+    /**
+     * Whether the other amount is at least the given whole percent below this one.
+     */
+    public boolean dropsByAtLeast(Money other, int percent) {
+        currencyWith(other);
+        return Math.multiplyExact(minorUnits - other.minorUnits, UNIT) >= Math.multiplyExact(minorUnits, percent);
+    }
+
+    /**
+     * A count of basis points as a percentage with two decimal places, e.g. 1250 as 12.50.
+     */
+    public static BigDecimal basisPointsToPercent(long basisPoints) {
+        return BigDecimal.valueOf(basisPoints, 2);
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        currencyWith(other);
+        return Long.compare(minorUnits, other.minorUnits);
+    }
+
+    @Override
+    public String toString() {
+        return currency == null ? toBigDecimal().toPlainString() : toBigDecimal().toPlainString() + " " + currency;
+    }
+
+    // The currency of a result combining two amounts; unknown currencies combine with any
+    private String currencyWith(Money other) {
+        if (currency != null && other.currency != null && !currency.equals(other.currency)) {
+            throw new IllegalArgumentException("Cannot combine " + currency + " with " + other.currency);
+        }
+        return currency != null ? currency : other.currency;
+    }
+}
@@ -0,0 +1,57 @@
+-- Upgrades a MySQL schema created before products were deduplicated by canonical key.
+-- spring.jpa.hibernate.ddl-auto=update adds new columns and indexes but never drops
+-- or widens existing ones, so these steps are run by hand:
+--
+--   mysql -u root -p Pricetracker < src/main/resources/db/upgrade-canonical-keys.mysql.sql
+--
+-- Every step checks the current schema first, so the script can be run again safely.
+
+-- 1. Drop the old unique key on product_url. URLs that differ only cosmetically now map
+--    to one canonical key instead, and the key is too short for the widened column.
+--    Hibernate named it itself, so look the name up.
+SET @uk = (SELECT index_name FROM information_schema.statistics
+           WHERE table_schema = DATABASE() AND table_name = 'products'
+             AND column_name = 'product_url' AND non_unique = 0
+           LIMIT 1);
+SET @ddl = IF(@uk IS NULL, 'DO 0', CONCAT('ALTER TABLE products DROP INDEX `', @uk, '`'));
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 2. Widen product_url to the 2048 characters the entity maps.
+ALTER TABLE products MODIFY product_url VARCHAR(2048) NOT NULL;
+
+-- 3. Only needed if the application already ran once and stored canonical keys before the
+--    canonical_slot column existed: the unique key on (canonical_key_hash, canonical_slot)
+--    then failed to create on rows tracking the same product. The oldest row of each key
+--    keeps slot 0 and later ones take their id, which no other row of the key can hold.
+SET @has_slot = (SELECT COUNT(*) FROM information_schema.columns
+                 WHERE table_schema = DATABASE() AND table_name = 'products'
+                   AND column_name = 'canonical_slot');
+SET @has_uk = (SELECT COUNT(*) FROM information_schema.statistics
+               WHERE table_schema = DATABASE() AND table_name = 'products'
+                 AND index_name = 'uk_product_canonical');
+SET @ddl = IF(@has_slot = 0 OR @has_uk > 0, 'DO 0',
+        'UPDATE products p
+         JOIN (SELECT canonical_key_hash, MIN(id) AS first_id FROM products
+               WHERE canonical_key_hash IS NOT NULL GROUP BY canonical_key_hash) f
+           ON p.canonical_key_hash = f.canonical_key_hash
+         SET p.canonical_slot = IF(p.id = f.first_id, 0, p.id)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+SET @ddl = IF(@has_slot = 0 OR @has_uk > 0, 'DO 0',
+        'ALTER TABLE products ADD CONSTRAINT uk_product_canonical UNIQUE (canonical_key_hash, canonical_slot)');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
+
+-- 4. The unique key replaces the plain index on canonical_key_hash.
+SET @idx = (SELECT COUNT(*) FROM information_schema.statistics
+            WHERE table_schema = DATABASE() AND table_name = 'products'
+              AND index_name = 'idx_product_canonical');
+SET @ddl = IF(@idx = 0, 'DO 0', 'ALTER TABLE products DROP INDEX idx_product_canonical');
+PREPARE stmt FROM @ddl;
+EXECUTE stmt;
+DEALLOCATE PREPARE stmt;
@@ -0,0 +1,97 @@
+package com.PriceTracker.demo;
+
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.service.ScrapeLeaseService;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs two application contexts against one H2 database to check that
+ * scrape leases hand every due product to exactly one node.
+ */
+class ScrapeLeaseServiceTests {
+
+    private static final String DB_URL = "jdbc:h2:mem:leasetest;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=FALSE";
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode("node-a", "create-drop");
+        nodeB = startNode("node-b", "none");
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        nodeB.close();
+        nodeA.close();
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId, String ddlAuto) {
+        return new SpringApplicationBuilder(PriceTrackerApplication.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .run("--spring.datasource.url=" + DB_URL,
+                        "--spring.jpa.hibernate.ddl-auto=" + ddlAuto,
+                        "--app.scrape.node-id=" + nodeId,
+                        "--app.scrape.lease-batch-size=5",
+                        "--app.scrape.lease-duration=2s");
+    }
+
+    @Test
+    void nodesClaimDisjointBatchesAndReclaimExpiredLeases() throws Exception {
+        ProductRepo productRepo = nodeA.getBean(ProductRepo.class);
+        productRepo.deleteAll();
+        for (int i = 0; i < 40; i++) {
+            ProductInfo product = new ProductInfo();
+            product.setName("Product " + i);
+            product.setProductUrl("https://www.amazon.in/dp/LEASE" + i);
+            product.setScrapeFrequency("HOURLY");
+            productRepo.save(product);
+        }
+
+        CompletableFuture<List<Long>> a = CompletableFuture.supplyAsync(() -> drain(nodeA));
+        CompletableFuture<List<Long>> b = CompletableFuture.supplyAsync(() -> drain(nodeB));
+        List<Long> claimedByA = a.get();
+        List<Long> claimedByB = b.get();
+
+        Set<Long> all = new HashSet<>(claimedByA);
+        all.addAll(claimedByB);
+        assertEquals(40, claimedByA.size() + claimedByB.size(), "every product claimed exactly once");
+        assertEquals(40, all.size());
+
+        // Nothing was released, so node B takes over node A's leases once they expire
+        Thread.sleep(2500);
+        List<Long> reclaimed = drain(nodeB);
+        assertEquals(40, reclaimed.size());
+
+        // Released products were not scraped, so a release makes them claimable again
+        ScrapeLeaseService leaseB = nodeB.getBean(ScrapeLeaseService.class);
+        reclaimed.forEach(leaseB::release);
+        assertEquals(40, drain(nodeA).size());
+    }
+
+    private static List<Long> drain(ConfigurableApplicationContext node) {
+        ScrapeLeaseService leaseService = node.getBean(ScrapeLeaseService.class);
+        List<Long> claimed = new ArrayList<>();
+        List<ProductInfo> batch;
+        while (!(batch = leaseService.claimBatch("HOURLY")).isEmpty()) {
+            batch.forEach(product -> claimed.add(product.getId()));
+        }
+        return claimed;
+    }
+}
@@ -0,0 +1,387 @@
+package com.PriceTracker.demo.controller;
+
+import com.PriceTracker.demo.dto.PriceHistoryPage;
+import com.PriceTracker.demo.dto.ProductChanges;
+import com.PriceTracker.demo.models.PriceHistory;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.PriceHistoryBatchRepo;
+import com.PriceTracker.demo.repositories.PriceHistoryRepo;
+import com.PriceTracker.demo.repositories.ProductDeletionRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.scraper.CanonicalUrl;
+import com.PriceTracker.demo.service.PriceHistoryService;
+import com.PriceTracker.demo.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks the product endpoints end to end: conditional reads, the forms
+ * price history can be read in, delta sync and bulk import.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class ProductControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private PriceHistoryRepo priceHistoryRepo;
+
+    @Autowired
+    private PriceHistoryBatchRepo priceHistoryBatchRepo;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductDeletionRepo productDeletionRepo;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void cleanUp() {
+        priceHistoryRepo.deleteAll();
+        productRepo.deleteAll();
+        productDeletionRepo.deleteAll();
+    }
+
+    /**
+     * Reads answer 304 until the product or its price history changes.
+     */
+    @Test
+    void answersUnchangedReadsWithNotModified() throws Exception {
+        ProductInfo product = new ProductInfo();
+        product.setName("Validated Phone");
+        product.setProductUrl("https://www.amazon.in/dp/ETAG1");
+        product.setScrapeFrequency("DAILY");
+        product = productRepo.save(product);
+        priceHistoryService.savePrice(product, new BigDecimal("1000.00"), true, "INR");
+
+        for (String path : new String[] { "/api/products", "/api/products/" + product.getId(),
+                "/api/products/" + product.getId() + "/analytics?days=30" }) {
+            String etag = mockMvc.perform(get(path))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+            assertNotNull(etag, path);
+
+            mockMvc.perform(get(path).header(HttpHeaders.IF_NONE_MATCH, etag))
+                    .andExpect(status().isNotModified());
+        }
+
+        String etag = mockMvc.perform(get("/api/products/" + product.getId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        Thread.sleep(5); // updatedAt must move on for the new price
+        priceHistoryService.savePrice(product, new BigDecimal("900.00"), true, "INR");
+
+        mockMvc.perform(get("/api/products/" + product.getId()).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+
+    /**
+     * Downsampled history keeps its first, last and extreme prices.
+     */
+    @Test
+    void downsamplesHistoryToMaxPoints() throws Exception {
+        ProductInfo product = saveProduct("https://www.amazon.in/dp/SERIES1");
+        for (int i = 0; i < 60; i++) {
+            priceHistoryService.savePrice(product, BigDecimal.valueOf(i == 30 ? 100 : 1000 + i), true, "INR");
+        }
+
+        String etag = mockMvc.perform(get("/api/products/" + product.getId() + "/prices/all")
+                        .param("maxPoints", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(10))
+                .andExpect(jsonPath("$[0].price").value(1000.0))
+                .andExpect(jsonPath("$[9].price").value(1059.0))
+                .andExpect(jsonPath("$[?(@.price == 100.0)]").isNotEmpty())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertTrue(etag.endsWith("-p10\""), etag);
+
+        mockMvc.perform(get("/api/products/" + product.getId() + "/prices").param("maxPoints", "2"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Several products' series come back on one grid, each starting from its price before the window.
+     */
+    @Test
+    void alignsSeriesOfSeveralProductsOnOneGrid() throws Exception {
+        ProductInfo first = saveProduct("https://www.amazon.in/dp/SERIES2");
+        ProductInfo second = saveProduct("https://www.amazon.in/dp/SERIES3");
+        LocalDateTime now = LocalDateTime.now();
+        priceHistoryBatchRepo.insertAll(List.of(
+                pricedAt(first, 500, now.minusDays(10)),
+                pricedAt(first, 400, now.minusDays(2)),
+                pricedAt(second, 900, now.minusDays(5))));
+
+        String body = "{\"productIds\":[" + first.getId() + "," + second.getId() + "],\"days\":7,\"maxPoints\":7}";
+        mockMvc.perform(post("/api/products/series").contentType("application/json").content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.productIds[1]").value(second.getId()))
+                .andExpect(jsonPath("$.timestamps.length()").value(7))
+                // The first series starts from its price before the window
+                .andExpect(jsonPath("$.prices[0][0]").value(500.0))
+                .andExpect(jsonPath("$.prices[0][6]").value(400.0))
+                .andExpect(jsonPath("$.prices[1][0]").doesNotExist())
+                .andExpect(jsonPath("$.prices[1][6]").value(900.0));
+
+        mockMvc.perform(post("/api/products/series").contentType("application/json")
+                        .content("{\"productIds\":[" + first.getId() + ",-1]}"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/api/products/series").contentType("application/json")
+                        .content("{\"productIds\":[]}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * History is sent in binary when asked for by Accept, and decodes to the stored prices.
+     * Other list endpoints answer that Accept with 406.
+     */
+    @Test
+    void negotiatesCompactBinarySeries() throws Exception {
+        ProductInfo product = saveProduct("https://www.amazon.in/dp/BINARY1");
+        LocalDateTime start = LocalDateTime.now().minusDays(1).withNano(0);
+        List<PriceHistory> rows = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rows.add(pricedAt(product, 40000 + (i % 7) * 50, start.plusMinutes(i)));
+        }
+        priceHistoryBatchRepo.insertAll(rows);
+        String path = "/api/products/" + product.getId() + "/prices";
+
+        var json = mockMvc.perform(get(path).param("days", "2"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        var binary = mockMvc.perform(get(path).param("days", "2").accept("application/vnd.pricetracker.series"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/vnd.pricetracker.series"))
+                .andReturn().getResponse();
+        assertNotEquals(json.getHeader(HttpHeaders.ETAG), binary.getHeader(HttpHeaders.ETAG));
+
+        // Lists of anything but prices have no binary form
+        mockMvc.perform(get("/api/products").accept("application/vnd.pricetracker.series"))
+                .andExpect(status().isNotAcceptable());
+
+        byte[] body = binary.getContentAsByteArray();
+        int jsonSize = json.getContentAsByteArray().length;
+        assertTrue(jsonSize >= 10 * body.length, jsonSize + " bytes of JSON, " + body.length + " binary");
+
+        // Decode as the frontend does
+        ByteBuffer in = ByteBuffer.wrap(body);
+        assertEquals(1, in.get());
+        assertEquals(2, in.get());
+        assertEquals(1000, readVarint(in));
+        long seconds = 0;
+        long units = 0;
+        for (int i = 0; i < 1000; i++) {
+            seconds += unzigzag(readVarint(in));
+            long packed = readVarint(in);
+            units += unzigzag(packed >>> 2);
+            assertEquals(1, packed & 3);
+            assertEquals(start.plusMinutes(i).atZone(ZoneId.systemDefault()).toEpochSecond(), seconds);
+            assertEquals((40000 + (i % 7) * 50) * 100L, units);
+        }
+        assertFalse(in.hasRemaining());
+    }
+
+    /**
+     * Long history is paged by cursor without repeats and exported in full.
+     */
+    @Test
+    void pagesAndExportsLongHistory() throws Exception {
+        ProductInfo product = saveProduct("https://www.amazon.in/dp/EXPORT1");
+        List<PriceHistory> rows = new ArrayList<>();
+        for (int i = 0; i < 2500; i++) {
+            rows.add(new PriceHistory(product, BigDecimal.valueOf(1000 + i % 100), true, "INR"));
+        }
+        priceHistoryRepo.saveAll(rows);
+
+        // Walk every page; rows saved together share timestamps, so the id tie-break must hold
+        Set<Long> seen = new HashSet<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            PriceHistoryPage page = priceHistoryService.getHistoryPage(product.getId(), cursor, 1000);
+            page.getItems().forEach(record -> assertTrue(seen.add(record.getId()), "duplicate " + record.getId()));
+            cursor = page.getNextCursor();
+            pages++;
+        } while (cursor != null);
+        assertEquals(2500, seen.size());
+        assertEquals(3, pages);
+
+        for (String format : new String[] { "ndjson", "csv" }) {
+            var async = mockMvc.perform(get("/api/products/" + product.getId() + "/prices/export")
+                            .param("format", format))
+                    .andExpect(request().asyncStarted())
+                    .andReturn();
+            String body = mockMvc.perform(asyncDispatch(async))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString();
+
+            String[] lines = body.split("\n");
+            assertEquals(format.equals("csv") ? 2501 : 2500, lines.length, format);
+        }
+
+        mockMvc.perform(get("/api/products/" + product.getId() + "/prices/page").param("before", "nope"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/" + product.getId() + "/prices/export").param("format", "xml"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Delta sync returns only products changed and deleted since the cursor.
+     */
+    @Test
+    void deltaSyncReturnsChangedProductsAndTombstones() throws Exception {
+        ProductInfo kept = saveProduct("https://www.amazon.in/dp/SYNC1");
+        ProductInfo removed = saveProduct("https://www.amazon.in/dp/SYNC2");
+
+        ProductChanges full = productService.getChangesSince(null);
+        assertTrue(full.isReset());
+        assertEquals(2, full.getProducts().size());
+
+        priceHistoryService.savePrice(kept, new BigDecimal("750.00"), true, "INR");
+        mockMvc.perform(delete("/api/products/" + removed.getId()))
+                .andExpect(status().isNoContent());
+
+        mockMvc.perform(get("/api/products/changes").param("since", full.getCursor()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.reset").value(false))
+                .andExpect(jsonPath("$.products[?(@.id == %d)].currentPrice", kept.getId()).value(750.0))
+                .andExpect(jsonPath("$.products[?(@.id == %d)]", removed.getId()).isEmpty())
+                .andExpect(jsonPath("$.deleted[0]").value(removed.getId()));
+
+        mockMvc.perform(get("/api/products/changes").param("since", "not a cursor"))
+                .andExpect(status().isBadRequest());
+    }
+
+    /**
+     * Bulk imports store new products as pending and count duplicates and invalid rows.
+     */
+    @Test
+    void importsUploadAsPendingProducts() throws Exception {
+        ProductInfo tracked = saveProduct("https://www.amazon.in/dp/B0EXIST001");
+        CanonicalUrl canonical = new CanonicalUrl("amazon.in:B0EXIST001", tracked.getProductUrl());
+        tracked.setCanonicalKey(canonical.key());
+        tracked.setCanonicalKeyHash(canonical.keyHash());
+        productRepo.save(tracked);
+
+        String ndjson = """
+                {"url":"https://www.amazon.in/Some-Phone/dp/B0IMPORT01/ref=sr_1?tag=aff-21","targetPrice":999}
+                {"url":"https://amazon.in/gp/product/B0IMPORT01"}
+                {"url":"https://www.amazon.in/dp/B0EXIST001?psc=1"}
+                {"url":"https://www.example.com/item/1"}
+                {"url":"ftp://www.amazon.in/dp/B0IMPORT03"}
+                not json
+
+                {"url":"https://www.flipkart.com/phone/p/itmabc123?pid=MOBABCDEFGHIJKLM","scrapeFrequency":"HOURLY"}
+                """;
+        String body = mockMvc.perform(post("/api/products/import")
+                        .contentType("application/x-ndjson")
+                        .content(ndjson))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.rows").value(7))
+                .andExpect(jsonPath("$.accepted").value(2))
+                .andExpect(jsonPath("$.duplicates").value(2))
+                .andExpect(jsonPath("$.unsupported").value(1))
+                .andExpect(jsonPath("$.invalid").value(2))
+                .andExpect(jsonPath("$.pending").value(2))
+                .andExpect(jsonPath("$.status").value("SCRAPING"))
+                .andExpect(jsonPath("$.errors.length()").value(2))
+                .andReturn().getResponse().getContentAsString();
+        String importId = objectMapper.readTree(body).get("id").asText();
+
+        ProductInfo imported = productRepo.findByProductUrl("https://www.amazon.in/dp/B0IMPORT01").orElseThrow();
+        assertEquals("amazon.in:B0IMPORT01", imported.getCanonicalKey());
+        assertEquals(0, new BigDecimal("999").compareTo(imported.getTargetPrice()));
+        assertEquals(importId, imported.getImportId());
+        assertNull(imported.getLastScrapedAt());
+
+        String csv = """
+                url,targetPrice
+                https://www.amazon.in/dp/B0IMPORT01
+                "https://www.amazon.in/dp/B0IMPORT02?a=1,2",500
+                https://www.amazon.in/dp/B0IMPORT04,cheap
+                """;
+        mockMvc.perform(post("/api/products/import").contentType("text/csv").content(csv))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.accepted").value(1))
+                .andExpect(jsonPath("$.duplicates").value(1))
+                .andExpect(jsonPath("$.invalid").value(1));
+        assertTrue(productRepo.findByProductUrl("https://www.amazon.in/dp/B0IMPORT02").isPresent());
+
+        mockMvc.perform(get("/api/products/import/" + importId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.scraped").value(0))
+                .andExpect(jsonPath("$.pending").value(2));
+        mockMvc.perform(get("/api/products/import/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static long readVarint(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return value;
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static PriceHistory pricedAt(ProductInfo product, int price, LocalDateTime scrapedAt) {
+        PriceHistory record = new PriceHistory(product, BigDecimal.valueOf(price), true, "INR");
+        record.setScrapedAt(scrapedAt);
+        return record;
+    }
+
+    private ProductInfo saveProduct(String url) {
+        ProductInfo product = new ProductInfo();
+        product.setName("Synced " + url);
+        product.setProductUrl(url);
+        product.setScrapeFrequency("DAILY");
+        return productRepo.save(product);
+    }
+}
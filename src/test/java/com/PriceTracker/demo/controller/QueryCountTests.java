@@ -0,0 +1,156 @@
+package com.PriceTracker.demo.controller;
+
+import com.PriceTracker.demo.models.Alert;
+import com.PriceTracker.demo.models.PriceHistory;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.AlertRepo;
+import com.PriceTracker.demo.repositories.PriceHistoryRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Checks that list and series endpoints run a fixed number of SQL statements
+ * however many rows or products they return, and never serialise lazy associations.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class QueryCountTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private PriceHistoryRepo priceHistoryRepo;
+
+    @Autowired
+    private AlertRepo alertRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void cleanUp() {
+        alertRepo.deleteAll();
+        priceHistoryRepo.deleteAll();
+        productRepo.deleteAll();
+    }
+
+    @Test
+    void listEndpointsRunAFixedNumberOfStatements() throws Exception {
+        ProductInfo product = saveProductWithHistory("https://www.amazon.in/dp/COUNT1");
+
+        // Product reads include the two validator lookups
+        Map<String, Integer> expected = new LinkedHashMap<>();
+        expected.put("/api/products/active", 3);
+        expected.put("/api/products/" + product.getId() + "/prices?days=30", 3);
+        expected.put("/api/products/" + product.getId() + "/prices/all", 3);
+        expected.put("/api/alerts/product/" + product.getId(), 1);
+        expected.put("/api/alerts/pending", 1);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        for (Map.Entry<String, Integer> endpoint : expected.entrySet()) {
+            statistics.clear();
+            mockMvc.perform(get(endpoint.getKey()))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$[0].id").exists())
+                    .andExpect(jsonPath("$[0].product").doesNotExist());
+
+            assertEquals(endpoint.getValue().longValue(), statistics.getPrepareStatementCount(), endpoint.getKey());
+        }
+    }
+
+    @Test
+    void detailIsOneRequestWithAFixedNumberOfStatements() throws Exception {
+        ProductInfo product = saveProductWithHistory("https://www.amazon.in/dp/COUNT2");
+        String path = "/api/products/" + product.getId() + "/detail?days=30&maxPoints=10";
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(get(path))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.product.id").value(product.getId()))
+                .andExpect(jsonPath("$.series.length()").value(10))
+                .andExpect(jsonPath("$.analytics.recordCount").value(20))
+                .andExpect(jsonPath("$.recentAlerts.length()").value(10));
+
+        // Cold: product version, product and stats, series count and stream, analytics (window start,
+        // stats, latest), alerts. Analytics reuse the product already loaded in the same transaction.
+        assertEquals(9, statistics.getPrepareStatementCount());
+
+        // Warm: the product and analytics come from the read cache once its version is checked
+        statistics.clear();
+        mockMvc.perform(get(path)).andExpect(status().isOk());
+        assertEquals(4, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void seriesOfManyProductsRunAFixedNumberOfStatements() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            ids.add(saveProductWithHistory("https://www.amazon.in/dp/COUNTS" + i).getId());
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(post("/api/products/series").contentType("application/json")
+                        .content("{\"productIds\":" + ids + ",\"days\":30,\"maxPoints\":50}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.prices.length()").value(20))
+                .andExpect(jsonPath("$.prices[19][49]").value(981.0));
+
+        // Id check, starting prices, one stream of every series
+        assertEquals(3, statistics.getPrepareStatementCount());
+    }
+
+    private ProductInfo saveProductWithHistory(String url) {
+        ProductInfo product = new ProductInfo();
+        product.setName("Counted Phone");
+        product.setProductUrl(url);
+        product.setScrapeFrequency("DAILY");
+        product = productRepo.save(product);
+
+        List<PriceHistory> prices = new ArrayList<>();
+        List<Alert> alerts = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            prices.add(new PriceHistory(product, BigDecimal.valueOf(1000 - i), true, "INR"));
+            Alert alert = new Alert();
+            alert.setProduct(product);
+            alert.setAlertType("PRICE_DROP");
+            alert.setTriggerPrice(BigDecimal.valueOf(1000 - i));
+            alert.setEmail("count@example.com");
+            alerts.add(alert);
+        }
+        priceHistoryRepo.saveAll(prices);
+        alertRepo.saveAll(alerts);
+        return product;
+    }
+}
+
@@ -0,0 +1,159 @@
+package com.PriceTracker.demo.controller;
+
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.service.ScrapeLeaseService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Submits scrapes with async=true and polls them through /api/scrape-jobs.
+ * The products are freshly scraped, so the jobs finish without a fetch.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class ScrapeJobControllerTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private ScrapeLeaseService leaseService;
+
+    @Autowired
+    @Qualifier("scrapeExecutor")
+    private ThreadPoolTaskExecutor scrapeExecutor;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @AfterEach
+    void cleanUp() {
+        productRepo.deleteAll();
+    }
+
+    @Test
+    void acceptedScrapeIsPolledToCompletion() throws Exception {
+        ProductInfo product = saveFreshProduct();
+
+        var submitted = mockMvc.perform(post("/api/products/" + product.getId() + "/scrape?async=true"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String location = mockMvc.perform(asyncDispatch(submitted))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.type").value("SCRAPE"))
+                .andExpect(jsonPath("$.nodeId").value(leaseService.getNodeId()))
+                .andReturn().getResponse().getHeader(HttpHeaders.LOCATION);
+        assertNotNull(location);
+        assertTrue(location.startsWith("/api/scrape-jobs/" + leaseService.getNodeId() + "."), location);
+
+        JsonNode job;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        do {
+            assertTrue(System.nanoTime() < deadline, "job did not finish");
+            Thread.sleep(20);
+            job = objectMapper.readTree(mockMvc.perform(get(location))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+        } while (!job.get("status").asText().equals("DONE") && !job.get("status").asText().equals("FAILED"));
+
+        assertEquals("DONE", job.get("status").asText());
+        assertEquals(product.getId().longValue(), job.get("productId").asLong());
+        assertTrue(job.hasNonNull("finishedAt"));
+        assertFalse(job.has("future"));
+    }
+
+    @Test
+    void rejectsScrapesWhileTheExecutorIsFull() throws Exception {
+        ProductInfo product = saveFreshProduct();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Occupy every thread first, so no idle thread can take a queued task back off the queue
+            int threads = scrapeExecutor.getMaxPoolSize();
+            CountDownLatch busy = new CountDownLatch(threads);
+            for (int i = 0; i < threads; i++) {
+                scrapeExecutor.execute(() -> {
+                    busy.countDown();
+                    awaitQuietly(release);
+                });
+            }
+            assertTrue(busy.await(10, TimeUnit.SECONDS), "executor threads did not start");
+
+            int queued = 0;
+            try {
+                while (queued < 10_000) {
+                    scrapeExecutor.execute(() -> awaitQuietly(release));
+                    queued++;
+                }
+            } catch (TaskRejectedException expected) {
+                // Queue full
+            }
+            assertTrue(queued < 10_000, "executor queue never filled up");
+
+            mockMvc.perform(post("/api/products/" + product.getId() + "/scrape?async=true"))
+                    .andExpect(status().isServiceUnavailable())
+                    .andExpect(jsonPath("$.error").value("Scrape Queue Full"));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void pollsForOtherNodesJobsAreMisdirected() throws Exception {
+        mockMvc.perform(get("/api/scrape-jobs/other-node.3f0d4c1e-0000-4000-8000-000000000000"))
+                .andExpect(status().is(421))
+                .andExpect(header().doesNotExist(HttpHeaders.LOCATION));
+        mockMvc.perform(get("/api/scrape-jobs/" + leaseService.getNodeId() + ".3f0d4c1e-0000-4000-8000-000000000000"))
+                .andExpect(status().isNotFound());
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ProductInfo saveFreshProduct() {
+        ProductInfo product = new ProductInfo();
+        product.setName("Polled phone");
+        product.setProductUrl("https://www.amazon.in/dp/B0POLLED01");
+        product.setScrapeFrequency("DAILY");
+        product.setCurrentPrice(new BigDecimal("499.00"));
+        product.setLastScrapedAt(LocalDateTime.now());
+        return productRepo.save(product);
+    }
+}
@@ -0,0 +1,66 @@
+package com.PriceTracker.demo.models;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks the running trend statistics against the same figures computed
+ * over the whole series at once.
+ */
+class PriceTrendTests {
+
+    @Test
+    void matchesStatisticsOverTheWholeSeries() {
+        Random random = new Random(7);
+        LocalDateTime at = LocalDateTime.of(2026, 1, 1, 0, 0);
+        PriceTrend trend = new PriceTrend();
+        List<Double> prices = new ArrayList<>();
+        double emaWeek = 0;
+        for (int i = 0; i < 2000; i++) {
+            double price = 1000 + random.nextInt(200);
+            prices.add(price);
+            trend.update(at.plusHours(i), BigDecimal.valueOf(price));
+            double alpha = 1 - Math.exp(-1.0 / (7 * 24));
+            emaWeek = i == 0 ? price : emaWeek + alpha * (price - emaWeek);
+        }
+        assertEquals(emaWeek, trend.getEmaWeek(), 1e-6);
+
+        double mean = 0;
+        for (int i = 1; i < prices.size(); i++) {
+            mean += (prices.get(i) - prices.get(i - 1)) / prices.get(i - 1);
+        }
+        mean /= prices.size() - 1;
+        double squares = 0;
+        for (int i = 1; i < prices.size(); i++) {
+            double change = (prices.get(i) - prices.get(i - 1)) / prices.get(i - 1);
+            squares += (change - mean) * (change - mean);
+        }
+        assertEquals(Math.sqrt(squares / (prices.size() - 2)), trend.volatility(), 1e-12);
+    }
+
+    @Test
+    void countsConsecutiveDropsAndSkipsLatePrices() {
+        LocalDateTime at = LocalDateTime.of(2026, 1, 1, 0, 0);
+        PriceTrend trend = new PriceTrend();
+        int[] prices = { 500, 480, 480, 470, 450, 460, 440 };
+        for (int i = 0; i < prices.length; i++) {
+            trend.update(at.plusHours(i), BigDecimal.valueOf(prices[i]));
+            if (i == 4) {
+                assertEquals(3, trend.getDropStreak()); // An unchanged price keeps the streak
+            }
+        }
+        assertEquals(1, trend.getDropStreak());
+        assertEquals(at.plusHours(6), trend.getLastChangedAt());
+
+        assertFalse(trend.update(at.plusHours(3), BigDecimal.valueOf(100)));
+        assertEquals(7, trend.getTrendCount());
+        assertNull(new PriceTrend().volatility());
+    }
+}
@@ -0,0 +1,277 @@
+package com.PriceTracker.demo.scheduler;
+
+import com.PriceTracker.demo.models.Alert;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.AlertRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.service.AlertService;
+import com.PriceTracker.demo.service.EmailService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Drains the alert outbox with a stand-in mail sender that fails for chosen
+ * recipients. Checks that dispatchers never claim an alert twice, that a
+ * dispatcher whose claim timed out cannot overwrite the newer claim, that
+ * failed alerts back off exponentially until they are given up, and that new
+ * alerts in digest mode join only a digest that is still waiting to be sent.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class AlertDispatchJobTests {
+
+    private static final Duration CLAIM_TIMEOUT = Duration.ofMinutes(5);
+
+    @Autowired
+    private AlertService alertService;
+
+    @Autowired
+    private AlertRepo alertRepo;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    private final Set<String> failingRecipients = ConcurrentHashMap.newKeySet();
+    private final List<String> delivered = new ArrayList<>();
+    // Most alerts claimed and not yet marked at once, seen from inside a send
+    private final AtomicInteger mostClaimed = new AtomicInteger();
+
+    private ThreadPoolTaskExecutor executor;
+    private AlertDispatchJob job;
+    private ProductInfo product;
+
+    @BeforeEach
+    void setUp() {
+        EmailService emailService = new EmailService() {
+            @Override
+            public Map<Integer, Exception> sendAll(List<Email> emails) {
+                LocalDateTime now = LocalDateTime.now();
+                long claimed = alertRepo.findAll().stream()
+                        .filter(alert -> !alert.isNotified() && alert.getNextAttemptAt() != null &&
+                                alert.getNextAttemptAt().isAfter(now))
+                        .count();
+                mostClaimed.accumulateAndGet((int) claimed, Math::max);
+
+                Map<Integer, Exception> failures = new HashMap<>();
+                for (int i = 0; i < emails.size(); i++) {
+                    if (failingRecipients.contains(emails.get(i).to())) {
+                        failures.put(i, new IllegalStateException("Mailbox unavailable"));
+                    } else {
+                        synchronized (delivered) {
+                            delivered.add(emails.get(i).to());
+                        }
+                    }
+                }
+                return failures;
+            }
+        };
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.initialize();
+
+        job = new AlertDispatchJob(alertService, emailService, executor);
+        ReflectionTestUtils.setField(job, "batchSize", 5);
+        ReflectionTestUtils.setField(job, "claimTimeout", CLAIM_TIMEOUT);
+
+        product = new ProductInfo();
+        product.setName("Outbox phone");
+        product.setProductUrl("https://www.amazon.in/dp/OUTBOX1");
+        product.setScrapeFrequency("DAILY");
+        product = productRepo.save(product);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        executor.shutdown();
+        alertRepo.deleteAll();
+        productRepo.deleteAll();
+    }
+
+    @Test
+    void concurrentDispatchersClaimEachAlertOnce() throws Exception {
+        for (int i = 0; i < 30; i++) {
+            saveDueAlert("buyer" + i + "@example.com", 0);
+        }
+
+        ExecutorService dispatchers = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<List<Long>>> claims = new ArrayList<>();
+            for (int d = 0; d < 3; d++) {
+                claims.add(dispatchers.submit(() -> {
+                    List<Long> ids = new ArrayList<>();
+                    List<Alert> batch;
+                    while (!(batch = alertService.claimDueAlerts(7, CLAIM_TIMEOUT)).isEmpty()) {
+                        batch.forEach(alert -> ids.add(alert.getId()));
+                    }
+                    return ids;
+                }));
+            }
+            List<Long> all = new ArrayList<>();
+            for (Future<List<Long>> claim : claims) {
+                all.addAll(claim.get());
+            }
+            assertEquals(30, all.size());
+            assertEquals(30, new HashSet<>(all).size(), "an alert was claimed twice");
+        } finally {
+            dispatchers.shutdownNow();
+        }
+
+        // Claimed alerts stay hidden until the claim times out
+        assertTrue(alertService.claimDueAlerts(10, CLAIM_TIMEOUT).isEmpty());
+    }
+
+    @Test
+    void claimsABatchOnlyWhenADispatcherThreadIsFree() {
+        for (int i = 0; i < 30; i++) {
+            saveDueAlert("queued" + i + "@example.com", 0);
+        }
+
+        job.dispatchAlerts();
+
+        assertEquals(30, delivered.size());
+        // Two threads with batches of five: nothing claimed sits waiting in the executor queue
+        assertTrue(mostClaimed.get() <= 10, mostClaimed.get() + " alerts claimed at once");
+    }
+
+    @Test
+    void sendsAlertsAndBacksOffFailedOnes() {
+        Alert ok = saveDueAlert("ok@example.com", 0);
+        Alert failing = saveDueAlert("bounce@example.com", 2);
+        failingRecipients.add("bounce@example.com");
+
+        LocalDateTime before = LocalDateTime.now();
+        job.dispatchAlerts();
+        LocalDateTime after = LocalDateTime.now();
+
+        assertEquals(List.of("ok@example.com"), delivered);
+        Alert sent = alertRepo.findById(ok.getId()).orElseThrow();
+        assertTrue(sent.isNotified());
+        assertNull(sent.getNextAttemptAt());
+
+        // Third failure: the one minute backoff doubled twice
+        Alert retried = alertRepo.findById(failing.getId()).orElseThrow();
+        assertFalse(retried.isNotified());
+        assertEquals(3, retried.getDeliveryAttempts());
+        assertEquals("Mailbox unavailable", retried.getLastError());
+        assertFalse(retried.getNextAttemptAt().isBefore(before.plusMinutes(4)));
+        assertFalse(retried.getNextAttemptAt().isAfter(after.plusMinutes(4)));
+        assertTrue(alertService.claimDueAlerts(10, CLAIM_TIMEOUT).isEmpty());
+    }
+
+    @Test
+    void givesUpAfterMaxAttempts() {
+        int maxAttempts = (int) ReflectionTestUtils.getField(alertService, "maxDeliveryAttempts");
+        Alert alert = saveDueAlert("gone@example.com", maxAttempts - 1);
+        failingRecipients.add("gone@example.com");
+
+        job.dispatchAlerts();
+
+        Alert givenUp = alertRepo.findById(alert.getId()).orElseThrow();
+        assertFalse(givenUp.isNotified());
+        assertEquals(maxAttempts, givenUp.getDeliveryAttempts());
+        assertNull(givenUp.getNextAttemptAt());
+
+        job.dispatchAlerts();
+        assertEquals(maxAttempts, alertRepo.findById(alert.getId()).orElseThrow().getDeliveryAttempts());
+    }
+
+    @Test
+    void expiredClaimsCannotOverwriteANewerClaim() throws Exception {
+        Alert alert = saveDueAlert("slow@example.com", 0);
+
+        Alert stale = alertService.claimDueAlerts(10, Duration.ZERO).get(0);
+        Thread.sleep(5);
+        Alert current = alertService.claimDueAlerts(10, CLAIM_TIMEOUT).get(0);
+        assertEquals(alert.getId(), current.getId());
+
+        alertService.markFailed(stale, "SMTP timeout");
+        alertService.markSent(stale);
+        Alert untouched = alertRepo.findById(alert.getId()).orElseThrow();
+        assertFalse(untouched.isNotified());
+        assertEquals(0, untouched.getDeliveryAttempts());
+        assertEquals(current.getClaimToken(), untouched.getClaimToken());
+
+        alertService.markSent(current);
+        assertTrue(alertRepo.findById(alert.getId()).orElseThrow().isNotified());
+    }
+
+    @Test
+    void newAlertsJoinOnlyAnOpenDigest() {
+        Object alerts = AopTestUtils.getUltimateTargetObject(alertService);
+        ReflectionTestUtils.setField(alerts, "digestEnabled", true);
+        try {
+            Duration window = (Duration) ReflectionTestUtils.getField(alerts, "digestWindow");
+            LocalDateTime now = LocalDateTime.now();
+
+            // Neither a failed alert backing off nor one being sent is an open digest
+            saveAlert("digest@example.com", 1, null, now.plusMinutes(2));
+            saveAlert("digest@example.com", 0, "3f0d4c1e-claimed", now.plusMinutes(5));
+            LocalDateTime opened = saveTriggered("digest@example.com");
+            assertFalse(opened.isBefore(now.plus(window)));
+
+            LocalDateTime joined = saveTriggered("digest@example.com");
+            assertEquals(opened, joined);
+        } finally {
+            ReflectionTestUtils.setField(alerts, "digestEnabled", false);
+        }
+    }
+
+    private LocalDateTime saveTriggered(String email) {
+        Alert alert = newAlert(email);
+        alertService.saveTriggered(List.of(alert));
+        return alertRepo.findAll().stream()
+                .filter(stored -> stored.getDeliveryAttempts() == 0 && stored.getClaimToken() == null)
+                .map(Alert::getNextAttemptAt)
+                .max(LocalDateTime::compareTo)
+                .orElseThrow();
+    }
+
+    private Alert saveDueAlert(String email, int failedAttempts) {
+        return saveAlert(email, failedAttempts, null, LocalDateTime.now().minusSeconds(1));
+    }
+
+    private Alert saveAlert(String email, int failedAttempts, String claimToken, LocalDateTime nextAttemptAt) {
+        Alert alert = newAlert(email);
+        alert.setDeliveryAttempts(failedAttempts);
+        alert.setClaimToken(claimToken);
+        alert.setNextAttemptAt(nextAttemptAt);
+        return alertRepo.save(alert);
+    }
+
+    private Alert newAlert(String email) {
+        Alert alert = new Alert();
+        alert.setProduct(product);
+        alert.setAlertType("PRICE_DROP");
+        alert.setTriggerPrice(new BigDecimal("900.00"));
+        alert.setPreviousPrice(new BigDecimal("1000.00"));
+        alert.setEmail(email);
+        return alert;
+    }
+}
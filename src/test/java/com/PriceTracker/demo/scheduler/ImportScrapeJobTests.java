@@ -0,0 +1,155 @@
+package com.PriceTracker.demo.scheduler;
+
+import com.PriceTracker.demo.dto.ProductImport;
+import com.PriceTracker.demo.dto.ProductPrice;
+import com.PriceTracker.demo.exception.ScrapingException;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.PriceHistoryRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.scraper.AsyncScrapeEngine;
+import com.PriceTracker.demo.scraper.ScraperFactory;
+import com.PriceTracker.demo.scraper.UrlCanonicalizer;
+import com.PriceTracker.demo.service.PriceRefreshService;
+import com.PriceTracker.demo.service.ProductImportService;
+import com.PriceTracker.demo.service.ProductService;
+import com.PriceTracker.demo.service.ScrapeLeaseService;
+import com.github.benmanes.caffeine.cache.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Imports a short link and a product whose page always fails, then runs the
+ * initial scrapes with a refresh service that answers without fetching. The
+ * short link's target is put in the canonicaliser's cache, so it resolves
+ * without the network too.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class ImportScrapeJobTests {
+
+    private static final String SHORT_LINK = "https://amzn.in/d/importshort1";
+    private static final String FAILING_URL = "https://www.amazon.in/dp/B0IMPFAIL1";
+
+    @Autowired
+    private ProductImportService productImportService;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ScrapeLeaseService leaseService;
+
+    @Autowired
+    private ScraperFactory scraperFactory;
+
+    @Autowired
+    private AsyncScrapeEngine scrapeEngine;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private PriceHistoryRepo priceHistoryRepo;
+
+    private final Queue<String> scraped = new ConcurrentLinkedQueue<>();
+
+    private ImportScrapeJob job;
+    private Duration leaseDuration;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        UrlCanonicalizer canonicalizer = new UrlCanonicalizer(scraperFactory, 100);
+        ((Cache<String, String>) ReflectionTestUtils.getField(canonicalizer, "resolved"))
+                .put(SHORT_LINK, "https://www.amazon.in/Some-Phone/dp/B0IMPSHRT1?ref=share");
+
+        PriceRefreshService refreshService = new PriceRefreshService(productService, scrapeEngine) {
+            @Override
+            public CompletableFuture<ProductInfo> refreshAsync(ProductInfo product, boolean force) {
+                scraped.add(product.getProductUrl());
+                if (product.getProductUrl().equals(FAILING_URL)) {
+                    return CompletableFuture.failedFuture(new ScrapingException("HTTP 503 from Amazon", FAILING_URL));
+                }
+                return CompletableFuture.completedFuture(productService.applyScrapedPrice(product.getId(),
+                        new ProductPrice("Short link phone", new BigDecimal("1299.00"), true, "INR")));
+            }
+        };
+        job = new ImportScrapeJob(refreshService, leaseService, productImportService, productService, canonicalizer);
+        ReflectionTestUtils.setField(job, "batchSize", 20);
+
+        // Failed products keep their lease until it expires; let it expire at once
+        Object leases = AopTestUtils.getUltimateTargetObject(leaseService);
+        leaseDuration = (Duration) ReflectionTestUtils.getField(leases, "leaseDuration");
+        ReflectionTestUtils.setField(leases, "leaseDuration", Duration.ZERO);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        Object leases = AopTestUtils.getUltimateTargetObject(leaseService);
+        ReflectionTestUtils.setField(leases, "leaseDuration", leaseDuration);
+        priceHistoryRepo.deleteAll();
+        productRepo.deleteAll();
+    }
+
+    @Test
+    void resolvesShortLinksInTheBackgroundAndGivesUpOnFailingProducts() throws Exception {
+        String ndjson = "{\"url\":\"" + SHORT_LINK + "\"}\n{\"url\":\"" + FAILING_URL + "\"}\n";
+        ProductImport result = productImportService.importProducts(
+                new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), "ndjson");
+        assertEquals(2, result.getAccepted());
+
+        // Stored unresolved: the import itself never touches the network
+        ProductInfo shortLinked = productRepo.findByProductUrl(SHORT_LINK).orElseThrow();
+        assertEquals("url:" + SHORT_LINK, shortLinked.getCanonicalKey());
+
+        Object imports = AopTestUtils.getUltimateTargetObject(productImportService);
+        int maxAttempts = (int) ReflectionTestUtils.getField(imports, "maxScrapeAttempts");
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            Thread.sleep(5); // Past the zero-length lease of the last attempt
+            job.scrapePendingImports();
+        }
+
+        ProductInfo resolved = productRepo.findById(shortLinked.getId()).orElseThrow();
+        assertEquals("amazon.in:B0IMPSHRT1", resolved.getCanonicalKey());
+        assertEquals("https://www.amazon.in/dp/B0IMPSHRT1", resolved.getProductUrl());
+        assertEquals("Short link phone", resolved.getName());
+        assertNotNull(resolved.getLastScrapedAt());
+
+        ProductInfo failing = productRepo.findByProductUrl(FAILING_URL).orElseThrow();
+        assertFalse(failing.isActive());
+        assertEquals(maxAttempts, failing.getImportScrapeFailures());
+        assertEquals(maxAttempts, scraped.stream().filter(FAILING_URL::equals).count());
+
+        ProductImport done = productImportService.getImport(result.getId());
+        assertEquals("DONE", done.getStatus());
+        assertEquals(1, done.getScraped());
+        assertEquals(0, done.getPending());
+        assertEquals(1, done.getAbandoned());
+        assertEquals(maxAttempts, done.getFailedScrapes());
+
+        // Nothing is claimed again
+        int scrapes = scraped.size();
+        Thread.sleep(5);
+        job.scrapePendingImports();
+        assertEquals(scrapes, scraped.size());
+    }
+}
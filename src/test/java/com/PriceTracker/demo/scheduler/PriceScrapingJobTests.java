@@ -0,0 +1,175 @@
+package com.PriceTracker.demo.scheduler;
+
+import com.PriceTracker.demo.controller.ScrapeRunController;
+import com.PriceTracker.demo.dto.ScrapeRunStats;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.scraper.AsyncScrapeEngine;
+import com.PriceTracker.demo.service.AlertEvaluationStage;
+import com.PriceTracker.demo.service.PriceRefreshService;
+import com.PriceTracker.demo.service.ProductService;
+import com.PriceTracker.demo.service.ScrapeLeaseService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the hourly job with a refresh service whose scrapes finish only when
+ * the test releases them, firing it again while a run is still waiting.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class PriceScrapingJobTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private AsyncScrapeEngine scrapeEngine;
+
+    @Autowired
+    private ScrapeLeaseService leaseService;
+
+    @Autowired
+    private AlertEvaluationStage alertEvaluationStage;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    private final Queue<Long> refreshed = new ConcurrentLinkedQueue<>();
+    private final CompletableFuture<Void> scrapesDone = new CompletableFuture<>();
+    private final ExecutorService scheduler = Executors.newSingleThreadExecutor();
+
+    private PriceScrapingJob job;
+
+    @BeforeEach
+    void setUp() {
+        PriceRefreshService refreshService = new PriceRefreshService(productService, scrapeEngine) {
+            @Override
+            public CompletableFuture<ProductInfo> refreshAsync(ProductInfo product, boolean force) {
+                refreshed.add(product.getId());
+                return scrapesDone.thenApply(done -> product);
+            }
+        };
+        job = new PriceScrapingJob(refreshService, leaseService, alertEvaluationStage);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        scrapesDone.complete(null);
+        scheduler.shutdownNow();
+        productRepo.deleteAll();
+    }
+
+    @Test
+    void overlappingFiringsQueueDistinctProductsForTheRunningRun() throws Exception {
+        ReflectionTestUtils.setField(job, "carryOverLimit", 10);
+        List<ScrapeRunStats> runs = runWithOverlappingFirings(5);
+
+        // The second overlapping firing found the same five products again
+        assertEquals(2, runs.size());
+        assertEquals(1, runs.get(1).getScraped());
+        assertEquals(5, runs.get(1).getBacklog());
+
+        // Queued after the run's own drain, so drained straight after the run rather than next hour
+        assertEquals(5, runs.get(0).getScraped());
+        assertEquals(5, runs.get(0).getCarriedOver());
+        assertEquals(0, runs.get(0).getBacklog());
+        assertEquals(6, refreshed.size());
+    }
+
+    @Test
+    void carryOverStopsAtTheLimit() throws Exception {
+        ReflectionTestUtils.setField(job, "carryOverLimit", 3);
+        List<ScrapeRunStats> runs = runWithOverlappingFirings(5);
+
+        assertEquals(3, runs.get(1).getBacklog());
+        assertEquals(3, runs.get(0).getCarriedOver());
+        assertEquals(4, refreshed.size());
+    }
+
+    @Test
+    void servesRecentRuns() throws Exception {
+        ReflectionTestUtils.setField(job, "carryOverLimit", 10);
+        runWithOverlappingFirings(2);
+
+        MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new ScrapeRunController(job)).build();
+        mockMvc.perform(get("/api/scrape-runs"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].frequency").value("HOURLY"))
+                .andExpect(jsonPath("$[0].carriedOver").value(2))
+                .andExpect(jsonPath("$[1].scraped").value(1))
+                .andExpect(jsonPath("$[1].nodeId").value(leaseService.getNodeId()));
+    }
+
+    /**
+     * Start a run that scrapes one due product, then fire twice more while it
+     * waits: by then the given number of other products were scraped recently
+     * enough that the run skipped them, but are due for the later firings.
+     */
+    private List<ScrapeRunStats> runWithOverlappingFirings(int carryOverCandidates) throws Exception {
+        ProductInfo due = saveProduct("Due phone", null);
+        List<ProductInfo> recent = new ArrayList<>();
+        for (int i = 0; i < carryOverCandidates; i++) {
+            recent.add(saveProduct("Recent phone " + i, LocalDateTime.now().minusMinutes(1)));
+        }
+
+        Future<?> run = scheduler.submit(job::scrapeHourlyProducts);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!refreshed.contains(due.getId())) {
+            assertTrue(System.nanoTime() < deadline, "run did not start");
+            Thread.sleep(10);
+        }
+        Thread.sleep(300); // Let the run finish claiming and wait on its scrapes
+
+        // Scraped just after the run's due threshold: not due for it, due for any later firing
+        for (ProductInfo product : recent) {
+            product.setLastScrapedAt(LocalDateTime.now().minusMinutes(30).minusNanos(150_000_000));
+        }
+        productRepo.saveAll(recent);
+
+        job.scrapeHourlyProducts();
+        job.scrapeHourlyProducts();
+        assertEquals(List.of(due.getId()), new ArrayList<>(refreshed), "an overlapping firing started a run");
+        assertTrue(job.getRecentRuns().isEmpty());
+
+        scrapesDone.complete(null);
+        run.get(30, TimeUnit.SECONDS);
+        return job.getRecentRuns();
+    }
+
+    private ProductInfo saveProduct(String name, LocalDateTime lastScrapedAt) {
+        ProductInfo product = new ProductInfo();
+        product.setName(name);
+        product.setProductUrl("https://www.amazon.in/dp/" + name.replace(' ', '-'));
+        product.setScrapeFrequency("HOURLY");
+        product.setLastScrapedAt(lastScrapedAt);
+        return productRepo.save(product);
+    }
+}
@@ -0,0 +1,110 @@
+package com.PriceTracker.demo.scraper;
+
+import com.PriceTracker.demo.dto.ProductPrice;
+import com.PriceTracker.demo.scraper.impl.AmazonScraper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Load test of the async engine against a local stub server whose responses
+ * are delayed without holding a thread, like a slow retailer.
+ */
+class AsyncScrapeEngineTests {
+
+    private static final int REQUESTS = 2000;
+    private static final int MAX_IN_FLIGHT = 1000;
+    private static final long RESPONSE_DELAY_MS = 200;
+    private static final int ENGINE_THREADS = 6;
+
+    private static final byte[] PAGE = """
+            <html><head><title>Stub Phone - Amazon.in</title></head><body>
+            <span id="productTitle">Stub Phone</span>
+            <span class="a-price-whole">1,299</span>
+            <div id="availability">In stock</div>
+            </body></html>
+            """.getBytes(StandardCharsets.UTF_8);
+
+    private HttpServer server;
+    private ScheduledExecutorService delayer;
+    private AsyncScrapeEngine engine;
+
+    // Requests the stub server has received and not yet answered, and the most at once
+    private final AtomicInteger serverInFlight = new AtomicInteger();
+    private final AtomicInteger serverPeak = new AtomicInteger();
+
+    @BeforeEach
+    void startStubServer() throws Exception {
+        delayer = Executors.newSingleThreadScheduledExecutor();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 4096);
+        server.setExecutor(Executors.newFixedThreadPool(4));
+        server.createContext("/", exchange -> {
+            serverPeak.accumulateAndGet(serverInFlight.incrementAndGet(), Math::max);
+            delayer.schedule(() -> {
+                try (exchange) {
+                    serverInFlight.decrementAndGet();
+                    exchange.sendResponseHeaders(200, PAGE.length);
+                    exchange.getResponseBody().write(PAGE);
+                }
+                return null;
+            }, RESPONSE_DELAY_MS, TimeUnit.MILLISECONDS);
+        });
+        server.start();
+
+        // Two threads in each of the engine's three pools
+        engine = new AsyncScrapeEngine(new ScraperFactory(List.of(new AmazonScraper())), MAX_IN_FLIGHT,
+                ENGINE_THREADS / 3, ENGINE_THREADS / 3, ENGINE_THREADS / 3);
+    }
+
+    @AfterEach
+    void stop() {
+        engine.shutdown();
+        server.stop(0);
+        delayer.shutdownNow();
+    }
+
+    @Test
+    void sustainsThousandsOfConcurrentFetchesOnAFewThreads() {
+        // The "amazon.in" path segment routes the stub URL to the Amazon parser
+        String base = "http://127.0.0.1:" + server.getAddress().getPort() + "/amazon.in/dp/";
+        AtomicInteger persisted = new AtomicInteger();
+        AtomicInteger maxInFlightSeen = new AtomicInteger();
+
+        long start = System.nanoTime();
+        List<CompletableFuture<ProductPrice>> futures = new ArrayList<>();
+        for (int i = 0; i < REQUESTS; i++) {
+            futures.add(engine.submit(base + i, price -> {
+                maxInFlightSeen.accumulateAndGet(engine.getInFlight(), Math::max);
+                persisted.incrementAndGet();
+                return price;
+            }));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(REQUESTS, persisted.get());
+        assertEquals(0, new BigDecimal("1299").compareTo(futures.get(0).join().getPrice()));
+        assertTrue(maxInFlightSeen.get() <= MAX_IN_FLIGHT, "in-flight bounded by permits");
+
+        // Far more requests were open at the server at once than the engine has threads, within the permits
+        assertTrue(serverPeak.get() >= 20 * ENGINE_THREADS, serverPeak.get() + " requests in flight at once");
+        assertTrue(serverPeak.get() <= MAX_IN_FLIGHT, serverPeak.get() + " requests in flight at once");
+
+        // Sequential blocking fetches would need REQUESTS * RESPONSE_DELAY_MS = 400 s
+        assertTrue(elapsedMs < 60_000, "took " + elapsedMs + " ms");
+    }
+}
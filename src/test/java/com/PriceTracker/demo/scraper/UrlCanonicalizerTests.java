@@ -0,0 +1,61 @@
+package com.PriceTracker.demo.scraper;
+
+import com.PriceTracker.demo.scraper.impl.AmazonScraper;
+import com.PriceTracker.demo.scraper.impl.FlipkartScraper;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests that the URL variants of one product share a canonical key.
+ */
+class UrlCanonicalizerTests {
+
+    private final UrlCanonicalizer canonicalizer = new UrlCanonicalizer(
+            new ScraperFactory(List.of(new AmazonScraper(), new FlipkartScraper())), 100);
+
+    @Test
+    void amazonVariantsShareTheAsin() {
+        List<String> urls = List.of(
+                "https://www.amazon.in/dp/B0BDHWDR12",
+                "https://www.amazon.in/Apple-iPhone-14-128GB-Midnight/dp/B0BDHWDR12/ref=sr_1_3?keywords=iphone&tag=aff-21",
+                "https://amazon.in/gp/product/B0BDHWDR12?psc=1",
+                "https://m.amazon.in/gp/aw/d/b0bdhwdr12#reviews");
+
+        for (String url : urls) {
+            CanonicalUrl canonical = canonicalizer.canonicalize(url);
+            assertEquals("amazon.in:B0BDHWDR12", canonical.key(), url);
+            assertEquals("https://www.amazon.in/dp/B0BDHWDR12", canonical.url(), url);
+        }
+
+        // The same ASIN on another marketplace is another product
+        assertEquals("amazon.com:B0BDHWDR12", canonicalizer.canonicalize(
+                "https://www.amazon.com/dp/B0BDHWDR12?th=1").key());
+    }
+
+    @Test
+    void flipkartVariantsShareThePid() {
+        CanonicalUrl canonical = canonicalizer.canonicalize(
+                "https://www.flipkart.com/apple-iphone-15-black-128-gb/p/itm6ac6485515ae4?pid=MOBGTAGPTB3VS24W&lid=LSTMOB&marketplace=FLIPKART");
+        assertEquals("flipkart:MOBGTAGPTB3VS24W", canonical.key());
+        assertEquals("https://www.flipkart.com/apple-iphone-15-black-128-gb/p/itm6ac6485515ae4?pid=MOBGTAGPTB3VS24W",
+                canonical.url());
+
+        CanonicalUrl shared = canonicalizer.canonicalize(
+                "https://dl.flipkart.com/dl/apple-iphone-15-black-128-gb/p/itm6ac6485515ae4?affid=x&pid=mobgtagptb3vs24w");
+        assertEquals(canonical.key(), shared.key());
+        assertEquals(canonical.keyHash(), shared.keyHash());
+    }
+
+    @Test
+    void otherUrlsAreKeyedByTheUrl() {
+        CanonicalUrl canonical = canonicalizer.canonicalizeOffline("https://www.amazon.in/s?k=iphone#top");
+        assertEquals("url:https://www.amazon.in/s?k=iphone", canonical.key());
+        assertEquals("https://www.amazon.in/s?k=iphone#top", canonical.url());
+
+        // Short links are not resolved offline
+        assertEquals("url:https://amzn.in/d/abc123", canonicalizer.canonicalizeOffline("https://amzn.in/d/abc123/").key());
+    }
+}
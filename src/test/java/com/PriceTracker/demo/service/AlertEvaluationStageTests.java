@@ -0,0 +1,189 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.PriceChange;
+import com.PriceTracker.demo.models.Alert;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.AlertBatchRepo;
+import com.PriceTracker.demo.repositories.AlertRepo;
+import com.PriceTracker.demo.repositories.PendingPriceChangeRepo;
+import com.PriceTracker.demo.repositories.PriceChangeBatchRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Evaluates a large batch of price changes end to end, with every product
+ * flapping around its target price, then checks that cooldowns hold when
+ * another node evaluates a product's later changes, and that a batch whose
+ * alert write fails stays queued.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class AlertEvaluationStageTests {
+
+    private static final int PRODUCTS = 1000;
+    private static final int CHANGES_PER_PRODUCT = 10;
+
+    private static final BigDecimal HIGH = new BigDecimal("1000.00");
+    private static final BigDecimal LOW = new BigDecimal("890.00");
+
+    @Autowired
+    private AlertEvaluationStage stage;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private AlertRepo alertRepo;
+
+    @Autowired
+    private AlertService alertService;
+
+    @Autowired
+    private AlertRuleService alertRuleService;
+
+    @Autowired
+    private PendingPriceChangeRepo pendingPriceChangeRepo;
+
+    @Autowired
+    private PriceChangeBatchRepo priceChangeBatchRepo;
+
+    @Autowired
+    private AlertBatchRepo alertBatchRepo;
+
+    @Autowired
+    private PriceEventBroadcaster eventBroadcaster;
+
+    @AfterEach
+    void cleanUp() {
+        pendingPriceChangeRepo.deleteAll();
+        alertRepo.deleteAll();
+        productRepo.deleteAll();
+    }
+
+    @Test
+    void evaluatesTenThousandChangesAndSuppressesFlapping() {
+        List<ProductInfo> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductInfo product = new ProductInfo();
+            product.setName("Product " + i);
+            product.setProductUrl("https://www.amazon.in/dp/EVAL" + i);
+            product.setScrapeFrequency("HOURLY");
+            product.setTargetPrice(new BigDecimal("900.00"));
+            product.setCurrentPrice(HIGH);
+            product.setAlertEmail("user" + (i % 50) + "@example.com");
+            products.add(product);
+        }
+        productRepo.saveAll(products);
+
+        // Every product crosses its target (an 11% drop) five times and recovers in between
+        for (int n = 0; n < CHANGES_PER_PRODUCT; n++) {
+            boolean down = n % 2 == 0;
+            for (ProductInfo product : products) {
+                stage.submit(PriceChange.builder()
+                        .productId(product.getId())
+                        .oldPrice(down ? HIGH : LOW)
+                        .newPrice(down ? LOW : HIGH)
+                        .available(true)
+                        .build());
+            }
+        }
+
+        stage.flush();
+
+        // One TARGET_REACHED and one PRICE_DROP per product; the repeats are in cooldown
+        assertEquals(0, stage.getPendingCount());
+        assertEquals(2L * PRODUCTS, alertRepo.count());
+    }
+
+    @Test
+    void cooldownHoldsOnOtherNodes() {
+        ProductInfo product = saveTargetedProduct("EVALNODES");
+        stage.submit(change(product, HIGH, LOW));
+        stage.flush();
+        assertEquals(2, alertRepo.count());
+
+        // The price recovers and drops again, evaluated by a node that has never seen the product
+        AlertEvaluationStage otherNode = newStage(alertService);
+        otherNode.submit(change(product, LOW, HIGH));
+        otherNode.submit(change(product, HIGH, LOW));
+        otherNode.flush();
+        assertEquals(0, otherNode.getPendingCount());
+        assertEquals(2, alertRepo.count());
+    }
+
+    @Test
+    void failedBatchStaysQueuedWithoutStartingCooldowns() throws Exception {
+        ProductInfo product = saveTargetedProduct("EVALRETRY");
+
+        AtomicBoolean failing = new AtomicBoolean(true);
+        AlertService flakyAlertService = new AlertService(alertRepo, alertBatchRepo, eventBroadcaster,
+                pendingPriceChangeRepo) {
+            @Override
+            public void saveEvaluated(List<Alert> alerts, Collection<Long> changeIds) {
+                if (failing.get()) {
+                    throw new IllegalStateException("Connection refused");
+                }
+                alertService.saveEvaluated(alerts, changeIds);
+            }
+        };
+        AlertEvaluationStage flakyStage = newStage(flakyAlertService);
+
+        flakyStage.submit(change(product, HIGH, LOW));
+        flakyStage.flush();
+        assertEquals(1, flakyStage.getPendingCount());
+        assertEquals(0, alertRepo.count());
+
+        // Retried once the claim times out, and not suppressed by the failed attempt
+        failing.set(false);
+        Thread.sleep(5);
+        flakyStage.flush();
+        assertEquals(0, flakyStage.getPendingCount());
+        assertEquals(2, alertRepo.count());
+    }
+
+    private AlertEvaluationStage newStage(AlertService alerts) {
+        AlertEvaluationStage newStage = new AlertEvaluationStage(alerts, alertRuleService,
+                productRepo, pendingPriceChangeRepo, priceChangeBatchRepo);
+        ReflectionTestUtils.setField(newStage, "batchSize", 100);
+        ReflectionTestUtils.setField(newStage, "cooldown", Duration.ofHours(6));
+        ReflectionTestUtils.setField(newStage, "claimTimeout", Duration.ZERO);
+        return newStage;
+    }
+
+    private ProductInfo saveTargetedProduct(String asin) {
+        ProductInfo product = new ProductInfo();
+        product.setName("Product " + asin);
+        product.setProductUrl("https://www.amazon.in/dp/" + asin);
+        product.setScrapeFrequency("HOURLY");
+        product.setTargetPrice(new BigDecimal("900.00"));
+        product.setCurrentPrice(HIGH);
+        product.setAlertEmail(asin.toLowerCase() + "@example.com");
+        return productRepo.save(product);
+    }
+
+    private static PriceChange change(ProductInfo product, BigDecimal oldPrice, BigDecimal newPrice) {
+        return PriceChange.builder()
+                .productId(product.getId())
+                .oldPrice(oldPrice)
+                .newPrice(newPrice)
+                .available(true)
+                .build();
+    }
+}
@@ -0,0 +1,66 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.models.AlertRule;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that price changes only match the rules whose thresholds they crossed.
+ */
+class AlertRuleIndexTests {
+
+    @Test
+    void matchesOnlyCrossedTargets() {
+        AlertRuleIndex index = AlertRuleIndex.of(List.of(
+                rule(1L, "TARGET_PRICE", "900"),
+                rule(2L, "TARGET_PRICE", "950"),
+                rule(3L, "TARGET_PRICE", "1000"),
+                rule(4L, "TARGET_PRICE", "800")));
+
+        List<Long> crossed = index.targetsCrossed(new BigDecimal("1000"), new BigDecimal("900"))
+                .stream().map(AlertRule::getId).toList();
+
+        // 1000 was already reached before the drop and 800 is not reached yet
+        assertEquals(List.of(1L, 2L), crossed);
+        assertTrue(index.targetsCrossed(new BigDecimal("900"), new BigDecimal("950")).isEmpty());
+    }
+
+    @Test
+    void matchesDropRulesAtOrBelowTheDrop() {
+        AlertRuleIndex index = AlertRuleIndex.of(List.of(
+                rule(1L, "PERCENT_DROP", "5"),
+                rule(2L, "PERCENT_DROP", "10"),
+                rule(3L, "PERCENT_DROP", "20"),
+                rule(4L, "BACK_IN_STOCK", null)));
+
+        assertEquals(2, index.dropsReached(new BigDecimal("10.00")).size());
+        assertTrue(index.dropsReached(new BigDecimal("-3")).isEmpty());
+        assertEquals(1, index.getBackInStockRules().size());
+    }
+
+    @Test
+    void lookupVisitsOnlyMatchesAmongManySubscribers() {
+        List<AlertRule> rules = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            rules.add(rule((long) i, "TARGET_PRICE", String.valueOf(100 + i)));
+        }
+        AlertRuleIndex index = AlertRuleIndex.of(rules);
+
+        assertEquals(10, index.targetsCrossed(new BigDecimal("5110"), new BigDecimal("5100")).size());
+    }
+
+    private AlertRule rule(Long id, String type, String threshold) {
+        AlertRule rule = new AlertRule();
+        rule.setId(id);
+        rule.setProductId(1L);
+        rule.setEmail("user" + id + "@example.com");
+        rule.setRuleType(type);
+        rule.setThreshold(threshold == null ? null : new BigDecimal(threshold));
+        return rule;
+    }
+}
@@ -0,0 +1,141 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.models.Alert;
+import com.PriceTracker.demo.models.ProductInfo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.math.BigDecimal;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Sends digest batches to an in-process SMTP stand-in to check that each
+ * recipient gets one message and a batch uses one connection.
+ */
+class EmailServiceTests {
+
+    private ServerSocket serverSocket;
+    private Thread serverThread;
+    private final AtomicInteger connections = new AtomicInteger();
+    private final List<String> messages = new CopyOnWriteArrayList<>();
+
+    private EmailService emailService;
+
+    @BeforeEach
+    void startSmtpStandIn() throws Exception {
+        serverSocket = new ServerSocket(0);
+        serverThread = new Thread(() -> {
+            while (!serverSocket.isClosed()) {
+                try (Socket socket = serverSocket.accept()) {
+                    connections.incrementAndGet();
+                    converse(socket);
+                } catch (Exception e) {
+                    // Socket closed when the test finishes
+                }
+            }
+        });
+        serverThread.setDaemon(true);
+        serverThread.start();
+
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(serverSocket.getLocalPort());
+
+        emailService = new EmailService(mailSender);
+        ReflectionTestUtils.setField(emailService, "emailEnabled", true);
+        ReflectionTestUtils.setField(emailService, "fromEmail", "pricepulse@example.com");
+    }
+
+    @AfterEach
+    void stopSmtpStandIn() throws Exception {
+        serverSocket.close();
+        serverThread.join(1000);
+    }
+
+    @Test
+    void sendsOneDigestPerRecipientOverOneConnection() {
+        List<Alert> forAlice = List.of(
+                alert("alice@example.com", "Phone", "PRICE_DROP"),
+                alert("alice@example.com", "Laptop", "TARGET_REACHED"),
+                alert("alice@example.com", "Headphones", "PRICE_DROP"));
+        List<Alert> forBob = List.of(alert("bob@example.com", "Phone", "PRICE_DROP"));
+
+        List<EmailService.Email> emails = List.of(
+                emailService.digestEmail("alice@example.com", forAlice),
+                emailService.digestEmail("bob@example.com", forBob));
+
+        Map<Integer, Exception> failures = emailService.sendAll(emails);
+
+        assertTrue(failures.isEmpty(), () -> "failures: " + failures);
+        assertEquals(1, connections.get());
+        assertEquals(2, messages.size());
+        assertTrue(messages.get(0).contains("alice@example.com"));
+        assertTrue(messages.get(1).contains("bob@example.com"));
+    }
+
+    private Alert alert(String email, String productName, String type) {
+        ProductInfo product = new ProductInfo();
+        product.setName(productName);
+        product.setSourceSite("Amazon");
+        product.setProductUrl("https://www.amazon.in/dp/" + productName);
+        product.setTargetPrice(new BigDecimal("900"));
+
+        Alert alert = new Alert();
+        alert.setProduct(product);
+        alert.setAlertType(type);
+        alert.setEmail(email);
+        alert.setTriggerPrice(new BigDecimal("899"));
+        alert.setPreviousPrice(new BigDecimal("999"));
+        alert.setPercentageChange(10.0);
+        return alert;
+    }
+
+    /**
+     * Minimal SMTP dialogue - enough for JavaMail without auth or TLS.
+     */
+    private void converse(Socket socket) throws Exception {
+        BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+        PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+        out.print("220 localhost SMTP stand-in\r\n");
+        out.flush();
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            String command = line.toUpperCase();
+            if (command.startsWith("EHLO") || command.startsWith("HELO")) {
+                out.print("250 localhost\r\n");
+            } else if (command.startsWith("DATA")) {
+                out.print("354 End data with <CR><LF>.<CR><LF>\r\n");
+                out.flush();
+                List<String> data = new ArrayList<>();
+                while (!(line = in.readLine()).equals(".")) {
+                    data.add(line);
+                }
+                messages.add(String.join("\n", data));
+                out.print("250 OK\r\n");
+            } else if (command.startsWith("QUIT")) {
+                out.print("221 Bye\r\n");
+                out.flush();
+                return;
+            } else {
+                out.print("250 OK\r\n");
+            }
+            out.flush();
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.PricePoint;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that downsampling bounds the series size and keeps its extremes.
+ */
+class PriceDownsamplerTests {
+
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    @Test
+    void reducesAYearOfHourlyPricesAndKeepsExtremes() {
+        List<PricePoint> series = new ArrayList<>();
+        for (int i = 0; i < 9000; i++) {
+            // A slow wave with one sharp dip and one spike
+            double price = 1000 + 100 * Math.sin(i / 500.0);
+            if (i == 4321) {
+                price = 500;
+            } else if (i == 7777) {
+                price = 1500;
+            }
+            series.add(point(i, price));
+        }
+
+        List<PricePoint> sampled = downsample(series, 300);
+
+        assertTrue(sampled.size() <= 300, "got " + sampled.size() + " points");
+        assertTrue(sampled.size() >= 290);
+        assertEquals(series.get(0), sampled.get(0));
+        assertEquals(series.get(series.size() - 1), sampled.get(sampled.size() - 1));
+        assertTrue(sampled.contains(series.get(4321)));
+        assertTrue(sampled.contains(series.get(7777)));
+        for (int i = 1; i < sampled.size(); i++) {
+            assertTrue(sampled.get(i).getScrapedAt().isAfter(sampled.get(i - 1).getScrapedAt()));
+        }
+    }
+
+    @Test
+    void keepsShortSeriesAsIs() {
+        List<PricePoint> series = List.of(point(0, 10), point(1, 12), point(2, 11));
+
+        assertEquals(series, downsample(series, 300));
+        assertTrue(downsample(List.of(), 300).isEmpty());
+    }
+
+    @Test
+    void toleratesMorePointsThanCounted() {
+        List<PricePoint> series = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            series.add(point(i, i % 7));
+        }
+
+        PriceDownsampler sampler = new PriceDownsampler(900, 50);
+        series.forEach(sampler::accept);
+        List<PricePoint> sampled = sampler.result();
+
+        assertTrue(sampled.size() <= 50);
+        assertEquals(series.get(999), sampled.get(sampled.size() - 1));
+        assertEquals(0, sampled.stream().map(PricePoint::getPrice).min(Comparator.naturalOrder())
+                .orElseThrow().intValue());
+    }
+
+    @Test
+    void rejectsTooSmallBudget() {
+        assertThrows(IllegalArgumentException.class, () -> new PriceDownsampler(100, 3));
+    }
+
+    private List<PricePoint> downsample(List<PricePoint> series, int maxPoints) {
+        PriceDownsampler sampler = new PriceDownsampler(series.size(), maxPoints);
+        series.forEach(sampler::accept);
+        return sampler.result();
+    }
+
+    private PricePoint point(int hour, double price) {
+        return new PricePoint(START.plusHours(hour), BigDecimal.valueOf(price), true);
+    }
+}
@@ -0,0 +1,166 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.exception.EventStreamLimitException;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.PriceHistoryRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Opens many idle event streams against a running server and checks that a
+ * saved price reaches the streams subscribed to that product, and that the
+ * connection limit holds when streams are opened all at once.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class PriceEventBroadcasterTests {
+
+    private static final int STREAMS = 1000;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PriceEventBroadcaster broadcaster;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private PriceHistoryRepo priceHistoryRepo;
+
+    @AfterEach
+    void cleanUp() {
+        priceHistoryRepo.deleteAll();
+        productRepo.deleteAll();
+    }
+
+    @Test
+    void pushesPricesToThousandIdleStreams() throws Exception {
+        ProductInfo watched = saveProduct("https://www.amazon.in/dp/SSE1");
+        ProductInfo other = saveProduct("https://www.amazon.in/dp/SSE2");
+
+        HttpClient client = HttpClient.newHttpClient();
+        List<CompletableFuture<HttpResponse<InputStream>>> responses = new ArrayList<>();
+        for (int i = 0; i < STREAMS; i++) {
+            // Every other stream only watches the other product
+            long productId = i % 2 == 0 ? watched.getId() : other.getId();
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create("http://localhost:" + port + "/api/events?productIds=" + productId))
+                    .header("Accept", "text/event-stream")
+                    .build();
+            responses.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()));
+        }
+        List<BufferedReader> readers = new ArrayList<>();
+        for (CompletableFuture<HttpResponse<InputStream>> response : responses) {
+            HttpResponse<InputStream> r = response.get(30, TimeUnit.SECONDS);
+            assertEquals(200, r.statusCode());
+            readers.add(new BufferedReader(new InputStreamReader(r.body(), StandardCharsets.UTF_8)));
+        }
+        assertEquals(STREAMS, broadcaster.getSubscriberCount());
+
+        long tomcatThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("http-nio-"))
+                .count();
+        assertTrue(tomcatThreads < STREAMS / 2, "idle streams must not hold " + tomcatThreads + " threads");
+
+        priceHistoryService.savePrice(watched, new BigDecimal("799.00"), true, "INR");
+
+        for (int i = 0; i < STREAMS; i += 2) {
+            assertTrue(readUntilPrice(readers.get(i)).contains("\"price\":799.00"));
+        }
+
+        readers.forEach(reader -> {
+            try {
+                reader.close();
+            } catch (Exception e) {
+                // Already closed
+            }
+        });
+    }
+
+    @Test
+    void capsConcurrentlyOpenedStreams() throws Exception {
+        PriceEventBroadcaster limited = new PriceEventBroadcaster(50, 10, 2, Duration.ofSeconds(5));
+        ExecutorService openers = Executors.newFixedThreadPool(16);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Boolean>> opened = new ArrayList<>();
+            for (int i = 0; i < 400; i++) {
+                opened.add(openers.submit(() -> {
+                    start.await();
+                    try {
+                        limited.subscribe(List.of());
+                        return true;
+                    } catch (EventStreamLimitException e) {
+                        return false;
+                    }
+                }));
+            }
+            start.countDown();
+            int accepted = 0;
+            for (Future<Boolean> result : opened) {
+                accepted += result.get(10, TimeUnit.SECONDS) ? 1 : 0;
+            }
+            assertEquals(50, accepted);
+            assertEquals(50, limited.getSubscriberCount());
+        } finally {
+            openers.shutdownNow();
+            limited.shutdown();
+        }
+    }
+
+    private String readUntilPrice(BufferedReader reader) throws Exception {
+        String line;
+        boolean priceEvent = false;
+        while ((line = reader.readLine()) != null) {
+            if (line.equals("event:price")) {
+                priceEvent = true;
+            } else if (priceEvent && line.startsWith("data:")) {
+                return line;
+            }
+        }
+        fail("stream ended without a price event");
+        return null;
+    }
+
+    private ProductInfo saveProduct(String url) {
+        ProductInfo product = new ProductInfo();
+        product.setName("Live " + url);
+        product.setProductUrl(url);
+        product.setScrapeFrequency("DAILY");
+        return productRepo.save(product);
+    }
+}
@@ -0,0 +1,108 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.PriceTrackerApplication;
+import com.PriceTracker.demo.dto.PriceIngestResult;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.scraper.CanonicalUrl;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Measures price ingest throughput over the whole path: NDJSON parsing,
+ * product lookup, batched inserts, current price and trend updates, alert
+ * queueing and commit. Not a test - run it by hand after a build:
+ *
+ * <pre>
+ * mvn -q test-compile dependency:build-classpath -Dmdep.outputFile=cp.txt
+ * java -cp target/classes:target/test-classes:$(cat cp.txt) com.PriceTracker.demo.service.PriceIngestBenchmark
+ * </pre>
+ *
+ * It runs against the test profile's in-memory H2 database; pass
+ * --spring.datasource.url=... (and the matching username, password and
+ * dialect) to measure a real database. Every round sends new observations
+ * for the same products, and the first rounds warm up the JIT.
+ */
+public final class PriceIngestBenchmark {
+
+    private static final int PRODUCTS = 1000;
+    private static final int OBSERVATIONS_PER_ROUND = 100_000;
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int ROUNDS = 5;
+
+    private PriceIngestBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        try (ConfigurableApplicationContext context = new SpringApplicationBuilder(PriceTrackerApplication.class)
+                .profiles("test")
+                .web(WebApplicationType.NONE)
+                .run(args)) {
+            PriceIngestService ingestService = context.getBean(PriceIngestService.class);
+            ProductRepo productRepo = context.getBean(ProductRepo.class);
+
+            List<ProductInfo> products = new ArrayList<>();
+            for (int i = 0; i < PRODUCTS; i++) {
+                CanonicalUrl canonical = new CanonicalUrl(key(i), "https://www.amazon.in/dp/" + key(i));
+                ProductInfo product = new ProductInfo();
+                product.setName("Benchmark product " + i);
+                product.setProductUrl(canonical.url());
+                product.setCanonicalKey(canonical.key());
+                product.setCanonicalKeyHash(canonical.keyHash());
+                product.setScrapeFrequency("DAILY");
+                products.add(product);
+            }
+            productRepo.saveAll(products);
+
+            // Rounds move forward in time, so every round also moves current prices
+            int perProduct = OBSERVATIONS_PER_ROUND / PRODUCTS;
+            Instant start = Instant.now().minusSeconds((long) (WARMUP_ROUNDS + ROUNDS) * perProduct * 60);
+            long stored = 0;
+            long nanos = 0;
+            for (int round = 0; round < WARMUP_ROUNDS + ROUNDS; round++) {
+                byte[] feed = feed(round, perProduct, start.plusSeconds((long) round * perProduct * 60));
+                long begin = System.nanoTime();
+                PriceIngestResult result = ingestService.ingest(new ByteArrayInputStream(feed));
+                long elapsed = System.nanoTime() - begin;
+
+                boolean warm = round >= WARMUP_ROUNDS;
+                if (warm) {
+                    stored += result.getStored();
+                    nanos += elapsed;
+                }
+                System.out.printf(Locale.ROOT, "%s round %d: %d stored in %d ms, %.0f per second%n",
+                        warm ? "measured" : "warm-up", round, result.getStored(), elapsed / 1_000_000,
+                        result.getStored() * 1e9 / elapsed);
+            }
+            System.out.printf(Locale.ROOT, "%d products, %d observations: %.0f per second%n",
+                    PRODUCTS, stored, stored * 1e9 / nanos);
+        }
+    }
+
+    private static byte[] feed(int round, int perProduct, Instant from) {
+        StringBuilder feed = new StringBuilder(OBSERVATIONS_PER_ROUND * 160);
+        for (int n = 0; n < perProduct; n++) {
+            String observedAt = from.plusSeconds(n * 60L).toString();
+            for (int i = 0; i < PRODUCTS; i++) {
+                feed.append("{\"productKey\":\"").append(key(i))
+                        .append("\",\"price\":").append(1000 + (n + i) % 50)
+                        .append(",\"available\":true,\"currency\":\"INR\",\"observedAt\":\"").append(observedAt)
+                        .append("\",\"idempotencyKey\":\"bench:").append(round).append(':').append(i)
+                        .append(':').append(n).append("\"}\n");
+            }
+        }
+        return feed.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String key(int i) {
+        return String.format(Locale.ROOT, "amazon.in:B0BENCH%04d", i);
+    }
+}
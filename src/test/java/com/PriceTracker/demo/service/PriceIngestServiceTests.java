@@ -0,0 +1,151 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.AlertRuleRequest;
+import com.PriceTracker.demo.dto.PriceIngestResult;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.AlertRuleRepo;
+import com.PriceTracker.demo.repositories.PriceHistoryRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.scraper.CanonicalUrl;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Ingests a large NDJSON feed, checks that current prices and trends follow
+ * the newest observations and that resending the feed stores nothing, and
+ * that a batch runs a fixed number of statements however many products it touches.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class PriceIngestServiceTests {
+
+    private static final int PRODUCTS = 200;
+    private static final int OBSERVATIONS_PER_PRODUCT = 100;
+
+    @Autowired
+    private PriceIngestService priceIngestService;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private PriceHistoryRepo priceHistoryRepo;
+
+    @Autowired
+    private AlertRuleService alertRuleService;
+
+    @Autowired
+    private AlertRuleRepo alertRuleRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void cleanUp() {
+        alertRuleRepo.deleteAllInBatch();
+        priceHistoryRepo.deleteAllInBatch();
+        productRepo.deleteAllInBatch();
+    }
+
+    @Test
+    void ingestsFeedIdempotently() throws Exception {
+        saveProducts(PRODUCTS);
+
+        Instant base = Instant.now().minusSeconds(OBSERVATIONS_PER_PRODUCT * 60L);
+        StringBuilder feed = new StringBuilder();
+        for (int n = 0; n < OBSERVATIONS_PER_PRODUCT; n++) {
+            for (int i = 0; i < PRODUCTS; i++) {
+                feed.append(String.format(
+                        "{\"productKey\":\"amazon.in:B0INGEST%02X\",\"price\":%d,\"available\":true,"
+                                + "\"currency\":\"INR\",\"observedAt\":\"%s\",\"idempotencyKey\":\"feed:%d:%d\"}%n",
+                        i, 1000 + n, base.plusSeconds(n * 60L), i, n));
+            }
+        }
+        feed.append("{\"productKey\":\"amazon.in:B0UNKNOWN0\",\"price\":10}\n");
+        feed.append("{\"productId\":1,\"price\":-5}\n");
+        byte[] body = feed.toString().getBytes(StandardCharsets.UTF_8);
+        int total = PRODUCTS * OBSERVATIONS_PER_PRODUCT;
+
+        PriceIngestResult first = priceIngestService.ingest(new ByteArrayInputStream(body));
+        assertEquals(total + 2, first.getReceived());
+        assertEquals(total, first.getStored());
+        assertEquals(0, first.getDuplicates());
+        assertEquals(1, first.getUnmatched());
+        assertEquals(1, first.getInvalid());
+        assertTrue(first.getPriceChanges() >= PRODUCTS); // At least once per product, up to once per batch
+        assertEquals(total, priceHistoryRepo.count());
+
+        BigDecimal latest = BigDecimal.valueOf(1000 + OBSERVATIONS_PER_PRODUCT - 1);
+        for (ProductInfo product : productRepo.findAll()) {
+            assertEquals(0, latest.compareTo(product.getCurrentPrice()), product.getName());
+            assertNotNull(product.getLastScrapedAt());
+            assertEquals(OBSERVATIONS_PER_PRODUCT, product.getTrend().getTrendCount());
+        }
+
+        PriceIngestResult resent = priceIngestService.ingest(new ByteArrayInputStream(body));
+        assertEquals(0, resent.getStored());
+        assertEquals(total, resent.getDuplicates());
+        assertEquals(0, resent.getPriceChanges());
+        assertEquals(total, priceHistoryRepo.count());
+    }
+
+    /**
+     * History state that alert rules need is read for the whole batch at
+     * once, so the statement count does not grow with the number of products.
+     */
+    @Test
+    void readsRuleStateOncePerBatch() throws Exception {
+        List<ProductInfo> products = saveProducts(PRODUCTS);
+        for (ProductInfo product : products) {
+            alertRuleService.addRule(new AlertRuleRequest(product.getId(), "low@example.com", "ALL_TIME_LOW", null));
+            alertRuleService.addRule(new AlertRuleRequest(product.getId(), "stock@example.com", "BACK_IN_STOCK", null));
+        }
+        StringBuilder feed = new StringBuilder();
+        for (int i = 0; i < PRODUCTS; i++) {
+            feed.append(String.format(
+                    "{\"productKey\":\"amazon.in:B0INGEST%02X\",\"price\":900,\"available\":true}%n", i));
+        }
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        PriceIngestResult result = priceIngestService.ingest(
+                new ByteArrayInputStream(feed.toString().getBytes(StandardCharsets.UTF_8)));
+        assertEquals(PRODUCTS, result.getStored());
+        assertTrue(statistics.getPrepareStatementCount() < 20,
+                statistics.getPrepareStatementCount() + " statements for " + PRODUCTS + " products");
+    }
+
+    private List<ProductInfo> saveProducts(int count) {
+        List<ProductInfo> products = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            CanonicalUrl canonical = new CanonicalUrl(String.format("amazon.in:B0INGEST%02X", i),
+                    "https://www.amazon.in/dp/B0INGEST" + i);
+            ProductInfo product = new ProductInfo();
+            product.setName("Feed product " + i);
+            product.setProductUrl(canonical.url());
+            product.setCanonicalKey(canonical.key());
+            product.setCanonicalKeyHash(canonical.keyHash());
+            product.setScrapeFrequency("DAILY");
+            products.add(product);
+        }
+        return productRepo.saveAll(products);
+    }
+}
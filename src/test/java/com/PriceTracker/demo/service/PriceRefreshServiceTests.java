@@ -0,0 +1,142 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.ProductPrice;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.PriceHistoryRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.scraper.AsyncScrapeEngine;
+import com.PriceTracker.demo.scraper.CanonicalUrl;
+import com.PriceTracker.demo.scraper.ScraperFactory;
+import com.PriceTracker.demo.scraper.impl.AmazonScraper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Refreshes products through a scrape engine whose fetches complete only when
+ * the test says so, counting how many fetches each refresh starts.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class PriceRefreshServiceTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private PriceHistoryRepo priceHistoryRepo;
+
+    private final AtomicInteger fetches = new AtomicInteger();
+    private final CompletableFuture<ProductPrice> page = new CompletableFuture<>();
+
+    private AsyncScrapeEngine engine;
+    private PriceRefreshService refreshService;
+
+    @BeforeEach
+    void setUp() {
+        engine = new AsyncScrapeEngine(new ScraperFactory(List.of(new AmazonScraper())), 10, 1, 1, 1) {
+            @Override
+            public CompletableFuture<ProductPrice> scrapeAsync(String url) {
+                fetches.incrementAndGet();
+                return page;
+            }
+        };
+        refreshService = new PriceRefreshService(productService, engine);
+        ReflectionTestUtils.setField(refreshService, "freshnessWindow", Duration.ofMinutes(5));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        engine.shutdown();
+        priceHistoryRepo.deleteAll();
+        productRepo.deleteAll();
+    }
+
+    @Test
+    void concurrentRefreshesShareOneFetch() throws Exception {
+        ProductInfo product = saveProduct(null);
+
+        int refreshers = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(refreshers);
+        try {
+            List<Future<CompletableFuture<ProductInfo>>> submitted = new ArrayList<>();
+            for (int i = 0; i < refreshers; i++) {
+                submitted.add(pool.submit(() -> {
+                    start.await();
+                    return refreshService.refreshAsync(product, false);
+                }));
+            }
+            start.countDown();
+            List<CompletableFuture<ProductInfo>> refreshes = new ArrayList<>();
+            for (Future<CompletableFuture<ProductInfo>> future : submitted) {
+                refreshes.add(future.get(10, TimeUnit.SECONDS));
+            }
+
+            // Every refresher is waiting on the fetch started by the first
+            assertEquals(1, fetches.get());
+            assertTrue(refreshes.stream().noneMatch(CompletableFuture::isDone));
+
+            page.complete(new ProductPrice("Shared phone", new BigDecimal("899.00"), true, "INR"));
+            for (CompletableFuture<ProductInfo> refresh : refreshes) {
+                assertEquals(0, new BigDecimal("899.00").compareTo(refresh.get(10, TimeUnit.SECONDS).getCurrentPrice()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(1, fetches.get());
+        assertEquals(1, priceHistoryRepo.count());
+    }
+
+    @Test
+    void forceBypassesTheFreshnessWindow() {
+        ProductInfo product = saveProduct(LocalDateTime.now().minusMinutes(1));
+        page.complete(new ProductPrice("Fresh phone", new BigDecimal("799.00"), true, "INR"));
+
+        ProductInfo cached = refreshService.refreshAsync(product, false).join();
+        assertEquals(0, fetches.get());
+        assertEquals(0, new BigDecimal("999.00").compareTo(cached.getCurrentPrice()));
+
+        ProductInfo forced = refreshService.refreshAsync(product, true).join();
+        assertEquals(1, fetches.get());
+        assertEquals(0, new BigDecimal("799.00").compareTo(forced.getCurrentPrice()));
+    }
+
+    private ProductInfo saveProduct(LocalDateTime lastScrapedAt) {
+        CanonicalUrl canonical = new CanonicalUrl("amazon.in:B0REFRESH1", "https://www.amazon.in/dp/B0REFRESH1");
+        ProductInfo product = new ProductInfo();
+        product.setName("Refresh phone");
+        product.setProductUrl(canonical.url());
+        product.setCanonicalKey(canonical.key());
+        product.setCanonicalKeyHash(canonical.keyHash());
+        product.setScrapeFrequency("DAILY");
+        product.setCurrentPrice(new BigDecimal("999.00"));
+        product.setLastScrapedAt(lastScrapedAt);
+        return productRepo.save(product);
+    }
+}
@@ -0,0 +1,108 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.CacheStats;
+import com.PriceTracker.demo.dto.PriceAnalytics;
+import com.PriceTracker.demo.models.PriceHistory;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.PriceHistoryRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that repeated reads are served from the cache, that saving a
+ * price drops the product's cached response and analytics, and that entries
+ * are rebuilt when the product was changed without evicting them, as a
+ * change made on another node is.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class ProductReadCacheTests {
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private ProductReadCache readCache;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private PriceHistoryRepo priceHistoryRepo;
+
+    @AfterEach
+    void cleanUp() {
+        priceHistoryRepo.deleteAll();
+        productRepo.deleteAll();
+    }
+
+    @Test
+    void servesRepeatReadsFromMemoryUntilPriceChanges() {
+        ProductInfo product = new ProductInfo();
+        product.setName("Cached Phone");
+        product.setProductUrl("https://www.amazon.in/dp/CACHE1");
+        product.setScrapeFrequency("DAILY");
+        product = productRepo.save(product);
+        priceHistoryService.savePrice(product, new BigDecimal("1000.00"), true, "INR");
+
+        long hitsBefore = hits("price-analytics");
+        for (int i = 0; i < 100; i++) {
+            productService.getProductResponse(product.getId());
+            priceHistoryService.getAnalytics(product.getId(), 30);
+        }
+        assertEquals(99, hits("price-analytics") - hitsBefore);
+        assertEquals(0, new BigDecimal("1000.00").compareTo(
+                productService.getProductResponse(product.getId()).getCurrentPrice()));
+
+        priceHistoryService.savePrice(product, new BigDecimal("900.00"), true, "INR");
+
+        PriceAnalytics analytics = priceHistoryService.getAnalytics(product.getId(), 30);
+        assertEquals(0, new BigDecimal("900.00").compareTo(analytics.getMinPrice()));
+        assertEquals(0, new BigDecimal("900.00").compareTo(
+                productService.getProductResponse(product.getId()).getCurrentPrice()));
+    }
+
+    @Test
+    void rebuildsEntriesOfProductsChangedElsewhere() {
+        ProductInfo product = new ProductInfo();
+        product.setName("Shared Phone");
+        product.setProductUrl("https://www.amazon.in/dp/CACHE2");
+        product.setScrapeFrequency("DAILY");
+        product = productRepo.save(product);
+        priceHistoryService.savePrice(product, new BigDecimal("1000.00"), true, "INR");
+        productService.getProductResponse(product.getId());
+        priceHistoryService.getAnalytics(product.getId(), 30);
+
+        // Written straight to the database, leaving this node's cache untouched
+        ProductInfo stored = productRepo.findById(product.getId()).orElseThrow();
+        priceHistoryRepo.save(new PriceHistory(stored, new BigDecimal("800.00"), true, "INR"));
+        stored.setCurrentPrice(new BigDecimal("800.00"));
+        productRepo.save(stored);
+
+        assertEquals(0, new BigDecimal("800.00").compareTo(
+                productService.getProductResponse(product.getId()).getCurrentPrice()));
+        assertEquals(0, new BigDecimal("800.00").compareTo(
+                priceHistoryService.getAnalytics(product.getId(), 30).getMinPrice()));
+    }
+
+    private long hits(String cacheName) {
+        return readCache.getStats().stream()
+                .filter(stats -> stats.getName().equals(cacheName))
+                .mapToLong(CacheStats::getHits)
+                .sum();
+    }
+}
@@ -0,0 +1,132 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.ProductResponse;
+import com.PriceTracker.demo.dto.ProductSearchResult;
+import com.PriceTracker.demo.models.PriceHistory;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.PriceHistoryRepo;
+import com.PriceTracker.demo.repositories.ProductDeletionRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Searches a catalogue of a few thousand products through the in-memory
+ * index and checks that local writes and the sync log refresh keep it current.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class ProductSearchIndexTests {
+
+    private static final int PRODUCTS = 5000;
+
+    @Autowired
+    private ProductSearchIndex searchIndex;
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private PriceHistoryService priceHistoryService;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private PriceHistoryRepo priceHistoryRepo;
+
+    @Autowired
+    private ProductDeletionRepo productDeletionRepo;
+
+    @AfterEach
+    void cleanUp() {
+        priceHistoryRepo.deleteAll();
+        productRepo.deleteAll();
+        productDeletionRepo.deleteAll();
+        searchIndex.invalidate(); // Rows were deleted behind its back
+    }
+
+    @Test
+    void searchesFiltersAndSortsAndFollowsWrites() {
+        List<ProductInfo> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            ProductInfo product = new ProductInfo();
+            product.setName((i % 2 == 0 ? "Indexed Phone " : "Indexed Laptop ") + i);
+            product.setProductUrl("https://www.amazon.in/dp/SEARCH" + i);
+            product.setSourceSite(i % 3 == 0 ? "Flipkart" : "Amazon");
+            product.setScrapeFrequency("DAILY");
+            product.setCurrentPrice(BigDecimal.valueOf(1000 + i));
+            product.setActive(i % 10 != 0);
+            products.add(product);
+        }
+        productRepo.saveAll(products);
+
+        // Product 1 (a laptop) averaged 2000 and now costs 1001 - the only price drop
+        ProductInfo dropped = products.get(1);
+        priceHistoryRepo.saveAll(List.of(
+                new PriceHistory(dropped, new BigDecimal("2999.00"), true, "INR"),
+                new PriceHistory(dropped, new BigDecimal("1001.00"), true, "INR")));
+
+        ProductSearchResult laptops = searchIndex.search("indexed LAPTOP", null, null, false, "price", true, 0, 20);
+
+        assertEquals(PRODUCTS / 2, laptops.getTotal());
+        assertEquals(20, laptops.getItems().size());
+        assertEquals("Indexed Laptop 1", laptops.getItems().get(0).getName());
+
+        ProductSearchResult page = searchIndex.search("laptop 12", "amazon", true, false, "price", false, 1, 5);
+
+        // Laptops 12x and 12xx are odd, active (not a multiple of 10) and not a multiple of 3
+        assertTrue(page.getTotal() > 5);
+        page.getItems().forEach(p -> {
+            assertTrue(p.getName().toLowerCase().contains("laptop 12"), p.getName());
+            assertEquals("Amazon", p.getSourceSite());
+            assertTrue(p.isActive());
+        });
+
+        ProductSearchResult drops = searchIndex.search("indexed", null, null, true, "drop", false, 0, 10);
+        assertEquals(1, drops.getTotal());
+        assertEquals(new BigDecimal("2000.00"), drops.getItems().get(0).getAvgPrice());
+
+        // Local writes apply on commit
+        ProductInfo phone = products.get(2);
+        productService.updateActiveStatus(phone.getId(), false);
+        priceHistoryService.savePrice(productRepo.findById(phone.getId()).orElseThrow(),
+                new BigDecimal("500.00"), true, "INR");
+        ProductResponse updated = searchIndex.search("indexed phone 2", null, false, false, "updatedAt", false, 0, 100)
+                .getItems().stream().filter(p -> p.getId().equals(phone.getId())).findFirst().orElseThrow();
+        assertEquals(new BigDecimal("500.00"), updated.getCurrentPrice());
+        assertEquals(1L, updated.getPriceRecordCount());
+
+        ProductInfo removed = products.get(6);
+        productService.deleteProduct(removed.getId());
+        assertTrue(searchIndex.search("indexed phone 6", null, null, false, "updatedAt", false, 0, 100)
+                .getItems().stream().noneMatch(p -> p.getId().equals(removed.getId())));
+
+        // Writes from another node arrive with the next refresh
+        ProductInfo renamed = productRepo.findById(products.get(4).getId()).orElseThrow();
+        renamed.setName("Indexed Tablet 4");
+        productRepo.save(renamed);
+        searchIndex.refresh();
+        assertEquals(1, searchIndex.search("tablet", null, null, false, "updatedAt", false, 0, 10).getTotal());
+        assertEquals(0, searchIndex.search("indexed phone 4", null, null, false, "updatedAt", false, 0, 10)
+                .getItems().stream().filter(p -> p.getName().equals("Indexed Phone 4")).count());
+    }
+
+    @Test
+    void rejectsUnknownSort() {
+        assertThrows(IllegalArgumentException.class,
+                () -> searchIndex.search("x", null, null, false, "name", true, 0, 10));
+    }
+}
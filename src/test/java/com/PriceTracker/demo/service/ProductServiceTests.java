@@ -0,0 +1,140 @@
+package com.PriceTracker.demo.service;
+
+import com.PriceTracker.demo.dto.ProductPrice;
+import com.PriceTracker.demo.dto.ProductRequest;
+import com.PriceTracker.demo.exception.DuplicateProductException;
+import com.PriceTracker.demo.models.AlertRule;
+import com.PriceTracker.demo.models.ProductInfo;
+import com.PriceTracker.demo.repositories.AlertRuleRepo;
+import com.PriceTracker.demo.repositories.PriceHistoryRepo;
+import com.PriceTracker.demo.repositories.ProductRepo;
+import com.PriceTracker.demo.scraper.CanonicalUrl;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tracks one product under several URLs: adding a variant of a tracked
+ * product subscribes to it, and a scraped price reaches every active tracker.
+ * Every URL here is canonicalised offline, so nothing is fetched.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnableAutoConfiguration(exclude = MailSenderAutoConfiguration.class)
+class ProductServiceTests {
+
+    private static final CanonicalUrl CANONICAL =
+            new CanonicalUrl("amazon.in:B0TRACKED1", "https://www.amazon.in/dp/B0TRACKED1");
+    private static final String VARIANT_URL = "https://www.amazon.in/Tracked-Phone/dp/B0TRACKED1?ref=share&tag=x-21";
+
+    @Autowired
+    private ProductService productService;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private PriceHistoryRepo priceHistoryRepo;
+
+    @Autowired
+    private AlertRuleRepo alertRuleRepo;
+
+    @AfterEach
+    void cleanUp() {
+        alertRuleRepo.deleteAll();
+        priceHistoryRepo.deleteAll();
+        productRepo.deleteAll();
+    }
+
+    @Test
+    void addingATrackedProductSubscribesTheNewEmail() {
+        ProductInfo tracked = saveTracker("owner@example.com", true, 0);
+
+        ProductInfo result = productService.addProduct(
+                new ProductRequest(VARIANT_URL, new BigDecimal("750.00"), "DAILY", "buyer@example.com"));
+
+        assertEquals(tracked.getId(), result.getId());
+        assertEquals(1, productRepo.count());
+        List<AlertRule> rules = alertRuleRepo.findAll().stream()
+                .sorted(Comparator.comparing(AlertRule::getRuleType))
+                .toList();
+        assertEquals(2, rules.size());
+        assertEquals("PERCENT_DROP", rules.get(0).getRuleType());
+        assertEquals(0, new BigDecimal("5").compareTo(rules.get(0).getThreshold()));
+        assertEquals("TARGET_PRICE", rules.get(1).getRuleType());
+        assertEquals(0, new BigDecimal("750.00").compareTo(rules.get(1).getThreshold()));
+        assertTrue(rules.stream().allMatch(rule -> rule.getEmail().equals("buyer@example.com") &&
+                rule.getProductId().equals(tracked.getId())));
+
+        // Subscribing again adds nothing
+        assertThrows(DuplicateProductException.class, () -> productService.addProduct(
+                new ProductRequest(VARIANT_URL, new BigDecimal("750.00"), "DAILY", "buyer@example.com")));
+        assertEquals(2, alertRuleRepo.count());
+    }
+
+    @Test
+    void addingATrackedProductWithoutANewEmailIsADuplicate() {
+        saveTracker("owner@example.com", true, 0);
+
+        assertThrows(DuplicateProductException.class, () -> productService.addProduct(
+                new ProductRequest(VARIANT_URL, null, "DAILY", null)));
+        assertThrows(DuplicateProductException.class, () -> productService.addProduct(
+                new ProductRequest(VARIANT_URL, null, "DAILY", "OWNER@example.com")));
+        assertEquals(0, alertRuleRepo.count());
+    }
+
+    @Test
+    void scrapedPriceReachesEveryActiveTracker() {
+        ProductInfo first = saveTracker(null, true, 0);
+        ProductInfo duplicate = saveTracker(null, true, ProductService.duplicateCanonicalSlot());
+        ProductInfo paused = saveTracker(null, false, ProductService.duplicateCanonicalSlot());
+
+        List<ProductInfo> updated = productService.applyScrapedPriceToTrackers(duplicate.getId(),
+                new ProductPrice("Tracked phone", new BigDecimal("899.00"), true, "INR"));
+
+        assertEquals(List.of(duplicate.getId(), first.getId()), updated.stream().map(ProductInfo::getId).toList());
+        for (ProductInfo product : List.of(first, duplicate)) {
+            ProductInfo stored = productRepo.findById(product.getId()).orElseThrow();
+            assertEquals(0, new BigDecimal("899.00").compareTo(stored.getCurrentPrice()));
+            assertNotNull(stored.getLastScrapedAt());
+        }
+        ProductInfo skipped = productRepo.findById(paused.getId()).orElseThrow();
+        assertEquals(0, new BigDecimal("999.00").compareTo(skipped.getCurrentPrice()));
+        assertNull(skipped.getLastScrapedAt());
+        assertEquals(2, priceHistoryRepo.count());
+    }
+
+    @Test
+    void onlyOneTrackerHoldsTheFirstSlotOfAKey() {
+        saveTracker(null, true, 0);
+
+        assertThrows(DataIntegrityViolationException.class, () -> saveTracker(null, true, 0));
+        saveTracker(null, true, ProductService.duplicateCanonicalSlot());
+        assertEquals(2, productRepo.count());
+    }
+
+    private ProductInfo saveTracker(String alertEmail, boolean active, long canonicalSlot) {
+        ProductInfo product = new ProductInfo();
+        product.setName("Tracked phone");
+        product.setProductUrl(CANONICAL.url());
+        product.setCanonicalKey(CANONICAL.key());
+        product.setCanonicalKeyHash(CANONICAL.keyHash());
+        product.setCanonicalSlot(canonicalSlot);
+        product.setScrapeFrequency("DAILY");
+        product.setCurrentPrice(new BigDecimal("999.00"));
+        product.setAlertEmail(alertEmail);
+        product.setActive(active);
+        return productRepo.save(product);
+    }
+}
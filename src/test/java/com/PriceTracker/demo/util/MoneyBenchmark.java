@@ -0,0 +1,117 @@
+package com.PriceTracker.demo.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Compares Money with the BigDecimal expressions it replaced: the drop
+ * percentage, the significant-drop check and parsing scraped price text.
+ * Not a test - run it by hand after a build:
+ *
+ * <pre>
+ * mvn -q test-compile
+ * java -cp target/classes:target/test-classes com.PriceTracker.demo.util.MoneyBenchmark
+ * </pre>
+ *
+ * A warmed System.nanoTime loop rather than JMH, so the figures are
+ * indicative only; compare the two forms of each operation, not absolute times.
+ */
+public final class MoneyBenchmark {
+
+    private static final int N = 1 << 16;
+    private static final int ROUNDS = 8;
+
+    private static final BigDecimal[] from = new BigDecimal[N];
+    private static final BigDecimal[] to = new BigDecimal[N];
+    private static final Money[] fromMoney = new Money[N];
+    private static final Money[] toMoney = new Money[N];
+    private static final String[] texts = new String[N];
+
+    // Keeps results alive so the JIT cannot drop the loops
+    private static double sink;
+
+    private MoneyBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        Random random = new Random(1);
+        for (int i = 0; i < N; i++) {
+            from[i] = BigDecimal.valueOf(1 + random.nextInt(10_000_000), 2);
+            to[i] = BigDecimal.valueOf(1 + random.nextInt(10_000_000), 2);
+            fromMoney[i] = Money.of(from[i], null);
+            toMoney[i] = Money.of(to[i], null);
+            texts[i] = "₹" + String.format(Locale.ROOT, "%,.2f", from[i]);
+        }
+
+        // Every round runs every operation; only the last, warmed round is reported
+        for (int round = 0; round < ROUNDS; round++) {
+            boolean report = round == ROUNDS - 1;
+            measure("drop percentage, BigDecimal", report, () -> {
+                double sum = 0;
+                for (int i = 0; i < N; i++) {
+                    sum += from[i].subtract(to[i]).divide(from[i], 4, RoundingMode.HALF_UP)
+                            .multiply(BigDecimal.valueOf(100)).doubleValue();
+                }
+                return sum;
+            });
+            measure("drop percentage, Money", report, () -> {
+                double sum = 0;
+                for (int i = 0; i < N; i++) {
+                    sum -= fromMoney[i].changeBasisPointsTo(toMoney[i]) / 100.0;
+                }
+                return sum;
+            });
+            measure("significant drop, BigDecimal", report, () -> {
+                double count = 0;
+                for (int i = 0; i < N; i++) {
+                    if (from[i].subtract(to[i]).movePointRight(2)
+                            .compareTo(from[i].multiply(BigDecimal.valueOf(5))) >= 0) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+            measure("significant drop, Money", report, () -> {
+                double count = 0;
+                for (int i = 0; i < N; i++) {
+                    if (fromMoney[i].dropsByAtLeast(toMoney[i], 5)) {
+                        count++;
+                    }
+                }
+                return count;
+            });
+            measure("parse price text, regex + BigDecimal", report, () -> {
+                double sum = 0;
+                for (int i = 0; i < N; i++) {
+                    sum += new BigDecimal(texts[i].replaceAll("[₹$€£¥,\\s]", "")
+                            .replaceAll("[^0-9.]", "")).signum();
+                }
+                return sum;
+            });
+            measure("parse price text, Money", report, () -> {
+                double sum = 0;
+                for (int i = 0; i < N; i++) {
+                    sum += Money.parse(texts[i], null).minorUnits() > 0 ? 1 : 0;
+                }
+                return sum;
+            });
+        }
+        System.out.printf(Locale.ROOT, "checksum %.2f%n", sink);
+    }
+
+    private static void measure(String name, boolean report, Operation operation) {
+        long start = System.nanoTime();
+        sink += operation.run();
+        long elapsed = System.nanoTime() - start;
+        if (report) {
+            System.out.printf(Locale.ROOT, "%-40s %8.1f ns/op%n", name, elapsed / (double) N);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        double run();
+    }
+}
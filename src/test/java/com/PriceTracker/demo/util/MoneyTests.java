@@ -0,0 +1,60 @@
+package com.PriceTracker.demo.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that Money converts exactly to and from DECIMAL(10,2) amounts,
+ * reads scraped price text, and rounds percentages as the BigDecimal code did.
+ */
+class MoneyTests {
+
+    @Test
+    void convertsExactlyToAndFromDecimals() {
+        assertEquals(129999, Money.of(new BigDecimal("1299.99"), "INR").minorUnits());
+        assertEquals(100, Money.of(new BigDecimal("1"), "INR").minorUnits());
+        assertEquals(new BigDecimal("99999999.99"), Money.of(new BigDecimal("99999999.99"), null).toBigDecimal());
+        assertEquals(new BigDecimal("5.10"), Money.of(new BigDecimal("5.1000"), null).toBigDecimal());
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("1.005"), null));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("1"), "INR")
+                .minus(Money.of(new BigDecimal("1"), "USD")));
+    }
+
+    @Test
+    void parsesScrapedPriceText() {
+        assertEquals(129900, Money.parse("₹1,299.00", "INR").minorUnits());
+        assertEquals(2999999, Money.parse("₹ 29,999.99", "INR").minorUnits());
+        assertEquals(2999, Money.parse("$29.99", "USD").minorUnits());
+        assertEquals(129900, Money.parse("1,299.", null).minorUnits());
+        assertEquals(99, Money.parse(".99", null).minorUnits());
+        assertEquals(50, Money.parse("0.5", null).minorUnits());
+        assertNull(Money.parse("Currently unavailable", null));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.2.3", null));
+        assertThrows(NumberFormatException.class, () -> Money.parse("1.999", null));
+    }
+
+    @Test
+    void percentagesMatchBigDecimalArithmetic() {
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            BigDecimal from = BigDecimal.valueOf(1 + random.nextInt(10_000_000), 2);
+            BigDecimal to = BigDecimal.valueOf(1 + random.nextInt(10_000_000), 2);
+            Money fromMoney = Money.of(from, null);
+            Money toMoney = Money.of(to, null);
+
+            BigDecimal expected = to.subtract(from).divide(from, 4, RoundingMode.HALF_UP)
+                    .multiply(BigDecimal.valueOf(100));
+            BigDecimal actual = Money.basisPointsToPercent(fromMoney.changeBasisPointsTo(toMoney));
+            assertEquals(0, expected.compareTo(actual), from + " -> " + to);
+
+            boolean significant = from.subtract(to).movePointRight(2)
+                    .compareTo(from.multiply(BigDecimal.valueOf(5))) >= 0;
+            assertEquals(significant, fromMoney.dropsByAtLeast(toMoney, 5), from + " -> " + to);
+        }
+    }
+}